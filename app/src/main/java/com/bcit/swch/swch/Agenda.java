@@ -0,0 +1,90 @@
+package com.bcit.swch.swch;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import java.util.ArrayList;
+
+/**
+ * Agenda class lists the Todos which are due and the Events which occur
+ * within a range of dates, merged in date order.
+ *
+ * Both tables live in the same database file, so the merge is done by one
+ * SQL statement which range-scans the date index of each table. The occurrences
+ * of Events which repeat are expanded for the range only and merged in after
+ * the items on the same date.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class Agenda {
+
+    /**
+     * The kind column value of the Todos in the agenda query.
+     */
+    private static final int KIND_TODO = 0;
+
+    /**
+     * The query which merges the Todos and Events within a range of dates.
+     * On the same date Todos come before Events, and otherwise items are in the order they were added.
+     */
+    private static final String AGENDA_QUERY = TodoDatabase.AGENDA_SELECT
+            + " UNION ALL " + EventDatabase.AGENDA_SELECT
+            + " ORDER BY date_key, kind, ID";
+
+    /**
+     * The helper which opens the database file shared by every database.
+     */
+    private final PlannerDatabaseHelper helper;
+
+    /**
+     * The database of Events, used to expand the occurrences of Events which repeat.
+     */
+    private final EventDatabase eventDatabase;
+
+    /**
+     * The constructor which constructs an object of type Agenda.
+     * @param context the application context.
+     */
+    public Agenda(Context context) {
+        this.helper = PlannerDatabaseHelper.getInstance(context);
+        this.eventDatabase = new EventDatabase(context);
+    }
+
+    /**
+     * Gets the Todos due and the Events occurring within a range of dates, ordered by date.
+     * Each occurrence of an Event which repeats is included as an Event on the date it occurs.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of the Todo and Event objects within the range, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    public ArrayList<Object> getAgenda(Date from, Date to)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        ArrayList<Event> occurrences = eventDatabase.getOccurrencesBetween(from, to);
+        String fromKey = Integer.toString(from.getKey());
+        String toKey = Integer.toString(to.getKey());
+        Cursor cursor = helper.getReadableDatabase().rawQuery(AGENDA_QUERY,
+                new String[] {fromKey, toKey, fromKey, toKey});
+        try {
+            ArrayList<Object> items = new ArrayList<>(cursor.getCount() + occurrences.size());
+            int next = 0;
+            while (cursor.moveToNext()) {
+                while (next < occurrences.size() && occurrences.get(next).getEventDateKey() < cursor.getInt(4)) {
+                    items.add(occurrences.get(next++));
+                }
+                if (cursor.getInt(0) == KIND_TODO) {
+                    items.add(new Todo(cursor.getString(1), cursor.getInt(2), cursor.getString(3)));
+                } else {
+                    items.add(new Event(cursor.getString(1), cursor.getInt(2), cursor.getString(3)));
+                }
+            }
+            items.addAll(occurrences.subList(next, occurrences.size()));
+            return items;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.bcit.swch.swch;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AsyncDatabase class runs the calls of the Todo, Event and Note databases off the UI thread.
+ *
+ * Writes are run one at a time, in order, on a single writer thread. Reads are run
+ * on a small pool of reader threads and may run alongside a write. Results are
+ * returned as futures, or handed to a DatabaseCallback on the UI thread.
+ *
+ * Whole-row updates of the same row which are still queued are merged, so only the
+ * last one reaches the disk. Any other write ends the merging, because deletes and
+ * inserts move the positions the updates refer to.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class AsyncDatabase {
+
+    /**
+     * The number of threads which run reads.
+     */
+    private static final int READER_THREADS = 2;
+
+    /**
+     * The database for Todos.
+     */
+    private final TodoStore todoDatabase;
+
+    /**
+     * The database for Events.
+     */
+    private final EventStore eventDatabase;
+
+    /**
+     * The database for Notes.
+     */
+    private final NoteStore noteDatabase;
+
+    /**
+     * The single thread which runs every write.
+     */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new NamedThreadFactory("database-writer"));
+
+    /**
+     * The threads which run reads.
+     */
+    private final ExecutorService readers = Executors.newFixedThreadPool(READER_THREADS, new NamedThreadFactory("database-reader"));
+
+    /**
+     * The handler used to deliver callbacks on the UI thread.
+     */
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The queued whole-row updates which later updates of the same row are merged into.
+     */
+    private final Map<String, MergedWrite> pendingWrites = new HashMap<>();
+
+    /**
+     * The constructor which constructs an object of type AsyncDatabase.
+     * @param todoDatabase the database for Todos.
+     * @param eventDatabase the database for Events.
+     * @param noteDatabase the database for Notes.
+     */
+    public AsyncDatabase(TodoStore todoDatabase, EventStore eventDatabase, NoteStore noteDatabase) {
+        this.todoDatabase = todoDatabase;
+        this.eventDatabase = eventDatabase;
+        this.noteDatabase = noteDatabase;
+    }
+
+    /**
+     * Runs a read on the reader threads.
+     * @param task the read to run.
+     * @param <T> the type of the result of the read.
+     * @return Future which completes with the result of the read.
+     */
+    public <T> Future<T> read(Callable<T> task) {
+        return readers.submit(task);
+    }
+
+    /**
+     * Runs a read on the reader threads and hands its outcome to a callback on the UI thread.
+     * @param task the read to run.
+     * @param callback the callback which receives the outcome.
+     * @param <T> the type of the result of the read.
+     */
+    public <T> void read(Callable<T> task, DatabaseCallback<T> callback) {
+        readers.execute(new CallbackTask<>(task, callback));
+    }
+
+    /**
+     * Queues a write on the writer thread.
+     * @param task the write to run.
+     * @param <T> the type of the result of the write.
+     * @return Future which completes with the result of the write.
+     */
+    public <T> Future<T> write(Callable<T> task) {
+        synchronized (pendingWrites) {
+            pendingWrites.clear();
+            return writer.submit(task);
+        }
+    }
+
+    /**
+     * Queues a write on the writer thread and hands its outcome to a callback on the UI thread.
+     * @param task the write to run.
+     * @param callback the callback which receives the outcome.
+     * @param <T> the type of the result of the write.
+     */
+    public <T> void write(Callable<T> task, DatabaseCallback<T> callback) {
+        synchronized (pendingWrites) {
+            pendingWrites.clear();
+            writer.execute(new CallbackTask<>(task, callback));
+        }
+    }
+
+    /**
+     * Gets a Todo on the reader threads.
+     * @param id an int which is the id of the Todo.
+     * @return Future which completes with the Todo.
+     */
+    public Future<Todo> getTodo(final int id) {
+        return read(new Callable<Todo>() {
+            @Override
+            public Todo call() throws Exception {
+                return todoDatabase.getTodo(id);
+            }
+        });
+    }
+
+    /**
+     * Gets an Event on the reader threads.
+     * @param id an int which is the id of the Event.
+     * @return Future which completes with the Event.
+     */
+    public Future<Event> getEvent(final int id) {
+        return read(new Callable<Event>() {
+            @Override
+            public Event call() throws Exception {
+                return eventDatabase.getEvent(id);
+            }
+        });
+    }
+
+    /**
+     * Gets a Note on the reader threads.
+     * @param id an int which is the id of the Note.
+     * @return Future which completes with the Note.
+     */
+    public Future<Note> getNote(final int id) {
+        return read(new Callable<Note>() {
+            @Override
+            public Note call() throws Exception {
+                return noteDatabase.getNote(id);
+            }
+        });
+    }
+
+    /**
+     * Queues adding data to a database.
+     * @param database the database to add the data to.
+     * @param data the data to be added.
+     * @return Future which completes once the data is added.
+     */
+    public Future<Void> addDataEntry(final DataStore database, final Object data) {
+        return write(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                database.addDataEntry(data);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Queues deleting data from a database.
+     * @param database the database to delete the data from.
+     * @param id an int which is the id of the data to delete.
+     * @return Future which completes once the data is deleted.
+     */
+    public Future<Void> deleteDataEntry(final DataStore database, final int id) {
+        return write(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                database.deleteDataEntry(id);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Queues updating a whole Todo. Merged with a queued update of the same Todo.
+     * @param newTodoName a string which is the new Todo name to update to.
+     * @param newTodoPriority an int which is the new priority to update to.
+     * @param newTodoDueDate a string which is the new due date to update to.
+     * @param id an int which is the id of the Todo to update.
+     * @return Future which completes once the last merged update is written.
+     */
+    public Future<Void> updateTodo(final String newTodoName, final int newTodoPriority,
+                                   final String newTodoDueDate, final int id) {
+        return writeMerged("todo:" + id, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                todoDatabase.updateTodo(newTodoName, newTodoPriority, newTodoDueDate, id);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Queues updating a whole Event. Merged with a queued update of the same Event.
+     * @param newEventName a string which is the new Event name to update to.
+     * @param newEventPriority an int which is the new priority to update to.
+     * @param newEventDate a string which is the new event date to update to.
+     * @param id an int which is the id of the Event to update.
+     * @return Future which completes once the last merged update is written.
+     */
+    public Future<Void> updateEvent(final String newEventName, final int newEventPriority,
+                                    final String newEventDate, final int id) {
+        return writeMerged("event:" + id, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                eventDatabase.updateEvent(newEventName, newEventPriority, newEventDate, id);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Queues updating a whole Note. Merged with a queued update of the same Note.
+     * @param newNoteName a string which is the new Note name to update to.
+     * @param newNotePriority an int which is the new priority to update to.
+     * @param newNoteContents a string which is the new contents to update to.
+     * @param id an int which is the id of the Note to update.
+     * @return Future which completes once the last merged update is written.
+     */
+    public Future<Void> updateNote(final String newNoteName, final int newNotePriority,
+                                   final String newNoteContents, final int id) {
+        return writeMerged("note:" + id, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                noteDatabase.updateNote(newNoteName, newNotePriority, newNoteContents, id);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Stops the reader and writer threads once the queued calls have run.
+     */
+    public void shutdown() {
+        readers.shutdown();
+        writer.shutdown();
+    }
+
+    /**
+     * Helper method used to queue a whole-row update, merging it into a queued update of the same row.
+     * @param rowKey a string which identifies the row being updated.
+     * @param task the update to run.
+     * @return Future which completes once the last merged update is written.
+     */
+    private Future<Void> writeMerged(String rowKey, Callable<Void> task) {
+        synchronized (pendingWrites) {
+            MergedWrite pending = pendingWrites.get(rowKey);
+            if (pending != null) {
+                pending.task = task;
+                return pending.future;
+            }
+            MergedWrite write = new MergedWrite(rowKey, task);
+            pendingWrites.put(rowKey, write);
+            write.future = writer.submit(write);
+            return write.future;
+        }
+    }
+
+    /**
+     * MergedWrite class is a queued update which runs the last update merged into it.
+     */
+    private class MergedWrite implements Callable<Void> {
+
+        /**
+         * The key of the row being updated.
+         */
+        private final String rowKey;
+
+        /**
+         * The last update merged into this write.
+         */
+        private Callable<Void> task;
+
+        /**
+         * The future of this write.
+         */
+        private Future<Void> future;
+
+        /**
+         * The constructor which constructs an object of type MergedWrite.
+         * @param rowKey a string which identifies the row being updated.
+         * @param task the update to run.
+         */
+        MergedWrite(String rowKey, Callable<Void> task) {
+            this.rowKey = rowKey;
+            this.task = task;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            Callable<Void> latest;
+            synchronized (pendingWrites) {
+                if (pendingWrites.get(rowKey) == this) {
+                    pendingWrites.remove(rowKey);
+                }
+                latest = task;
+            }
+            return latest.call();
+        }
+    }
+
+    /**
+     * CallbackTask class runs a call and posts its outcome to a callback on the UI thread.
+     *
+     * @param <T> the type of the result of the call.
+     */
+    private class CallbackTask<T> implements Runnable {
+
+        /**
+         * The call to run.
+         */
+        private final Callable<T> task;
+
+        /**
+         * The callback which receives the outcome.
+         */
+        private final DatabaseCallback<T> callback;
+
+        /**
+         * The constructor which constructs an object of type CallbackTask.
+         * @param task the call to run.
+         * @param callback the callback which receives the outcome.
+         */
+        CallbackTask(Callable<T> task, DatabaseCallback<T> callback) {
+            this.task = task;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final T result = task.call();
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onResult(result);
+                    }
+                });
+            } catch (final Exception e) {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onError(e);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * NamedThreadFactory class makes named daemon threads for the executors.
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        /**
+         * The prefix of the names of the threads.
+         */
+        private final String name;
+
+        /**
+         * The number of threads made so far.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * The constructor which constructs an object of type NamedThreadFactory.
+         * @param name a string which is the prefix of the names of the threads.
+         */
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
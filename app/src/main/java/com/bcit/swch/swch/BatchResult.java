@@ -0,0 +1,86 @@
+package com.bcit.swch.swch;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BatchResult class represents the outcome of adding many data entries at once.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class BatchResult {
+
+    /**
+     * The failures of the batch, keyed by the position of the item in the batch.
+     */
+    private final Map<Integer, DataExistenceException> failures = new LinkedHashMap<>();
+
+    /**
+     * The number of data entries added to the database.
+     */
+    private int insertedCount;
+
+    /**
+     * Whether the batch was rolled back because of a failure.
+     */
+    private boolean rolledBack;
+
+    /**
+     * Records that a data entry was added to the database.
+     */
+    void addInserted() {
+        this.insertedCount++;
+    }
+
+    /**
+     * Records that an item of the batch could not be added.
+     * @param position an int which is the position of the item in the batch.
+     * @param e the exception which describes why the item could not be added.
+     */
+    void addFailure(int position, DataExistenceException e) {
+        this.failures.put(position, e);
+    }
+
+    /**
+     * Records that the batch was rolled back, so nothing was added.
+     */
+    void setRolledBack() {
+        this.rolledBack = true;
+        this.insertedCount = 0;
+    }
+
+    /**
+     * Gets the number of data entries added to the database.
+     * @return int which is the number of data entries added.
+     */
+    public int getInsertedCount() {
+        return this.insertedCount;
+    }
+
+    /**
+     * Gets the failures of the batch.
+     * @return Map which maps the position of each failed item to the reason it failed.
+     */
+    public Map<Integer, DataExistenceException> getFailures() {
+        return Collections.unmodifiableMap(this.failures);
+    }
+
+    /**
+     * Determines if every item of the batch was added.
+     * @return boolean which is true if there were no failures and false otherwise.
+     */
+    public boolean isSuccessful() {
+        return this.failures.isEmpty();
+    }
+
+    /**
+     * Determines if the batch was rolled back because of a failure.
+     * @return boolean which is true if the batch was rolled back and false otherwise.
+     */
+    public boolean isRolledBack() {
+        return this.rolledBack;
+    }
+}
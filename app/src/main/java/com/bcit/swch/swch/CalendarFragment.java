@@ -3,23 +3,130 @@ package com.bcit.swch.swch;
 import android.app.Fragment;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.CalendarView;
+import android.widget.TextView;
 
 import com.example.burt.swch_planner.R;
 
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.concurrent.Callable;
+
 /**
  * Created by Burt on 2017-11-26.
  */
 
 public class CalendarFragment extends Fragment {
+    private AsyncDatabase asyncDatabase;
+    private DayCounts dayCounts;
+    private TextView dayCountView;
+    private SparseArray<DayCount> monthCounts = new SparseArray<>();
+    private int loadedMonth = -1;
+    private int selectedKey;
+
     @Nullable
     @Override
     public View onCreateView(LayoutInflater inflater, @Nullable ViewGroup container, Bundle savedInstanceState) {
         View myView;
         myView = inflater.inflate(R.layout.calendar_layout, container, false);
+        showDayCounts(myView);
         return myView;
 
     }
+
+    @Override
+    public void onDestroyView() {
+        if (asyncDatabase != null) {
+            asyncDatabase.shutdown();
+            asyncDatabase = null;
+        }
+        super.onDestroyView();
+    }
+
+    /**
+     * Shows the number of Todos and Events on the selected day.
+     * The counts of the whole month shown are read once from the day counts, which
+     * reads at most a row per day, and are read again only when the month changes.
+     * @param myView the view of the fragment.
+     */
+    private void showDayCounts(View myView) {
+        CalendarView calendarView = (CalendarView) myView.findViewById(R.id.calendarView);
+        dayCountView = (TextView) myView.findViewById(R.id.dayCount);
+        dayCounts = new DayCounts(getActivity());
+        asyncDatabase = new AsyncDatabase(new TodoDatabase(getActivity()), new EventDatabase(getActivity()),
+                new NoteDatabase(getActivity()));
+
+        Calendar today = Calendar.getInstance();
+        today.setTimeInMillis(calendarView.getDate());
+        selectDay(today.get(Calendar.YEAR), today.get(Calendar.MONTH), today.get(Calendar.DAY_OF_MONTH));
+
+        calendarView.setOnDateChangeListener(new CalendarView.OnDateChangeListener() {
+            @Override
+            public void onSelectedDayChange(CalendarView view, int year, int month, int dayOfMonth) {
+                selectDay(year, month, dayOfMonth);
+            }
+        });
+    }
+
+    /**
+     * Shows the counts of a day, reading the counts of its month if they are not loaded.
+     * @param year an int which is the year of the day.
+     * @param month an int which is the month of the day, from 0 to 11.
+     * @param dayOfMonth an int which is the day of the month.
+     */
+    private void selectDay(int year, int month, int dayOfMonth) {
+        selectedKey = year * 10000 + (month + 1) * 100 + dayOfMonth;
+        if (year * 12 + month == loadedMonth) {
+            showSelectedDay();
+            return;
+        }
+        loadedMonth = year * 12 + month;
+        final int monthKey = year * 10000 + (month + 1) * 100;
+        Calendar first = Calendar.getInstance();
+        first.set(year, month, 1);
+        final int lastDay = first.getActualMaximum(Calendar.DAY_OF_MONTH);
+        final int requestedMonth = loadedMonth;
+        asyncDatabase.read(new Callable<ArrayList<DayCount>>() {
+            @Override
+            public ArrayList<DayCount> call() throws Exception {
+                return dayCounts.getCountsBetween(new Date(monthKey + 1), new Date(monthKey + lastDay));
+            }
+        }, new DatabaseCallback<ArrayList<DayCount>>() {
+            @Override
+            public void onResult(ArrayList<DayCount> counts) {
+                if (requestedMonth != loadedMonth) {
+                    return;
+                }
+                monthCounts = new SparseArray<>(counts.size());
+                for (DayCount count : counts) {
+                    monthCounts.put(count.getDateKey(), count);
+                }
+                showSelectedDay();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (requestedMonth == loadedMonth) {
+                    loadedMonth = -1;
+                    dayCountView.setText("");
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows the counts of the selected day from the counts of its month.
+     */
+    private void showSelectedDay() {
+        DayCount count = monthCounts.get(selectedKey);
+        if (count == null) {
+            dayCountView.setText("Nothing on this day");
+        } else {
+            dayCountView.setText(count.getTodoCount() + " todo(s), " + count.getEventCount() + " event(s)");
+        }
+    }
 }
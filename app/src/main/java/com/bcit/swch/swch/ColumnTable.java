@@ -0,0 +1,251 @@
+package com.bcit.swch.swch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * ColumnTable class stores the rows of an in-memory table in primitive column arrays.
+ *
+ * Each row has a row ID, a name symbol, a priority and an int value, which is a date
+ * key for Todos and Events and a contents symbol for Notes. Rows are kept in row ID
+ * order, so the position of a row is its index in the arrays. The number of rows with
+ * each name and value is counted, so duplicate checks are a single hash lookup.
+ *
+ * The table is not thread-safe; the stores which use it synchronize their methods.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class ColumnTable {
+
+    /**
+     * The initial capacity of the column arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The row ID column.
+     */
+    private int[] rowIds = new int[INITIAL_CAPACITY];
+
+    /**
+     * The name symbol column.
+     */
+    private int[] names = new int[INITIAL_CAPACITY];
+
+    /**
+     * The priority column.
+     */
+    private byte[] priorities = new byte[INITIAL_CAPACITY];
+
+    /**
+     * The value column.
+     */
+    private int[] values = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of rows with each name and value, keyed by the pair packed into a long.
+     */
+    private final HashMap<Long, Integer> pairCounts = new HashMap<>();
+
+    /**
+     * The number of rows in the table.
+     */
+    private int size;
+
+    /**
+     * The row ID given to the next row added.
+     */
+    private int nextRowId = 1;
+
+    /**
+     * Gets the number of rows in the table.
+     * @return int which is the number of rows.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds a row to the end of the table.
+     * @param name an int which is the name symbol.
+     * @param priority an int which is the priority.
+     * @param value an int which is the value.
+     * @return int which is the row ID of the new row.
+     */
+    int add(int name, int priority, int value) {
+        if (size == rowIds.length) {
+            int capacity = size * 2;
+            rowIds = Arrays.copyOf(rowIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int rowId = nextRowId++;
+        rowIds[size] = rowId;
+        names[size] = name;
+        priorities[size] = (byte) priority;
+        values[size] = value;
+        size++;
+        countPair(name, value, 1);
+        return rowId;
+    }
+
+    /**
+     * Removes the row at a position. Once the table is empty, row IDs start again from 1.
+     * @param position an int which is the position of the row.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    void removeAt(int position) {
+        checkPosition(position);
+        countPair(names[position], values[position], -1);
+        int moved = size - position - 1;
+        System.arraycopy(rowIds, position + 1, rowIds, position, moved);
+        System.arraycopy(names, position + 1, names, position, moved);
+        System.arraycopy(priorities, position + 1, priorities, position, moved);
+        System.arraycopy(values, position + 1, values, position, moved);
+        size--;
+        if (size == 0) {
+            nextRowId = 1;
+        }
+    }
+
+    /**
+     * Removes every row and starts row IDs again from 1.
+     */
+    void clear() {
+        size = 0;
+        nextRowId = 1;
+        pairCounts.clear();
+    }
+
+    /**
+     * Determines if a row with a name and value exists.
+     * @param name an int which is the name symbol, or -1 for a name which is not interned.
+     * @param value an int which is the value.
+     * @return boolean which is true if such a row exists and false otherwise.
+     */
+    boolean contains(int name, int value) {
+        return name >= 0 && pairCounts.containsKey(pack(name, value));
+    }
+
+    /**
+     * Gets the row ID of the row at a position.
+     * @param position an int which is the position of the row.
+     * @return int which is the row ID.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    int getRowId(int position) {
+        checkPosition(position);
+        return rowIds[position];
+    }
+
+    /**
+     * Gets the name symbol of the row at a position.
+     * @param position an int which is the position of the row.
+     * @return int which is the name symbol.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    int getName(int position) {
+        checkPosition(position);
+        return names[position];
+    }
+
+    /**
+     * Gets the priority of the row at a position.
+     * @param position an int which is the position of the row.
+     * @return int which is the priority.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    int getPriority(int position) {
+        checkPosition(position);
+        return priorities[position];
+    }
+
+    /**
+     * Gets the value of the row at a position.
+     * @param position an int which is the position of the row.
+     * @return int which is the value.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    int getValue(int position) {
+        checkPosition(position);
+        return values[position];
+    }
+
+    /**
+     * Sets the name symbol of the row at a position.
+     * @param position an int which is the position of the row.
+     * @param name an int which is the new name symbol.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    void setName(int position, int name) {
+        checkPosition(position);
+        countPair(names[position], values[position], -1);
+        names[position] = name;
+        countPair(name, values[position], 1);
+    }
+
+    /**
+     * Sets the priority of the row at a position.
+     * @param position an int which is the position of the row.
+     * @param priority an int which is the new priority.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    void setPriority(int position, int priority) {
+        checkPosition(position);
+        priorities[position] = (byte) priority;
+    }
+
+    /**
+     * Sets the value of the row at a position.
+     * @param position an int which is the position of the row.
+     * @param value an int which is the new value.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    void setValue(int position, int value) {
+        checkPosition(position);
+        countPair(names[position], values[position], -1);
+        values[position] = value;
+        countPair(names[position], value, 1);
+    }
+
+    /**
+     * Helper method used to change the number of rows with a name and value.
+     * @param name an int which is the name symbol.
+     * @param value an int which is the value.
+     * @param delta an int which is the change in the number of rows.
+     */
+    private void countPair(int name, int value, int delta) {
+        Long key = pack(name, value);
+        Integer count = pairCounts.get(key);
+        int newCount = (count != null ? count : 0) + delta;
+        if (newCount > 0) {
+            pairCounts.put(key, newCount);
+        } else {
+            pairCounts.remove(key);
+        }
+    }
+
+    /**
+     * Helper method used to pack a name and value into the key of the pair counts.
+     * @param name an int which is the name symbol.
+     * @param value an int which is the value.
+     * @return long which is the packed pair.
+     */
+    private static long pack(int name, int value) {
+        return ((long) name << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Helper method used to determine if a position is within the table.
+     * @param position an int which is the position of a row.
+     * @throws IndexOutOfBoundsException is thrown if there is no row at the position.
+     */
+    private void checkPosition(int position) {
+        if (position < 0 || position >= this.size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + this.size);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.bcit.swch.swch;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CompactionScheduler class reclaims the free pages left behind by deletes.
+ *
+ * PlannerDatabaseHelper owns the one scheduler of the database file, which every
+ * Database shares. Deletes only request a compaction. The request is run on a
+ * background thread, where the free-page policy decides whether the file is worth
+ * compacting. The file is made with incremental auto-vacuum, so only the free pages
+ * are released; a file made before that is converted once by the migration this
+ * class makes. Should it still not use incremental auto-vacuum, the whole file is
+ * rebuilt with VACUUM.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class CompactionScheduler {
+
+    /**
+     * The default fraction of free pages needed before compacting.
+     */
+    public static final double DEFAULT_MIN_FREE_RATIO = 0.25;
+
+    /**
+     * The default number of free pages needed before compacting.
+     */
+    public static final long DEFAULT_MIN_FREE_PAGES = 64;
+
+    /**
+     * The value of the auto_vacuum pragma when incremental auto-vacuum is enabled.
+     */
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    /**
+     * The statement which sets incremental auto-vacuum. It takes effect on a new file,
+     * or on an existing file when it is next rebuilt with VACUUM.
+     */
+    static final String AUTO_VACUUM_QUERY = "PRAGMA auto_vacuum = INCREMENTAL";
+
+    /**
+     * The tag of the log messages about compactions which failed.
+     */
+    private static final String TAG = "CompactionScheduler";
+
+    /**
+     * The background thread shared by the compactions of every database.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "database-compaction");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    /**
+     * The helper which opens the database file to compact.
+     */
+    private final PlannerDatabaseHelper helper;
+
+    /**
+     * The measurements of the compactions, off until enabled.
+     */
+    private final DatabaseMetrics metrics = new DatabaseMetrics(getClass().getSimpleName());
+
+    /**
+     * Whether a compaction has been requested and not yet run.
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    /**
+     * The fraction of the file's pages which must be free before compacting.
+     */
+    private volatile double minFreeRatio = DEFAULT_MIN_FREE_RATIO;
+
+    /**
+     * The number of free pages which must exist before compacting.
+     */
+    private volatile long minFreePages = DEFAULT_MIN_FREE_PAGES;
+
+    /**
+     * Whether compactions are run when requested.
+     */
+    private volatile boolean enabled = true;
+
+    /**
+     * The number of compactions run.
+     */
+    private volatile int runCount;
+
+    /**
+     * The duration of the last compaction in milliseconds.
+     */
+    private volatile long lastDurationMillis;
+
+    /**
+     * The number of bytes reclaimed by the last compaction.
+     */
+    private volatile long lastReclaimedBytes;
+
+    /**
+     * The number of bytes reclaimed by every compaction.
+     */
+    private volatile long totalReclaimedBytes;
+
+    /**
+     * The constructor which constructs an object of type CompactionScheduler.
+     * @param helper the helper which opens the database file to compact.
+     */
+    CompactionScheduler(PlannerDatabaseHelper helper) {
+        this.helper = helper;
+    }
+
+    /**
+     * Makes the migration which turns on incremental auto-vacuum in a database file made
+     * before it was set when the file is created. Auto-vacuum can only be turned on for
+     * an existing file by rebuilding it, so the migration runs VACUUM once, outside a
+     * transaction, and does nothing to a file which already uses it.
+     * @param version an int which is the version of the migration.
+     * @return Migration which turns on incremental auto-vacuum.
+     */
+    static Migration createAutoVacuumMigration(int version) {
+        return new Migration(version, "enable incremental auto-vacuum") {
+            @Override
+            protected long countRows(SQLiteDatabase db) {
+                return 0;
+            }
+
+            @Override
+            protected boolean migrateChunk(SQLiteDatabase db, MigrationProgress progress, int chunkSize) {
+                return false;
+            }
+
+            @Override
+            protected void finish(SQLiteDatabase db) {
+                if (DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) != AUTO_VACUUM_INCREMENTAL) {
+                    db.execSQL(AUTO_VACUUM_QUERY);
+                    db.execSQL("VACUUM");
+                }
+            }
+        };
+    }
+
+    /**
+     * Requests a compaction on the background thread. Requests made while one is
+     * already waiting are merged into it.
+     */
+    public void requestCompaction() {
+        if (!enabled || !pending.compareAndSet(false, true)) {
+            return;
+        }
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                pending.set(false);
+                try {
+                    compactIfNeeded();
+                } catch (SQLiteException e) {
+                    // The database was closed or is busy; the next delete requests again.
+                    Log.w(TAG, "Compaction failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Compacts the database on the calling thread if the free-page policy is met.
+     * Must not be called from the UI thread.
+     * @return boolean which is true if the database was compacted and false otherwise.
+     */
+    public synchronized boolean compactIfNeeded() {
+        long metricsStart = metrics.start();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        long freePages = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+        long pageCount = DatabaseUtils.longForQuery(db, "PRAGMA page_count", null);
+        if (freePages < minFreePages || pageCount == 0 || (double) freePages / pageCount < minFreeRatio) {
+            metrics.record(DatabaseMetrics.COMPACTION, metricsStart);
+            return false;
+        }
+
+        long pageSize = DatabaseUtils.longForQuery(db, "PRAGMA page_size", null);
+        long autoVacuum = DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null);
+        long start = SystemClock.elapsedRealtime();
+        if (autoVacuum == AUTO_VACUUM_INCREMENTAL) {
+            // The pragma returns a row for each page it frees, and frees them as the rows are read.
+            Cursor cursor = db.rawQuery("PRAGMA incremental_vacuum", null);
+            try {
+                while (cursor.moveToNext()) {
+                    // Each row is one freed page.
+                }
+            } finally {
+                cursor.close();
+            }
+        } else {
+            db.execSQL("VACUUM");
+        }
+        long after = DatabaseUtils.longForQuery(db, "PRAGMA page_count", null);
+
+        lastDurationMillis = SystemClock.elapsedRealtime() - start;
+        lastReclaimedBytes = (pageCount - after) * pageSize;
+        totalReclaimedBytes += lastReclaimedBytes;
+        runCount++;
+        metrics.record(DatabaseMetrics.COMPACTION, metricsStart);
+        return true;
+    }
+
+    /**
+     * Gets the measurements of the compactions.
+     * They are off until enabled with setEnabled.
+     * @return DatabaseMetrics which is the metrics of the compactions.
+     */
+    public DatabaseMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the free-page policy used to decide whether to compact.
+     * @param minFreeRatio a double which is the fraction of pages that must be free.
+     * @param minFreePages a long which is the number of pages that must be free.
+     */
+    public void setPolicy(double minFreeRatio, long minFreePages) {
+        this.minFreeRatio = minFreeRatio;
+        this.minFreePages = minFreePages;
+    }
+
+    /**
+     * Sets whether compactions are run when requested.
+     * @param enabled a boolean which is true to run compactions and false otherwise.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the number of compactions run.
+     * @return int which is the number of compactions.
+     */
+    public int getRunCount() {
+        return this.runCount;
+    }
+
+    /**
+     * Gets the duration of the last compaction.
+     * @return long which is the duration in milliseconds.
+     */
+    public long getLastDurationMillis() {
+        return this.lastDurationMillis;
+    }
+
+    /**
+     * Gets the number of bytes reclaimed by the last compaction.
+     * @return long which is the number of bytes.
+     */
+    public long getLastReclaimedBytes() {
+        return this.lastReclaimedBytes;
+    }
+
+    /**
+     * Gets the number of bytes reclaimed by every compaction.
+     * @return long which is the number of bytes.
+     */
+    public long getTotalReclaimedBytes() {
+        return this.totalReclaimedBytes;
+    }
+}
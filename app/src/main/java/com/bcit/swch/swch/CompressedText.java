@@ -0,0 +1,119 @@
+package com.bcit.swch.swch;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * CompressedText class compresses long text, such as the contents of a note, into
+ * deflate bytes, and inflates it again.
+ *
+ * Text shorter than the threshold, or which deflate would not make smaller, is not
+ * compressed, since it costs time to inflate and saves little space. The compressed
+ * bytes depend on the version of zlib, so text is compared by its hash instead.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+final class CompressedText {
+
+    /**
+     * The number of characters below which text is not compressed.
+     */
+    static final int THRESHOLD = 1024;
+
+    /**
+     * The encoding of the text before it is compressed.
+     */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The size of the buffer used to deflate and inflate.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * The constructor which prevents objects of type CompressedText from being constructed.
+     */
+    private CompressedText() {
+    }
+
+    /**
+     * Compresses text if it is long enough for compression to be worth it.
+     * @param text a string which is the text to compress, or null.
+     * @return byte array which is the deflated text, or null if the text is not compressed.
+     */
+    static byte[] compress(String text) {
+        if (text == null || text.length() < THRESHOLD) {
+            return null;
+        }
+        byte[] encoded = text.getBytes(UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(encoded);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(encoded.length / 2);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+                if (output.size() >= encoded.length) {
+                    return null;
+                }
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Hashes text with the first 64 bits of its SHA-1 digest, which are the same on
+     * every device and version, unlike the compressed bytes.
+     * @param text a string which is the text to hash.
+     * @return long which is the hash of the text.
+     */
+    static long hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available.", e);
+        }
+    }
+
+    /**
+     * Inflates text compressed by compress.
+     * @param compressed a byte array which is the deflated text.
+     * @return string which is the text.
+     * @throws IllegalArgumentException is thrown if the bytes are not deflated text.
+     */
+    static String decompress(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Compressed text is truncated.");
+                }
+                output.write(buffer, 0, count);
+            }
+            return new String(output.toByteArray(), UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Compressed text is corrupt.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.bcit.swch.swch;
+
+import android.database.Cursor;
+
+/**
+ * CursorReader interface reads the result of a query from a cursor.
+ * The cursor is owned and closed by the caller.
+ *
+ * @param <T> the type of the value read from the cursor.
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface CursorReader<T> {
+
+    /**
+     * Reads the result of a query.
+     * @param cursor the cursor positioned before the first row of the result.
+     * @return T which is the value read from the cursor.
+     */
+    T read(Cursor cursor);
+}
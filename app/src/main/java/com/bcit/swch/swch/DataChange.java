@@ -0,0 +1,91 @@
+package com.bcit.swch.swch;
+
+/**
+ * DataChange class represents one change to the data entries of a database.
+ *
+ * Positions are those of the database at the time of the change, so the changes
+ * of a batch are applied in order.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class DataChange {
+
+    /**
+     * The type of a change which added a data entry.
+     */
+    public static final int INSERTED = 0;
+
+    /**
+     * The type of a change which modified a data entry.
+     */
+    public static final int UPDATED = 1;
+
+    /**
+     * The type of a change which removed a data entry.
+     */
+    public static final int DELETED = 2;
+
+    /**
+     * The type of a change which removed every data entry.
+     */
+    public static final int CLEARED = 3;
+
+    /**
+     * The type of the change.
+     */
+    private final int type;
+
+    /**
+     * The row ID of the data entry, or -1 for a change of every data entry.
+     */
+    private final int rowId;
+
+    /**
+     * The position of the data entry, or -1 for a change of every data entry.
+     */
+    private final int position;
+
+    /**
+     * The constructor which constructs an object of type DataChange.
+     * @param type an int which is the type of the change.
+     * @param rowId an int which is the row ID of the data entry.
+     * @param position an int which is the position of the data entry.
+     */
+    DataChange(int type, int rowId, int position) {
+        this.type = type;
+        this.rowId = rowId;
+        this.position = position;
+    }
+
+    /**
+     * Gets the type of the change.
+     * @return int which is INSERTED, UPDATED, DELETED or CLEARED.
+     */
+    public int getType() {
+        return this.type;
+    }
+
+    /**
+     * Gets the row ID of the data entry.
+     * @return int which is the row ID, or -1 for a change of every data entry.
+     */
+    public int getRowId() {
+        return this.rowId;
+    }
+
+    /**
+     * Gets the position of the data entry.
+     * For an insert it is the new position, otherwise it is the position before the change.
+     * @return int which is the position, or -1 for a change of every data entry.
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    @Override
+    public String toString() {
+        return "DataChange{type=" + type + ", rowId=" + rowId + ", position=" + position + "}";
+    }
+}
@@ -0,0 +1,23 @@
+package com.bcit.swch.swch;
+
+import java.util.List;
+
+/**
+ * DataChangeListener interface receives the changes made to a database.
+ *
+ * The changes of each call or transaction are delivered together, once they are
+ * committed, on the thread which made them.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface DataChangeListener {
+
+    /**
+     * Called after changes to the database are committed.
+     * @param database the database which changed.
+     * @param changes the changes, in the order they were made.
+     */
+    void onDataChanged(Database database, List<DataChange> changes);
+}
@@ -0,0 +1,67 @@
+package com.bcit.swch.swch;
+
+import android.database.Cursor;
+
+import java.util.Collection;
+
+/**
+ * DataStore interface is the storage contract shared by the Todo, Event and Note stores.
+ *
+ * The SQLite databases implement it, as do the in-memory stores used for
+ * ephemeral data, tests and simulations of large datasets.
+ * Data entries are addressed by their position in the store.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface DataStore {
+
+    /**
+     * Adds the data to the store.
+     * @param data is the data to be added to the store.
+     * @throws DataExistenceException is thrown if the data object is already in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    void addDataEntry(Object data) throws DataExistenceException, IllegalPriorityException;
+
+    /**
+     * Adds many data objects to the store at once.
+     * Items which cannot be added are reported in the result. The other items are
+     * still added unless atomic is true, in which case the first failure rolls back
+     * the whole batch.
+     * @param data is the collection of data objects to be added to the store.
+     * @param atomic a boolean which is true if a failure should roll back the whole batch.
+     * @return BatchResult which describes which items were added and which failed.
+     */
+    BatchResult addDataEntries(Collection<?> data, boolean atomic);
+
+    /**
+     * Deletes the data from the store given the ID of the data object.
+     * @param id is the ID of the data object to be deleted.
+     * @throws DataExistenceException is thrown if the data object to be deleted is not in the store.
+     */
+    void deleteDataEntry(int id) throws DataExistenceException;
+
+    /**
+     * Deletes many data objects from the store at once.
+     * @param ids an int array of the IDs of the data objects to delete. Repeated IDs are deleted once.
+     * @return int which is the number of data objects deleted.
+     * @throws DataExistenceException is thrown if any of the data objects is not in the store,
+     *                                in which case nothing is deleted.
+     */
+    int deleteDataEntries(int[] ids) throws DataExistenceException;
+
+    /**
+     * Deletes everything in the store and resets the primary key (the ID).
+     * @param table a string which is the name of the store's table.
+     */
+    void deleteAllData(String table);
+
+    /**
+     * Gets all the data in the store.
+     * @param table a string which is the name of the store's table.
+     * @return Cursor which contains every row, in the columns of the store's table.
+     */
+    Cursor getAllData(String table);
+}
@@ -2,25 +2,140 @@ package com.bcit.swch.swch;
 
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Database class is an abstract class that represents the characteristics of
  * a database.
  *
+ * Every database keeps its table in the single file opened by PlannerDatabaseHelper.
+ * The index of positions, the row cache, the change listeners and the metrics of a
+ * table are kept by the helper and shared by every database of the table, so positions
+ * stay right whichever database made the last write.
+ *
  * @author SWCH
  * @version 2017
  */
 
-public abstract class Database extends SQLiteOpenHelper {
+public abstract class Database implements DataStore {
+
+    /**
+     * The ID column shared by the tables of every database.
+     */
+    private static final String ID_COLUMN = "ID";
+
+    /**
+     * The number of compiled statements kept by each database.
+     */
+    private static final int STATEMENT_CACHE_SIZE = 16;
+
+    /**
+     * The number of data objects kept in the row cache of each database.
+     */
+    protected static final int ROW_CACHE_SIZE = 128;
+
+    /**
+     * The largest number of row IDs bound to one DELETE statement, well under
+     * SQLite's limit of 999 parameters.
+     */
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    /**
+     * The cache of compiled statements used by the database's hot paths.
+     */
+    private final StatementCache statementCache = new StatementCache(STATEMENT_CACHE_SIZE);
+
+    /**
+     * The helper which opens the database file shared by every database.
+     */
+    private final PlannerDatabaseHelper helper;
+
+    /**
+     * The state of the table shared by every database of the table.
+     */
+    private final TableState tableState;
+
+    /**
+     * The measurements of the operations on the table, shared by every database of the table.
+     */
+    private final DatabaseMetrics metrics;
+
+    /**
+     * The handle used for writes, kept for the lifetime of the database.
+     */
+    private volatile SQLiteDatabase writableDatabase;
+
+    /**
+     * The handle used for reads, kept for the lifetime of the database.
+     */
+    private volatile SQLiteDatabase readableDatabase;
 
     /**
      * The constructor which constructs an object of type Database.
      * @param context the application context.
+     * @param table a string which is the name of the database's table used to make the database.
+     */
+    public Database(Context context, String table) {
+        this.helper = PlannerDatabaseHelper.getInstance(context);
+        this.tableState = helper.getTableState(table);
+        this.metrics = tableState.getMetrics();
+    }
+
+    /**
+     * Sets the journaling and caching settings of the database file shared by every database.
+     * The settings take effect the next time the file is opened, so this is best called
+     * before the first database is used.
+     * @param context the application context.
+     * @param config the settings to apply.
      */
-    public Database(Context context, String name, SQLiteDatabase.CursorFactory factory, int version) {
-        super(context, name, factory, version);
+    public static void configure(Context context, DatabaseConfig config) {
+        PlannerDatabaseHelper.getInstance(context).setConfig(config);
+    }
+
+    /**
+     * Sets the listener which receives the progress of the migrations run when the
+     * database file shared by every database is opened.
+     * @param context the application context.
+     * @param listener the listener, or null for none.
+     */
+    public static void setMigrationListener(Context context, MigrationListener listener) {
+        PlannerDatabaseHelper.getInstance(context).setMigrationListener(listener);
+    }
+
+    /**
+     * Gets the shared database file, opened for writing.
+     * The handle is kept and reused until the database is closed.
+     * @return SQLiteDatabase which is the database file.
+     */
+    public SQLiteDatabase getWritableDatabase() {
+        SQLiteDatabase db = writableDatabase;
+        if (db == null || !db.isOpen()) {
+            db = helper.getWritableDatabase();
+            writableDatabase = db;
+        }
+        return db;
+    }
+
+    /**
+     * Gets the shared database file, opened for reading.
+     * The handle is kept and reused until the database is closed.
+     * @return SQLiteDatabase which is the database file.
+     */
+    public SQLiteDatabase getReadableDatabase() {
+        SQLiteDatabase db = readableDatabase;
+        if (db == null || !db.isOpen()) {
+            db = helper.getReadableDatabase();
+            readableDatabase = db;
+        }
+        return db;
     }
 
     /**
@@ -31,6 +146,17 @@ public abstract class Database extends SQLiteOpenHelper {
      */
     public abstract void addDataEntry(Object data) throws DataExistenceException, IllegalPriorityException;
 
+    /**
+     * Adds many data objects to the database in a single transaction.
+     * Items which cannot be added are reported in the result. The other items are
+     * still added unless atomic is true, in which case the first failure rolls back
+     * the whole batch.
+     * @param data is the collection of data objects to be added to the database.
+     * @param atomic a boolean which is true if a failure should roll back the whole batch.
+     * @return BatchResult which describes which items were added and which failed.
+     */
+    public abstract BatchResult addDataEntries(Collection<?> data, boolean atomic);
+
     /**
      * Deletes the data from the database given the ID of the data object.
      * @param id is the ID of the data object to be deleted.
@@ -38,14 +164,129 @@ public abstract class Database extends SQLiteOpenHelper {
      */
     public abstract void deleteDataEntry(int id) throws DataExistenceException;
 
+    /**
+     * Deletes many data objects from the database in a single transaction.
+     * @param ids an int array of the IDs of the data objects to delete. Repeated IDs are deleted once.
+     * @return int which is the number of data objects deleted.
+     * @throws DataExistenceException is thrown if any of the data objects is not in the database,
+     *                                in which case nothing is deleted.
+     */
+    public abstract int deleteDataEntries(int[] ids) throws DataExistenceException;
+
     /**
      * Deletes everything in the database and resets the primary key (the ID).
      * @param table a string which is the name of the database's table used to make the database.
      */
     public void deleteAllData(String table) {
-        this.getWritableDatabase().execSQL("DELETE FROM " + table);
-        this.getWritableDatabase().execSQL("UPDATE SQLITE_SEQUENCE SET seq = 0 WHERE name = " + "'" + table + "'");
-        this.getWritableDatabase().execSQL("VACUUM");
+        long start = metrics.start();
+        SQLiteDatabase db = this.getWritableDatabase();
+        countImplicitTransaction();
+        db.execSQL("DELETE FROM " + table);
+        countImplicitTransaction();
+        db.execSQL("UPDATE SQLITE_SEQUENCE SET seq = 0 WHERE name = " + "'" + table + "'");
+        tableState.getRowIndex().clear();
+        helper.getCompactionScheduler().requestCompaction();
+        metrics.record(DatabaseMetrics.DELETE_ALL, start);
+    }
+
+    /**
+     * Deletes the rows at the given positions in a single transaction, a batch of row IDs per statement.
+     * @param table a string which is the name of the database's table used to make the database.
+     * @param ids an int array of the positions of the data entries to delete.
+     * @param rowCache the cache of data objects of the database.
+     * @return int which is the number of rows deleted.
+     * @throws DataExistenceException is thrown if a position holds no data entry, in which case nothing is deleted.
+     */
+    protected int deleteRows(String table, int[] ids, RowCache<?> rowCache)
+            throws DataExistenceException {
+        long start = metrics.start();
+        RowIndex index = getRowIndex(table);
+        int[] rowIds = new int[ids.length];
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                rowIds[i] = index.get(ids[i]);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+        Arrays.sort(rowIds);
+        int count = 0;
+        for (int i = 0; i < rowIds.length; i++) {
+            if (count == 0 || rowIds[count - 1] != rowIds[i]) {
+                rowIds[count++] = rowIds[i];
+            }
+        }
+
+        int deleted = 0;
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int from = 0; from < count; from += DELETE_BATCH_SIZE) {
+                int batchSize = Math.min(DELETE_BATCH_SIZE, count - from);
+                StringBuilder sql = new StringBuilder("DELETE FROM ").append(table)
+                        .append(" WHERE ").append(ID_COLUMN).append(" IN (");
+                for (int i = 0; i < batchSize; i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                SQLiteStatement statement = db.compileStatement(sql.append(')').toString());
+                try {
+                    for (int i = 0; i < batchSize; i++) {
+                        statement.bindLong(i + 1, rowIds[from + i]);
+                    }
+                    deleted += statement.executeUpdateDelete();
+                } finally {
+                    statement.close();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            metrics.recordTransaction();
+        }
+
+        removeDeletedRows(table, rowIds, count, rowCache);
+        metrics.record(DatabaseMetrics.BULK_DELETE, start, count, deleted);
+        return deleted;
+    }
+
+    /**
+     * Deletes every row which matches a condition with a single statement, in a single transaction.
+     * The condition should be answered from an index so only the matching rows are read.
+     * @param table a string which is the name of the database's table used to make the database.
+     * @param where a string which is the condition of the WHERE clause, with ? for each argument.
+     * @param args the values bound to the condition's parameters.
+     * @param rowCache the cache of data objects of the database.
+     * @return int which is the number of rows deleted.
+     */
+    protected int deleteRowsWhere(String table, String where, String[] args, RowCache<?> rowCache) {
+        long start = metrics.start();
+        getRowIndex(table);
+        SQLiteDatabase db = this.getWritableDatabase();
+        int[] rowIds;
+        int count = 0;
+        int deleted;
+        db.beginTransaction();
+        try {
+            Cursor cursor = db.rawQuery("SELECT " + ID_COLUMN + " FROM " + table
+                    + " WHERE " + where + " ORDER BY " + ID_COLUMN, args);
+            try {
+                rowIds = new int[cursor.getCount()];
+                while (cursor.moveToNext()) {
+                    rowIds[count++] = cursor.getInt(0);
+                }
+            } finally {
+                cursor.close();
+            }
+            deleted = count == 0 ? 0 : db.delete(table, where, args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            metrics.recordTransaction();
+        }
+
+        removeDeletedRows(table, rowIds, count, rowCache);
+        metrics.record(DatabaseMetrics.BULK_DELETE, start, count, deleted);
+        return deleted;
     }
 
     /**
@@ -54,6 +295,308 @@ public abstract class Database extends SQLiteOpenHelper {
      * @return Cursor which contains the results from the SQL query.
      */
     public Cursor getAllData(String table) {
-        return this.getWritableDatabase().rawQuery("SELECT * FROM " + table, null);
+        return this.getReadableDatabase().rawQuery("SELECT * FROM " + table, null);
+    }
+
+    /**
+     * Gets one page of the data in the database, ordered by ID.
+     * The page starts after a row ID rather than at an offset, so every page is
+     * read straight from the primary key no matter how far into the table it is.
+     * @param table a string which is the name of the database's table used to make the database.
+     * @param afterId a long which is the ID of the last row of the previous page, or 0 for the first page.
+     * @param pageSize an int which is the largest number of rows in the page.
+     * @return Cursor which contains the rows of the page.
+     */
+    public Cursor getDataPage(String table, long afterId, int pageSize) {
+        return this.getReadableDatabase().rawQuery("SELECT * FROM " + table
+                + " WHERE " + ID_COLUMN + " > ? ORDER BY " + ID_COLUMN + " LIMIT ?",
+                new String[] {Long.toString(afterId), Integer.toString(pageSize)});
+    }
+
+    /**
+     * Packs a date key and a row ID into the key of a date-ordered page.
+     * @param dateKey an int which is the date packed as yyyymmdd.
+     * @param rowId an int which is the row ID.
+     * @return long which is the page key.
+     */
+    public static long packPageKey(int dateKey, int rowId) {
+        return ((long) dateKey << 32) | (rowId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets one page of the data in the database, ordered by a date key column and then by ID.
+     * Rows without a date key are not included.
+     * @param table a string which is the name of the database's table used to make the database.
+     * @param keyColumn a string which is the name of the indexed date key column.
+     * @param afterKey a long which is the packed page key of the last row of the previous page,
+     *                 or 0 for the first page.
+     * @param pageSize an int which is the largest number of rows in the page.
+     * @return Cursor which contains the rows of the page.
+     */
+    protected Cursor getDataPageByDate(String table, String keyColumn, long afterKey, int pageSize) {
+        String dateKey = Integer.toString((int) (afterKey >>> 32));
+        return this.getReadableDatabase().rawQuery("SELECT * FROM " + table
+                + " WHERE " + keyColumn + " >= ? AND (" + keyColumn + " > ? OR " + ID_COLUMN + " > ?)"
+                + " ORDER BY " + keyColumn + ", " + ID_COLUMN + " LIMIT ?",
+                new String[] {dateKey, dateKey, Integer.toString((int) afterKey), Integer.toString(pageSize)});
+    }
+
+    /**
+     * Adds a listener which receives the changes made to the table of the database,
+     * through this or any other database of the table.
+     * The changes of each call are delivered together, after they are committed,
+     * on the thread which made them.
+     * @param listener the listener to add.
+     */
+    public void addChangeListener(DataChangeListener listener) {
+        tableState.getChangeListeners().addIfAbsent(listener);
+    }
+
+    /**
+     * Removes a listener added with addChangeListener.
+     * @param listener the listener to remove.
+     */
+    public void removeChangeListener(DataChangeListener listener) {
+        tableState.getChangeListeners().remove(listener);
+    }
+
+    /**
+     * Sends one change to the listeners of the database.
+     * @param type an int which is the type of the change, one of the DataChange types.
+     * @param rowId an int which is the row ID of the data entry, or -1 for every data entry.
+     * @param position an int which is the position of the data entry, or -1 for every data entry.
+     */
+    protected void notifyChange(int type, int rowId, int position) {
+        if (!tableState.getChangeListeners().isEmpty()) {
+            notifyChanges(Collections.singletonList(new DataChange(type, rowId, position)));
+        }
+    }
+
+    /**
+     * Sends the inserts of a batch to the listeners of the database as one batch of changes.
+     * @param rowIndex the index which already holds the inserted row IDs.
+     * @param rowIds an int array of the row IDs inserted.
+     * @param count an int which is the number of row IDs to use from the array.
+     */
+    protected void notifyInserted(RowIndex rowIndex, int[] rowIds, int count) {
+        if (tableState.getChangeListeners().isEmpty() || count == 0) {
+            return;
+        }
+        ArrayList<DataChange> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            changes.add(new DataChange(DataChange.INSERTED, rowIds[i], rowIndex.positionOf(rowIds[i])));
+        }
+        notifyChanges(changes);
+    }
+
+    /**
+     * Sends a batch of changes to the listeners of the database.
+     * @param changes the changes, in the order they were made.
+     */
+    protected void notifyChanges(List<DataChange> changes) {
+        List<DataChange> batch = Collections.unmodifiableList(changes);
+        for (DataChangeListener listener : tableState.getChangeListeners()) {
+            listener.onDataChanged(this, batch);
+        }
+    }
+
+    /**
+     * Gets the scheduler which reclaims the space freed by deletes. Every database
+     * shares the one scheduler of the database file.
+     * @return CompactionScheduler which is the compaction scheduler of the database file.
+     */
+    public CompactionScheduler getCompactionScheduler() {
+        return helper.getCompactionScheduler();
+    }
+
+    /**
+     * Gets the measurements of the operations on the database's table, which count the
+     * operations of every database of the table. They are off until enabled with setEnabled.
+     * @return DatabaseMetrics which is the metrics of the table.
+     */
+    public DatabaseMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the state of the table shared by every database of the table.
+     * @return TableState which is the state of the table.
+     */
+    TableState getTableState() {
+        return tableState;
+    }
+
+    /**
+     * Gets the cache of recently used data objects of the table, shared by every database of the table.
+     * @param <T> the type of the data objects of the table.
+     * @return RowCache which is the cache of the table.
+     */
+    protected <T> RowCache<T> getSharedRowCache() {
+        return tableState.getRowCache();
+    }
+
+    /**
+     * Gets the index which maps the positions of the data entries to their row IDs.
+     * The index is loaded from the table the first time it is needed and is then
+     * maintained incrementally by the inserts and deletes of every database of the table.
+     * @param table a string which is the name of the database's table used to make the database.
+     * @return RowIndex which is the index of the table.
+     */
+    protected RowIndex getRowIndex(String table) {
+        final RowIndex rowIndex = tableState.getRowIndex();
+        synchronized (rowIndex) {
+            if (!rowIndex.isValid()) {
+                long start = metrics.start();
+                query("SELECT " + ID_COLUMN + " FROM " + table + " ORDER BY " + ID_COLUMN, null,
+                        new CursorReader<Void>() {
+                            @Override
+                            public Void read(Cursor cursor) {
+                                int[] ids = new int[cursor.getCount()];
+                                int count = 0;
+                                while (cursor.moveToNext()) {
+                                    ids[count++] = cursor.getInt(0);
+                                }
+                                rowIndex.load(ids, count);
+                                return null;
+                            }
+                        });
+                metrics.record(DatabaseMetrics.INDEX_LOAD, start, rowIndex.size(), rowIndex.size());
+            }
+        }
+        return rowIndex;
+    }
+
+    /**
+     * Runs a query and reads its result, always closing the cursor afterwards.
+     * @param sql a string which is the query to run.
+     * @param args the values bound to the query's parameters, or null if there are none.
+     * @param reader the reader which reads the result from the cursor.
+     * @param <T> the type of the value read from the cursor.
+     * @return T which is the value returned by the reader.
+     */
+    protected <T> T query(String sql, String[] args, CursorReader<T> reader) {
+        Cursor cursor = this.getReadableDatabase().rawQuery(sql, args);
+        try {
+            return reader.read(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Runs a cached compiled query which returns a single number.
+     * @param sql a string which is the query to run.
+     * @param args the values bound to the query's parameters.
+     * @return long which is the number in the first column of the first row.
+     */
+    protected long simpleQueryForLong(String sql, Object... args) {
+        synchronized (statementCache) {
+            return bind(sql, args).simpleQueryForLong();
+        }
+    }
+
+    /**
+     * Runs a cached compiled INSERT statement.
+     * @param sql a string which is the statement to run.
+     * @param args the values bound to the statement's parameters.
+     * @return long which is the row ID of the inserted row, or -1 if it failed.
+     */
+    protected long executeInsert(String sql, Object... args) {
+        synchronized (statementCache) {
+            SQLiteStatement statement = bind(sql, args);
+            countImplicitTransaction();
+            return statement.executeInsert();
+        }
+    }
+
+    /**
+     * Runs a cached compiled UPDATE or DELETE statement.
+     * @param sql a string which is the statement to run.
+     * @param args the values bound to the statement's parameters.
+     * @return int which is the number of rows changed.
+     */
+    protected int executeUpdateDelete(String sql, Object... args) {
+        synchronized (statementCache) {
+            SQLiteStatement statement = bind(sql, args);
+            countImplicitTransaction();
+            return statement.executeUpdateDelete();
+        }
+    }
+
+    /**
+     * Releases the compiled statements and connection handles of the database.
+     * The shared database file, and the index and cache of the table, stay open
+     * for the other databases.
+     */
+    public synchronized void close() {
+        synchronized (statementCache) {
+            statementCache.clear();
+        }
+        writableDatabase = null;
+        readableDatabase = null;
+    }
+
+    /**
+     * Helper method used to bring the index, the row cache and the listeners up to date
+     * after many rows are deleted at once.
+     * @param table a string which is the name of the database's table used to make the database.
+     * @param rowIds an int array of the deleted row IDs in ascending order.
+     * @param count an int which is the number of row IDs to use from the array.
+     * @param rowCache the cache of data objects of the database.
+     */
+    private void removeDeletedRows(String table, int[] rowIds, int count, RowCache<?> rowCache) {
+        if (count == 0) {
+            return;
+        }
+        RowIndex rowIndex = tableState.getRowIndex();
+        ArrayList<DataChange> changes = null;
+        if (!tableState.getChangeListeners().isEmpty()) {
+            // Deletes are reported from the last position back, so each position is
+            // still correct when the changes before it have been applied.
+            changes = new ArrayList<>(count);
+            for (int i = count - 1; i >= 0; i--) {
+                int position = rowIndex.positionOf(rowIds[i]);
+                if (position >= 0) {
+                    changes.add(new DataChange(DataChange.DELETED, rowIds[i], position));
+                }
+            }
+        }
+        rowIndex.removeAll(rowIds, count);
+        for (int i = 0; i < count; i++) {
+            rowCache.remove(rowIds[i]);
+        }
+        if (rowIndex.size() == 0) {
+            countImplicitTransaction();
+            this.getWritableDatabase().execSQL("UPDATE SQLITE_SEQUENCE SET seq = 0 WHERE name = " + "'" + table + "'");
+        }
+        helper.getCompactionScheduler().requestCompaction();
+        if (changes != null) {
+            notifyChanges(changes);
+        }
+    }
+
+    /**
+     * Helper method used to count a write which runs in a transaction of its own
+     * because no transaction has been begun around it.
+     */
+    protected void countImplicitTransaction() {
+        if (metrics.isEnabled() && !this.getWritableDatabase().inTransaction()) {
+            metrics.recordTransaction();
+        }
+    }
+
+    /**
+     * Helper method used to get a cached statement and bind its parameters.
+     * Must be called while holding the lock of the statement cache.
+     * @param sql a string which is the SQL of the statement.
+     * @param args the values bound to the statement's parameters.
+     * @return SQLiteStatement which is the bound statement.
+     */
+    private SQLiteStatement bind(String sql, Object[] args) {
+        SQLiteStatement statement = statementCache.get(this.getWritableDatabase(), sql);
+        for (int i = 0; i < args.length; i++) {
+            DatabaseUtils.bindObjectToProgram(statement, i + 1, args[i]);
+        }
+        return statement;
     }
-}
\ No newline at end of file
+}
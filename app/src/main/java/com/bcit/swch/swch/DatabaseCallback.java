@@ -0,0 +1,25 @@
+package com.bcit.swch.swch;
+
+/**
+ * DatabaseCallback interface receives the outcome of an asynchronous database call.
+ * Both methods are called on the UI thread.
+ *
+ * @param <T> the type of the result of the call.
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface DatabaseCallback<T> {
+
+    /**
+     * Called when the call completes.
+     * @param result the result of the call.
+     */
+    void onResult(T result);
+
+    /**
+     * Called when the call throws an exception.
+     * @param e the exception thrown by the call.
+     */
+    void onError(Exception e);
+}
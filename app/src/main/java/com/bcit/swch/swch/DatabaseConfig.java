@@ -0,0 +1,113 @@
+package com.bcit.swch.swch;
+
+/**
+ * DatabaseConfig class represents the journaling and caching settings of the
+ * database file.
+ *
+ * The settings are applied once each time the file is opened, before any table is touched.
+ * With write-ahead logging readers see the last committed data while a write is in
+ * progress, so reading the lists does not wait on a batch insert and the insert does not
+ * wait on the readers.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class DatabaseConfig {
+
+    /**
+     * The synchronous level where SQLite does not wait for data to reach the disk.
+     */
+    public static final int SYNCHRONOUS_OFF = 0;
+
+    /**
+     * The synchronous level where SQLite waits for the disk at the most critical moments.
+     * With write-ahead logging this cannot corrupt the file; a power loss may only lose the last commits.
+     */
+    public static final int SYNCHRONOUS_NORMAL = 1;
+
+    /**
+     * The synchronous level where SQLite waits for the disk on every commit.
+     */
+    public static final int SYNCHRONOUS_FULL = 2;
+
+    /**
+     * The settings used when none are given: write-ahead logging, NORMAL synchronous,
+     * a 2 MB page cache and no memory mapping.
+     */
+    public static final DatabaseConfig DEFAULT = new DatabaseConfig(true, SYNCHRONOUS_NORMAL, -2000, 0);
+
+    /**
+     * Whether the file uses write-ahead logging instead of a rollback journal.
+     */
+    private final boolean writeAheadLogging;
+
+    /**
+     * The synchronous level of the connection.
+     */
+    private final int synchronous;
+
+    /**
+     * The size of the page cache of each connection.
+     * A positive value is a number of pages, and a negative value is a number of kibibytes.
+     */
+    private final int cacheSize;
+
+    /**
+     * The number of bytes of the file to memory map, or 0 to read through the page cache only.
+     */
+    private final long mmapSize;
+
+    /**
+     * The constructor which constructs an object of type DatabaseConfig.
+     * @param writeAheadLogging a boolean which is true to use write-ahead logging and false to use a rollback journal.
+     * @param synchronous an int which is the synchronous level, one of SYNCHRONOUS_OFF, SYNCHRONOUS_NORMAL or SYNCHRONOUS_FULL.
+     * @param cacheSize an int which is the page cache size, in pages if positive and in kibibytes if negative.
+     * @param mmapSize a long which is the number of bytes to memory map, or 0 to turn memory mapping off.
+     * @throws IllegalArgumentException is thrown if the synchronous level is not known or the mmap size is negative.
+     */
+    public DatabaseConfig(boolean writeAheadLogging, int synchronous, int cacheSize, long mmapSize) {
+        if (synchronous < SYNCHRONOUS_OFF || synchronous > SYNCHRONOUS_FULL) {
+            throw new IllegalArgumentException("Synchronous level is not valid: " + synchronous);
+        }
+        if (mmapSize < 0) {
+            throw new IllegalArgumentException("Memory map size must not be negative: " + mmapSize);
+        }
+        this.writeAheadLogging = writeAheadLogging;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+    }
+
+    /**
+     * Determines if the file uses write-ahead logging.
+     * @return boolean which is true if write-ahead logging is used and false otherwise.
+     */
+    public boolean isWriteAheadLogging() {
+        return this.writeAheadLogging;
+    }
+
+    /**
+     * Gets the synchronous level of the connection.
+     * @return int which is the synchronous level.
+     */
+    public int getSynchronous() {
+        return this.synchronous;
+    }
+
+    /**
+     * Gets the size of the page cache of each connection.
+     * @return int which is the cache size, in pages if positive and in kibibytes if negative.
+     */
+    public int getCacheSize() {
+        return this.cacheSize;
+    }
+
+    /**
+     * Gets the number of bytes of the file to memory map.
+     * @return long which is the memory map size in bytes.
+     */
+    public long getMmapSize() {
+        return this.mmapSize;
+    }
+}
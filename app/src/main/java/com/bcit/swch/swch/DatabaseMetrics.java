@@ -0,0 +1,247 @@
+package com.bcit.swch.swch;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * DatabaseMetrics class measures the operations of a database: how often each is
+ * called, how long the calls take, and how many rows they read and return.
+ *
+ * Metrics are off by default. While they are off, start returns 0 and every record
+ * call returns straight away, so instrumented code pays a field read and a branch.
+ * While they are on, recording is lock-free and allocates nothing. Calls which
+ * throw are not recorded. Rows scanned counts the rows stepped through in cursors,
+ * and a get answered from the row cache scans none.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class DatabaseMetrics {
+
+    /**
+     * Adding a single data object.
+     */
+    public static final int ADD = 0;
+
+    /**
+     * Adding a batch of data objects.
+     */
+    public static final int ADD_BATCH = 1;
+
+    /**
+     * Deleting a single data object.
+     */
+    public static final int DELETE = 2;
+
+    /**
+     * Deleting every data object.
+     */
+    public static final int DELETE_ALL = 3;
+
+    /**
+     * Getting a single data object.
+     */
+    public static final int GET = 4;
+
+    /**
+     * Updating a single data object.
+     */
+    public static final int UPDATE = 5;
+
+    /**
+     * Getting the data objects within a range of dates.
+     */
+    public static final int RANGE_QUERY = 6;
+
+    /**
+     * Searching the text of the data objects.
+     */
+    public static final int SEARCH = 7;
+
+    /**
+     * Loading the index of positions from the table.
+     */
+    public static final int INDEX_LOAD = 8;
+
+    /**
+     * Reclaiming the space freed by deletes.
+     */
+    public static final int COMPACTION = 9;
+
+    /**
+     * Getting the most urgent data objects.
+     */
+    public static final int TOP = 10;
+
+    /**
+     * Deleting many data objects with one statement.
+     */
+    public static final int BULK_DELETE = 11;
+
+    /**
+     * The names of the operations, in order of their constants.
+     */
+    private static final String[] OPERATION_NAMES = {"add", "addBatch", "delete", "deleteAll", "get", "update",
+            "rangeQuery", "search", "indexLoad", "compaction", "top", "bulkDelete"};
+
+    /**
+     * The name of the database measured.
+     */
+    private final String databaseName;
+
+    /**
+     * The histogram of the call times of each operation.
+     */
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATION_NAMES.length];
+
+    /**
+     * The number of rows read by each operation.
+     */
+    private final AtomicLongArray rowsScanned = new AtomicLongArray(OPERATION_NAMES.length);
+
+    /**
+     * The number of rows returned by each operation.
+     */
+    private final AtomicLongArray rowsReturned = new AtomicLongArray(OPERATION_NAMES.length);
+
+    /**
+     * The number of transactions run by the database.
+     */
+    private final AtomicLong transactionCount = new AtomicLong();
+
+    /**
+     * Whether the operations are being measured.
+     */
+    private volatile boolean enabled;
+
+    /**
+     * The sink which receives the published snapshots, or null for none.
+     */
+    private volatile MetricsSink sink;
+
+    /**
+     * The constructor which constructs an object of type DatabaseMetrics.
+     * @param databaseName a string which is the name of the database measured.
+     */
+    DatabaseMetrics(String databaseName) {
+        this.databaseName = databaseName;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Turns the measuring of the operations on or off.
+     * @param enabled a boolean which is true to measure the operations.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Determines if the operations are being measured.
+     * @return boolean which is true if the operations are being measured.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Sets the sink which receives the snapshots sent by publish.
+     * @param sink the sink, or null for none.
+     */
+    public void setSink(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Gets the name of an operation.
+     * @param operation an int which is one of the operation constants.
+     * @return string which is the name of the operation.
+     */
+    public static String getOperationName(int operation) {
+        return OPERATION_NAMES[operation];
+    }
+
+    /**
+     * Starts timing a call of an operation.
+     * @return long which is the start time to pass to record, or 0 if metrics are off.
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a call of an operation which reads no rows.
+     * @param operation an int which is one of the operation constants.
+     * @param start a long which is the value returned by start.
+     */
+    void record(int operation, long start) {
+        if (start != 0) {
+            latencies[operation].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a call of an operation and the rows it read and returned.
+     * @param operation an int which is one of the operation constants.
+     * @param start a long which is the value returned by start.
+     * @param scanned a long which is the number of rows read.
+     * @param returned a long which is the number of rows returned.
+     */
+    void record(int operation, long start, long scanned, long returned) {
+        if (start != 0) {
+            latencies[operation].record(System.nanoTime() - start);
+            rowsScanned.addAndGet(operation, scanned);
+            rowsReturned.addAndGet(operation, returned);
+        }
+    }
+
+    /**
+     * Records a transaction run by the database.
+     */
+    void recordTransaction() {
+        if (enabled) {
+            transactionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the measurements taken so far. Operations which have not been called are left out.
+     * @return MetricsSnapshot which holds a copy of the measurements.
+     */
+    public MetricsSnapshot snapshot() {
+        ArrayList<OperationStats> operations = new ArrayList<>();
+        for (int i = 0; i < latencies.length; i++) {
+            if (latencies[i].getCount() > 0) {
+                operations.add(new OperationStats(OPERATION_NAMES[i], latencies[i],
+                        rowsScanned.get(i), rowsReturned.get(i)));
+            }
+        }
+        return new MetricsSnapshot(databaseName, System.currentTimeMillis(), transactionCount.get(), operations);
+    }
+
+    /**
+     * Sends a snapshot of the measurements taken so far to the sink, if there is one.
+     */
+    public void publish() {
+        MetricsSink current = sink;
+        if (current != null) {
+            current.publish(snapshot());
+        }
+    }
+
+    /**
+     * Forgets the measurements taken so far.
+     */
+    public void reset() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i].reset();
+            rowsScanned.set(i, 0);
+            rowsReturned.set(i, 0);
+        }
+        transactionCount.set(0);
+    }
+}
@@ -1,30 +1,47 @@
 package com.bcit.swch.swch;
 
+import java.util.Calendar;
+
 /**
  * Date class represents the characteristics of a date.
  *
+ * The date is stored as a packed int of the form yyyymmdd, so dates sort,
+ * compare and hash as plain ints.
+ *
  * @author SWCH
  * @version 2017
  */
 
-public class Date {
+public class Date implements Comparable<Date> {
 
     /**
-     * The regex pattern used to determine if the date is formatted
-     * correctly.
+     * The smallest legal year.
      */
-    private static final String PATTERN = "(1|2|3|4|5|6|7|8|9|10|11|12){1}" +
-                                          "/(1|2|3|4|5|6|7|8|9|10|11|12|13|14|15|16|17|18|19|20|21|22|23|24|25|26|27|28|29|30|31){1}" +
-                                          "/2\\d\\d\\d";
+    private static final int MIN_YEAR = 2000;
+
+    /**
+     * The largest legal year.
+     */
+    private static final int MAX_YEAR = 2999;
+
+    /**
+     * The number of days in each month of a non-leap year.
+     */
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /**
+     * The date packed as year * 10000 + month * 100 + day.
+     */
+    private final int key;
 
     /**
      * The date.
      * Dates are formatted as month/day/year.
      * Month ranges from 1 - 12 (inclusive).
-     * Day ranges from 1 - 31 (inclusive).
+     * Day ranges from 1 to the number of days in the month (inclusive).
      * Year ranges from 2000 - 2999 (inclusive).
      */
-    private final String date;
+    private String date;
 
     /**
      * The constructor which constructs an object of type Date.
@@ -33,15 +50,97 @@ public class Date {
      *                                    and is not within the legal ranges of months, days and years.
      *                                    date must be in the format of month/day/year.
      *                                    Month ranges from 1 - 12 (inclusive).
-     *                                    Day ranges from 1 - 31 (inclusive).
+     *                                    Day ranges from 1 to the number of days in the month (inclusive).
      *                                    year ranges from 2000 - 2999 (inclusive).
      */
     public Date(String date) throws IllegalDateFormatException {
-        if (!date.matches(PATTERN)) {
+        this.key = parse(date);
+        this.date = date;
+    }
+
+    /**
+     * The constructor which constructs an object of type Date from a packed date.
+     * @param key an int which is the date packed as yyyymmdd.
+     * @throws IllegalDateFormatException is thrown if the packed date is not a legal date.
+     */
+    public Date(int key) throws IllegalDateFormatException {
+        if (!isValid(key / 10000, key / 100 % 100, key % 100)) {
+            throw new IllegalDateFormatException("Date is not formatted properly.");
+        }
+        this.key = key;
+    }
+
+    /**
+     * Parses a date of the form month/day/year into a packed date without allocating.
+     * @param date a string which is the date.
+     * @return int which is the date packed as yyyymmdd.
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format
+     *                                    or is not a legal date.
+     */
+    public static int parse(String date) throws IllegalDateFormatException {
+        if (date == null) {
+            throw new IllegalDateFormatException("Date is not formatted properly.");
+        }
+        int length = date.length();
+        int position = 0;
+        int month = 0;
+        int day = 0;
+        int year = 0;
+        int digits = 0;
+
+        while (position < length && isDigit(date.charAt(position)) && digits < 2) {
+            month = month * 10 + (date.charAt(position++) - '0');
+            digits++;
+        }
+        if (digits == 0 || date.charAt(0) == '0' || position >= length || date.charAt(position++) != '/') {
             throw new IllegalDateFormatException("Date is not formatted properly.");
-        } else {
-            this.date = date;
         }
+
+        int dayStart = position;
+        digits = 0;
+        while (position < length && isDigit(date.charAt(position)) && digits < 2) {
+            day = day * 10 + (date.charAt(position++) - '0');
+            digits++;
+        }
+        if (digits == 0 || date.charAt(dayStart) == '0' || position >= length || date.charAt(position++) != '/') {
+            throw new IllegalDateFormatException("Date is not formatted properly.");
+        }
+
+        if (length - position != 4) {
+            throw new IllegalDateFormatException("Date is not formatted properly.");
+        }
+        while (position < length) {
+            char c = date.charAt(position++);
+            if (!isDigit(c)) {
+                throw new IllegalDateFormatException("Date is not formatted properly.");
+            }
+            year = year * 10 + (c - '0');
+        }
+
+        if (!isValid(year, month, day)) {
+            throw new IllegalDateFormatException("Date is not formatted properly.");
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Gets today's date in the default time zone.
+     * @return Date which is today.
+     * @throws IllegalDateFormatException is thrown if today is not within the legal range of years.
+     */
+    public static Date today() throws IllegalDateFormatException {
+        Calendar calendar = Calendar.getInstance();
+        return new Date(calendar.get(Calendar.YEAR) * 10000 + (calendar.get(Calendar.MONTH) + 1) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Formats a packed date as month/day/year.
+     * @param key an int which is the date packed as yyyymmdd.
+     * @return string which is the formatted date.
+     */
+    public static String format(int key) {
+        return (key / 100 % 100) + "/" + (key % 100) + "/" + (key / 10000);
     }
 
     /**
@@ -49,9 +148,49 @@ public class Date {
      * @return string which is the date.
      */
     public String getDate() {
+        if (this.date == null) {
+            this.date = format(this.key);
+        }
         return this.date;
     }
 
+    /**
+     * Gets the date packed as an int of the form yyyymmdd.
+     * @return int which is the packed date.
+     */
+    public int getKey() {
+        return this.key;
+    }
+
+    /**
+     * Gets the year of the Date.
+     * @return int which is the year.
+     */
+    public int getYear() {
+        return this.key / 10000;
+    }
+
+    /**
+     * Gets the month of the Date.
+     * @return int which is the month.
+     */
+    public int getMonth() {
+        return this.key / 100 % 100;
+    }
+
+    /**
+     * Gets the day of the month of the Date.
+     * @return int which is the day.
+     */
+    public int getDay() {
+        return this.key % 100;
+    }
+
+    @Override
+    public int compareTo(Date other) {
+        return this.key < other.key ? -1 : (this.key == other.key ? 0 : 1);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -59,6 +198,98 @@ public class Date {
 
         Date date1 = (Date) o;
 
-        return this.getDate().equals(date1.getDate());
+        return this.key == date1.key;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.key;
+    }
+
+    /**
+     * Determines if a packed date is a legal date.
+     * @param key an int which is the date packed as yyyymmdd.
+     * @return boolean where true means the date is legal and false means otherwise.
+     */
+    static boolean isValidKey(int key) {
+        return isValid(key / 10000, key / 100 % 100, key % 100);
+    }
+
+    /**
+     * Converts a packed date into a count of days, so dates can be stepped a day at a time.
+     * @param key an int which is the date packed as yyyymmdd.
+     * @return int which is the number of days since 1 March of year 0.
+     */
+    static int toDayNumber(int key) {
+        int year = key / 10000;
+        int month = key / 100 % 100;
+        int day = key % 100;
+        if (month <= 2) {
+            year--;
+        }
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        return year * 365 + year / 4 - year / 100 + year / 400 + dayOfYear;
+    }
+
+    /**
+     * Converts a count of days made by toDayNumber back into a packed date.
+     * @param dayNumber an int which is the number of days since 1 March of year 0.
+     * @return int which is the date packed as yyyymmdd.
+     */
+    static int fromDayNumber(int dayNumber) {
+        int era = dayNumber / 146097;
+        int dayOfEra = dayNumber - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Helper method used to determine if a year, month and day form a legal date.
+     * @param year an int which is the year.
+     * @param month an int which is the month.
+     * @param day an int which is the day of the month.
+     * @return boolean where true means the date is legal and false means otherwise.
+     */
+    private static boolean isValid(int year, int month, int day) {
+        if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        return day <= daysInMonth(year, month);
+    }
+
+    /**
+     * Gets the number of days in a month.
+     * @param year an int which is the year.
+     * @param month an int which is the month, from 1 - 12 (inclusive).
+     * @return int which is the number of days in the month.
+     */
+    static int daysInMonth(int year, int month) {
+        if (month == 2 && isLeapYear(year)) {
+            return DAYS_IN_MONTH[1] + 1;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Helper method used to determine if a year is a leap year.
+     * @param year an int which is the year.
+     * @return boolean where true means the year is a leap year and false means otherwise.
+     */
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    /**
+     * Helper method used to determine if a character is a decimal digit.
+     * @param c a char which is the character.
+     * @return boolean where true means the character is a digit and false means otherwise.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package com.bcit.swch.swch;
+
+/**
+ * DayCount class holds the number of Todos due and Events occurring on one date.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class DayCount {
+
+    /**
+     * The date, packed as yyyymmdd.
+     */
+    private final int dateKey;
+
+    /**
+     * The number of Todos due on the date.
+     */
+    private final int todoCount;
+
+    /**
+     * The number of Events occurring on the date, counting each occurrence of an Event which repeats.
+     */
+    private final int eventCount;
+
+    /**
+     * The constructor which constructs an object of type DayCount.
+     * @param dateKey an int which is the date packed as yyyymmdd.
+     * @param todoCount an int which is the number of Todos due on the date.
+     * @param eventCount an int which is the number of Events occurring on the date.
+     */
+    DayCount(int dateKey, int todoCount, int eventCount) {
+        this.dateKey = dateKey;
+        this.todoCount = todoCount;
+        this.eventCount = eventCount;
+    }
+
+    /**
+     * Gets the date.
+     * @return string which is the date in the format of month/day/year.
+     */
+    public String getDate() {
+        return Date.format(this.dateKey);
+    }
+
+    /**
+     * Gets the date as a sortable key.
+     * @return int which is the date packed as yyyymmdd.
+     */
+    public int getDateKey() {
+        return this.dateKey;
+    }
+
+    /**
+     * Gets the number of Todos due on the date.
+     * @return int which is the number of Todos.
+     */
+    public int getTodoCount() {
+        return this.todoCount;
+    }
+
+    /**
+     * Gets the number of Events occurring on the date.
+     * @return int which is the number of Events.
+     */
+    public int getEventCount() {
+        return this.eventCount;
+    }
+}
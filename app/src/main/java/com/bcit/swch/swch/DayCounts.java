@@ -0,0 +1,232 @@
+package com.bcit.swch.swch;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+
+/**
+ * DayCounts class gives the number of Todos due and Events occurring on each date,
+ * so a calendar can show which days have items without scanning either table.
+ *
+ * The counts are kept in a summary table with a row per date which has items.
+ * Triggers on the Todo and Event tables update the row of a date whenever an item
+ * is added to it, moved to or from it, or deleted, so every way of changing the
+ * tables keeps the counts right. Reading the counts of a month range-scans the
+ * primary key of the summary table, so it reads at most a row per day whatever
+ * the number of items. The occurrences of Events which repeat are not stored;
+ * they are expanded for the range asked for and added to the counts.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class DayCounts {
+
+    /**
+     * Name of the summary table.
+     */
+    static final String TABLE_NAME = "day_counts";
+
+    /**
+     * Name of the date key column, which is the primary key.
+     */
+    static final String COL0 = "date_key";
+
+    /**
+     * Name of the column which counts the Todos due on the date.
+     */
+    static final String COL1 = "todos";
+
+    /**
+     * Name of the column which counts the Events occurring once on the date.
+     */
+    static final String COL2 = "events";
+
+    /**
+     * The statement which creates the summary table.
+     */
+    private static final String CREATE_TABLE_QUERY = "CREATE TABLE IF NOT EXISTS " + TABLE_NAME
+            + " (" + COL0 + " INTEGER PRIMARY KEY, "
+                   + COL1 + " INT NOT NULL DEFAULT 0, "
+                   + COL2 + " INT NOT NULL DEFAULT 0)";
+
+    /**
+     * The query which selects the counts of the dates within a range of date keys, ordered by date.
+     */
+    private static final String SELECT_BETWEEN_QUERY = "SELECT " + COL0 + ", " + COL1 + ", " + COL2
+            + " FROM " + TABLE_NAME + " WHERE " + COL0 + " BETWEEN ? AND ? ORDER BY " + COL0;
+
+    /**
+     * The statement which fills the summary table from the Todo and Event tables.
+     */
+    private static final String REBUILD_QUERY = "INSERT INTO " + TABLE_NAME
+            + " (" + COL0 + ", " + COL1 + ", " + COL2 + ") SELECT " + COL0 + ", SUM(" + COL1 + "), SUM(" + COL2 + ")"
+            + " FROM (" + TodoDatabase.DAY_COUNT_SELECT + " UNION ALL " + EventDatabase.DAY_COUNT_SELECT + ")"
+            + " GROUP BY " + COL0;
+
+    /**
+     * The database of Events, used to expand the occurrences of Events which repeat.
+     */
+    private final EventDatabase eventDatabase;
+
+    /**
+     * The helper which opens the database file shared by every database.
+     */
+    private final PlannerDatabaseHelper helper;
+
+    /**
+     * The constructor which constructs an object of type DayCounts.
+     * @param context the application context.
+     */
+    public DayCounts(Context context) {
+        this.helper = PlannerDatabaseHelper.getInstance(context);
+        this.eventDatabase = new EventDatabase(context);
+    }
+
+    /**
+     * Creates the summary table. It must be created before the tables whose triggers update it.
+     * @param sqLiteDatabase the database to create the table in.
+     */
+    static void createTable(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL(CREATE_TABLE_QUERY);
+    }
+
+    /**
+     * Makes the migration which adds the summary table and its triggers to a database file
+     * made before they existed, and fills the table from the rows already in the file.
+     * @param version an int which is the version of the migration.
+     * @return Migration which adds the summary table.
+     */
+    static Migration createMigration(int version) {
+        ArrayList<String> statements = new ArrayList<>();
+        statements.add(CREATE_TABLE_QUERY);
+        for (String query : TodoDatabase.CREATE_DAY_COUNT_TRIGGER_QUERIES) {
+            statements.add(query);
+        }
+        for (String query : EventDatabase.CREATE_DAY_COUNT_TRIGGER_QUERIES) {
+            statements.add(query);
+        }
+        statements.add("DELETE FROM " + TABLE_NAME);
+        statements.add(REBUILD_QUERY);
+        return new SchemaMigration(version, "add day counts", statements.toArray(new String[statements.size()]));
+    }
+
+    /**
+     * Makes the triggers which keep the counts of a table in step with its rows.
+     * @param table a string which is the name of the table.
+     * @param keyColumn a string which is the name of the date key column of the table.
+     * @param recurrenceColumn a string which is the name of the column which is null for the rows
+     *                         counted on their date only, or null if every row is counted.
+     * @param countColumn a string which is the column of the summary table which counts the rows.
+     * @return String array of the statements which create the triggers.
+     */
+    static String[] createTriggerQueries(String table, String keyColumn, String recurrenceColumn,
+                                         String countColumn) {
+        String updatedColumns = recurrenceColumn == null ? keyColumn : keyColumn + ", " + recurrenceColumn;
+        String changed = "old." + keyColumn + " IS NOT new." + keyColumn;
+        if (recurrenceColumn != null) {
+            changed += " OR old." + recurrenceColumn + " IS NOT new." + recurrenceColumn;
+        }
+        return new String[] {
+                "CREATE TRIGGER IF NOT EXISTS " + table + "_day_count_insert AFTER INSERT ON " + table
+                        + " WHEN " + counted("new", keyColumn, recurrenceColumn) + " BEGIN "
+                        + increment("new", keyColumn, recurrenceColumn, countColumn) + " END",
+                "CREATE TRIGGER IF NOT EXISTS " + table + "_day_count_update AFTER UPDATE OF " + updatedColumns
+                        + " ON " + table + " WHEN " + changed + " BEGIN "
+                        + decrement("old", keyColumn, recurrenceColumn, countColumn) + " "
+                        + increment("new", keyColumn, recurrenceColumn, countColumn) + " END",
+                "CREATE TRIGGER IF NOT EXISTS " + table + "_day_count_delete AFTER DELETE ON " + table
+                        + " WHEN " + counted("old", keyColumn, recurrenceColumn) + " BEGIN "
+                        + decrement("old", keyColumn, recurrenceColumn, countColumn) + " END"
+        };
+    }
+
+    /**
+     * Gets the counts of the dates within a range which have items, ordered by date.
+     * Dates without items are left out.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of a DayCount for each date within the range which has items, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    public ArrayList<DayCount> getCountsBetween(Date from, Date to)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        ArrayList<Event> occurrences = eventDatabase.getOccurrencesBetween(from, to);
+        Cursor cursor = helper.getReadableDatabase().rawQuery(SELECT_BETWEEN_QUERY,
+                new String[] {Integer.toString(from.getKey()), Integer.toString(to.getKey())});
+        try {
+            ArrayList<DayCount> counts = new ArrayList<>(cursor.getCount());
+            int next = 0;
+            boolean stored = cursor.moveToNext();
+            while (stored || next < occurrences.size()) {
+                int dateKey = stored ? cursor.getInt(0) : Integer.MAX_VALUE;
+                if (next < occurrences.size()) {
+                    dateKey = Math.min(dateKey, occurrences.get(next).getEventDateKey());
+                }
+                int todoCount = 0;
+                int eventCount = 0;
+                if (stored && cursor.getInt(0) == dateKey) {
+                    todoCount = cursor.getInt(1);
+                    eventCount = cursor.getInt(2);
+                    stored = cursor.moveToNext();
+                }
+                while (next < occurrences.size() && occurrences.get(next).getEventDateKey() == dateKey) {
+                    eventCount++;
+                    next++;
+                }
+                counts.add(new DayCount(dateKey, todoCount, eventCount));
+            }
+            return counts;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * The helper method makes the condition under which a row is counted on its date.
+     * @param row a string which is "old" or "new".
+     * @param keyColumn a string which is the name of the date key column.
+     * @param recurrenceColumn a string which is the name of the recurrence column, or null.
+     * @return a string which is the condition.
+     */
+    private static String counted(String row, String keyColumn, String recurrenceColumn) {
+        String condition = row + "." + keyColumn + " IS NOT NULL";
+        return recurrenceColumn == null ? condition : condition + " AND " + row + "." + recurrenceColumn + " IS NULL";
+    }
+
+    /**
+     * The helper method makes the trigger statements which count a row on its date, if it is counted.
+     * @param row a string which is "old" or "new".
+     * @param keyColumn a string which is the name of the date key column.
+     * @param recurrenceColumn a string which is the name of the recurrence column, or null.
+     * @param countColumn a string which is the column of the summary table which counts the rows.
+     * @return a string which is the statements.
+     */
+    private static String increment(String row, String keyColumn, String recurrenceColumn, String countColumn) {
+        String condition = counted(row, keyColumn, recurrenceColumn);
+        return "INSERT OR IGNORE INTO " + TABLE_NAME + " (" + COL0 + ") SELECT " + row + "." + keyColumn
+                + " WHERE " + condition + "; "
+                + "UPDATE " + TABLE_NAME + " SET " + countColumn + " = " + countColumn + " + 1"
+                + " WHERE " + COL0 + " = " + row + "." + keyColumn + " AND " + condition + ";";
+    }
+
+    /**
+     * The helper method makes the trigger statements which stop counting a row on its date,
+     * deleting the row of the date once nothing is left on it.
+     * @param row a string which is "old" or "new".
+     * @param keyColumn a string which is the name of the date key column.
+     * @param recurrenceColumn a string which is the name of the recurrence column, or null.
+     * @param countColumn a string which is the column of the summary table which counts the rows.
+     * @return a string which is the statements.
+     */
+    private static String decrement(String row, String keyColumn, String recurrenceColumn, String countColumn) {
+        return "UPDATE " + TABLE_NAME + " SET " + countColumn + " = " + countColumn + " - 1"
+                + " WHERE " + COL0 + " = " + row + "." + keyColumn
+                + " AND " + counted(row, keyColumn, recurrenceColumn) + "; "
+                + "DELETE FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + row + "." + keyColumn
+                + " AND " + COL1 + " = 0 AND " + COL2 + " = 0;";
+    }
+}
@@ -24,6 +24,11 @@ public class Event {
      */
     private final Date eventDate;
 
+    /**
+     * The rule by which the event repeats, or null if it occurs once.
+     */
+    private final Recurrence recurrence;
+
     /**
      * The constructor constructs an object of type Event.
      * @param name a string which is the name of the event.
@@ -38,12 +43,32 @@ public class Event {
      * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
      */
     public Event(String name, int priority, String eventDate) throws IllegalDateFormatException, IllegalPriorityException{
+        this(name, priority, eventDate, null);
+    }
+
+    /**
+     * The constructor constructs an object of type Event which repeats.
+     * @param name a string which is the name of the event.
+     * @param priority an int which is the priority of the event.
+     * @param eventDate a string which is the date of the event, which is its first occurrence if it repeats.
+     * @param recurrence the rule by which the event repeats, or null if it occurs once.
+     * @throws IllegalDateFormatException is thrown if the eventDate parameter is not of the proper format
+     *                                    and is not within the legal ranges of months, days and years.
+     *                                    dueDate must be in the format of month/day/year.
+     *                                    Month ranges from 1 - 12 (inclusive).
+     *                                    Day ranges from 1 - 31 (inclusive).
+     *                                    year ranges from 2000 - 2999 (inclusive).
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    public Event(String name, int priority, String eventDate, Recurrence recurrence)
+            throws IllegalDateFormatException, IllegalPriorityException {
         if (!isValidPriority(priority)) {
             throw new IllegalPriorityException("Invalid priority.");
         }
         this.name = name;
         this.priority = priority;
         this.eventDate = new Date(eventDate);
+        this.recurrence = recurrence;
     }
 
     /**
@@ -70,6 +95,30 @@ public class Event {
         return this.eventDate.getDate();
     }
 
+    /**
+     * Gets the date of the Event as a sortable key.
+     * @return int which is the date packed as yyyymmdd.
+     */
+    public int getEventDateKey() {
+        return this.eventDate.getKey();
+    }
+
+    /**
+     * Gets the rule by which the Event repeats.
+     * @return Recurrence which is the rule, or null if the Event occurs once.
+     */
+    public Recurrence getRecurrence() {
+        return this.recurrence;
+    }
+
+    /**
+     * Determines if the Event repeats.
+     * @return boolean where true means the Event repeats and false means it occurs once.
+     */
+    public boolean isRecurring() {
+        return this.recurrence != null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
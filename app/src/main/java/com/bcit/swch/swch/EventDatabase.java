@@ -3,18 +3,29 @@ package com.bcit.swch.swch;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 
 /**
  * EventDatabase class is the database for Events.
  *
+ * An Event which repeats is stored as one row holding its rule. The repeating
+ * Events are kept in an in-memory interval index, loaded when first needed and
+ * dropped on every change, and their occurrences are expanded only for the range
+ * of dates being queried.
+ *
  * @author SWCH
  * @version 2017
  */
 
-public class EventDatabase extends Database {
+public class EventDatabase extends Database implements EventStore {
 
     /**
      * Name of the database table.
@@ -42,78 +53,414 @@ public class EventDatabase extends Database {
     private static final String COL3 = "event_date";
 
     /**
-     * The array list is used to manage the IDs of the data entries.
+     * The sortable event date column of the table for events, stored as a packed yyyymmdd int.
+     */
+    private static final String COL4 = "event_date_key";
+
+    /**
+     * The repeat frequency column of the table for events, null for an Event which occurs once.
+     */
+    private static final String COL5 = "repeat_frequency";
+
+    /**
+     * The repeat interval column of the table for events.
+     */
+    private static final String COL6 = "repeat_interval";
+
+    /**
+     * The repeat end date column of the table for events, a packed yyyymmdd int or null to repeat forever.
+     */
+    private static final String COL7 = "repeat_until";
+
+    /**
+     * The repeat exceptions column of the table for events, packed dates separated by commas.
+     */
+    private static final String COL8 = "repeat_exceptions";
+
+    /**
+     * The columns of the table, in order.
+     */
+    static final String[] COLUMNS = {COL0, COL1, COL2, COL3, COL4, COL5, COL6, COL7, COL8};
+
+    /**
+     * The columns read to make an Event, in the order read by eventFrom.
+     */
+    private static final String EVENT_COLUMNS = COL1 + ", " + COL2 + ", " + COL3 + ", "
+            + COL5 + ", " + COL6 + ", " + COL7 + ", " + COL8;
+
+    /**
+     * The query which selects a whole Event row given its row ID.
+     */
+    private static final String SELECT_ROW_QUERY = "SELECT " + EVENT_COLUMNS
+            + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = ?";
+
+    /**
+     * The query which determines if a Event with the same name and event date exists.
+     */
+    private static final String EXISTS_QUERY = "SELECT EXISTS (SELECT 1 FROM " + TABLE_NAME
+            + " WHERE " + COL1 + " = ? AND " + COL3 + " = ?)";
+
+    /**
+     * The statement which inserts an Event row.
+     */
+    private static final String INSERT_QUERY = "INSERT INTO " + TABLE_NAME
+            + " (" + COL1 + ", " + COL2 + ", " + COL3 + ", " + COL4 + ", "
+            + COL5 + ", " + COL6 + ", " + COL7 + ", " + COL8 + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * The statement which deletes an Event row given its row ID.
+     */
+    private static final String DELETE_QUERY = "DELETE FROM " + TABLE_NAME + " WHERE " + COL0 + " = ?";
+
+    /**
+     * The index on the name and event date columns used to find duplicate Events.
+     */
+    private static final String CREATE_DUPLICATE_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_duplicate_index ON " + TABLE_NAME + " (" + COL1 + ", " + COL3 + ")";
+
+    /**
+     * The index on the event date key column used by date-range queries.
+     */
+    private static final String CREATE_DATE_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_date_index ON " + TABLE_NAME + " (" + COL4 + ")";
+
+    /**
+     * The index on the priority and event date key columns used to find the most urgent Events.
+     */
+    static final String CREATE_PRIORITY_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_priority_index ON " + TABLE_NAME + " (" + COL2 + ", " + COL4 + ")";
+
+    /**
+     * The index on the repeat frequency column used to load the Events which repeat.
+     */
+    private static final String CREATE_RECURRING_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_recurring_index ON " + TABLE_NAME + " (" + COL5 + ")";
+
+    /**
+     * The order of the most urgent Events: highest priority (1) first, then earliest date.
+     */
+    private static final Comparator<Event> URGENCY_ORDER = new Comparator<Event>() {
+        @Override
+        public int compare(Event a, Event b) {
+            if (a.getPriority() != b.getPriority()) {
+                return a.getPriority() < b.getPriority() ? -1 : 1;
+            }
+            return a.getEventDateKey() < b.getEventDateKey() ? -1
+                    : (a.getEventDateKey() == b.getEventDateKey() ? 0 : 1);
+        }
+    };
+
+    /**
+     * The query which selects the most urgent Events which occur once on or after a date,
+     * read in order from the priority index.
+     */
+    private static final String SELECT_TOP_QUERY = "SELECT " + EVENT_COLUMNS
+            + " FROM " + TABLE_NAME + " WHERE " + COL4 + " >= ? AND " + COL5 + " IS NULL"
+            + " ORDER BY " + COL2 + ", " + COL4 + ", " + COL0 + " LIMIT ?";
+
+    /**
+     * The query which selects the Events which occur once within a range of dates, ordered by date.
+     */
+    private static final String SELECT_BETWEEN_QUERY = "SELECT " + COL1 + ", " + COL2 + ", " + COL3
+            + " FROM " + TABLE_NAME + " WHERE " + COL4 + " BETWEEN ? AND ? AND " + COL5 + " IS NULL"
+            + " ORDER BY " + COL4 + ", " + COL0;
+
+    /**
+     * The query which selects every Event which repeats, read from the index on the repeat frequency.
+     */
+    private static final String SELECT_RECURRING_QUERY = "SELECT " + EVENT_COLUMNS
+            + " FROM " + TABLE_NAME + " WHERE " + COL5 + " IS NOT NULL ORDER BY " + COL0;
+
+    /**
+     * The part of the agenda query which selects the Events which occur once within a range of date keys.
+     * The columns are the kind of item, name, priority, date, date key and row ID.
+     */
+    static final String AGENDA_SELECT = "SELECT 1 AS kind, " + COL1 + ", " + COL2 + ", " + COL3 + ", "
+            + COL4 + " AS date_key, " + COL0 + " FROM " + TABLE_NAME + " WHERE " + COL4 + " BETWEEN ? AND ?"
+            + " AND " + COL5 + " IS NULL";
+
+    /**
+     * The part of the query which fills the day counts with a row for each Event which occurs once.
+     */
+    static final String DAY_COUNT_SELECT = "SELECT " + COL4 + " AS " + DayCounts.COL0 + ", 0 AS " + DayCounts.COL1
+            + ", 1 AS " + DayCounts.COL2 + " FROM " + TABLE_NAME + " WHERE " + COL4 + " IS NOT NULL"
+            + " AND " + COL5 + " IS NULL";
+
+    /**
+     * The triggers which keep the day counts in step with the dates of the Events which occur once.
+     */
+    static final String[] CREATE_DAY_COUNT_TRIGGER_QUERIES =
+            DayCounts.createTriggerQueries(TABLE_NAME, COL4, COL5, DayCounts.COL2);
+
+    /**
+     * The cache of recently used Events, keyed by row ID, shared by every EventDatabase.
+     */
+    private final RowCache<Event> rowCache = getSharedRowCache();
+
+    /**
+     * The lock held while the index of the Events which repeat is loaded.
+     */
+    private final Object recurringLock = new Object();
+
+    /**
+     * The index of the Events which repeat over the ranges of dates they repeat in,
+     * or null until it is first needed.
+     */
+    private IntervalIndex<Event> recurringIndex;
+
+    /**
+     * The version of the table the index of the Events which repeat was loaded at.
      */
-    private static ArrayList<Integer> indexArrayList = new ArrayList<>();
+    private long recurringVersion;
 
     /**
      * The constructor which constructs an object of type EventDatabase.
      * @param context the application context.
      */
     public EventDatabase(Context context) {
-        super(context, TABLE_NAME, null, 1);
+        super(context, TABLE_NAME);
     }
 
-    @Override
-    public void onCreate(SQLiteDatabase sqLiteDatabase) {
+    /**
+     * Creates the table for Events, its indexes and the triggers which keep the day counts.
+     * @param sqLiteDatabase the database to create the table in.
+     */
+    static void createTable(SQLiteDatabase sqLiteDatabase) {
         String createTableQuery = "CREATE TABLE " + TABLE_NAME
                 + " (" + COL0 + " INTEGER PRIMARY KEY AUTOINCREMENT, "
                        + COL1 + " TEXT, "
                        + COL2 + " INT, "
-                       + COL3 + " TEXT)";
+                       + COL3 + " TEXT, "
+                       + COL4 + " INTEGER, "
+                       + COL5 + " INTEGER, "
+                       + COL6 + " INTEGER, "
+                       + COL7 + " INTEGER, "
+                       + COL8 + " TEXT)";
         sqLiteDatabase.execSQL(createTableQuery);
+        sqLiteDatabase.execSQL(CREATE_DUPLICATE_INDEX_QUERY);
+        sqLiteDatabase.execSQL(CREATE_DATE_INDEX_QUERY);
+        sqLiteDatabase.execSQL(CREATE_PRIORITY_INDEX_QUERY);
+        sqLiteDatabase.execSQL(CREATE_RECURRING_INDEX_QUERY);
+        for (String createTriggerQuery : CREATE_DAY_COUNT_TRIGGER_QUERIES) {
+            sqLiteDatabase.execSQL(createTriggerQuery);
+        }
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
-        onCreate(sqLiteDatabase);
+    /**
+     * Makes the migration which adds the repeat columns and their index to a table made
+     * before Events could repeat. Columns the table already has are left alone.
+     * @param version an int which is the version of the migration.
+     * @return Migration which adds the repeat columns.
+     */
+    static Migration createRecurrenceColumns(int version) {
+        return new Migration(version, "add event repeat columns") {
+            @Override
+            protected void prepare(SQLiteDatabase db) {
+                ArrayList<String> existing = new ArrayList<>();
+                Cursor cursor = db.rawQuery("PRAGMA table_info(" + TABLE_NAME + ")", null);
+                try {
+                    while (cursor.moveToNext()) {
+                        existing.add(cursor.getString(1));
+                    }
+                } finally {
+                    cursor.close();
+                }
+                String[] columns = {COL5, COL6, COL7, COL8};
+                String[] types = {"INTEGER", "INTEGER", "INTEGER", "TEXT"};
+                for (int i = 0; i < columns.length; i++) {
+                    if (!existing.contains(columns[i])) {
+                        db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + columns[i] + " " + types[i]);
+                    }
+                }
+                db.execSQL(CREATE_RECURRING_INDEX_QUERY);
+            }
+
+            @Override
+            protected long countRows(SQLiteDatabase db) {
+                return 0;
+            }
+
+            @Override
+            protected boolean migrateChunk(SQLiteDatabase db, MigrationProgress progress, int chunkSize) {
+                return false;
+            }
+        };
     }
 
+    /**
+     * Makes the migration which copies the Events of the separate database file used
+     * before the tables were combined.
+     * @param context the application context.
+     * @param version an int which is the version of the migration.
+     * @return Migration which copies the Events.
+     */
+    static Migration createLegacyImport(Context context, int version) {
+        return new LegacyImportMigration(version, context, TABLE_NAME, COL3, COL4, COL0, COL1, COL2, COL3);
+    }
 
     @Override
     public void addDataEntry(Object data)
             throws DataExistenceException, IllegalPriorityException {
+        long start = getMetrics().start();
         if (!(data instanceof Event)) {
             throw new DataExistenceException("Data is not an Event.");
         }
 
         Event event = (Event) data;
 
+        if (isDataInDatabase(event)) {
+            throw new DataExistenceException("Data is already in database.");
+        }
+
+        long rowId = executeInsert(INSERT_QUERY, insertValues(event));
+        if (event.isRecurring()) {
+            dropRecurringIndex();
+        }
+        if (rowId != -1) {
+            RowIndex rowIndex = getRowIndex(TABLE_NAME);
+            rowIndex.add((int) rowId);
+            rowCache.put((int) rowId, event);
+            notifyChange(DataChange.INSERTED, (int) rowId, rowIndex.positionOf((int) rowId));
+        }
+        getMetrics().record(DatabaseMetrics.ADD, start);
+    }
+
+    @Override
+    public BatchResult addDataEntries(Collection<?> data, boolean atomic) {
+        long start = getMetrics().start();
+        BatchResult result = new BatchResult();
+        int[] rowIds = new int[data.size()];
+        int insertedCount = 0;
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement existsStatement = db.compileStatement(EXISTS_QUERY);
+        SQLiteStatement insertStatement = db.compileStatement(INSERT_QUERY);
+
+        db.beginTransaction();
         try {
-            if (isDataInDatabase(event)) {
-                throw new DataExistenceException("Data is already in database.");
+            int position = 0;
+            for (Object item : data) {
+                try {
+                    if (!(item instanceof Event)) {
+                        throw new DataExistenceException("Data is not an Event.");
+                    }
+                    Event event = (Event) item;
+                    existsStatement.bindString(1, event.getName());
+                    existsStatement.bindString(2, event.getEventDate());
+                    if (existsStatement.simpleQueryForLong() != 0) {
+                        throw new DataExistenceException("Data is already in database.");
+                    }
+                    Object[] values = insertValues(event);
+                    for (int i = 0; i < values.length; i++) {
+                        DatabaseUtils.bindObjectToProgram(insertStatement, i + 1, values[i]);
+                    }
+                    rowIds[insertedCount++] = (int) insertStatement.executeInsert();
+                    result.addInserted();
+                } catch (DataExistenceException e) {
+                    result.addFailure(position, e);
+                    if (atomic) {
+                        result.setRolledBack();
+                        return result;
+                    }
+                }
+                position++;
             }
-        } catch (IllegalDateFormatException e) {
-            throw new DataExistenceException("Date is not formatted correctly.");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            getMetrics().recordTransaction();
+            existsStatement.close();
+            insertStatement.close();
         }
+        dropRecurringIndex();
 
-        updateIndexes();
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(COL1, event.getName());
-        contentValues.put(COL2, event.getPriority());
-        contentValues.put(COL3, event.getEventDate());
-        this.getWritableDatabase().insert(TABLE_NAME, null, contentValues);
+        RowIndex rowIndex = getRowIndex(TABLE_NAME);
+        for (int i = 0; i < insertedCount; i++) {
+            rowIndex.add(rowIds[i]);
+        }
+        notifyInserted(rowIndex, rowIds, insertedCount);
+        getMetrics().record(DatabaseMetrics.ADD_BATCH, start);
+        return result;
     }
 
     @Override
     public void deleteDataEntry(int id)
             throws DataExistenceException {
         try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            this.getWritableDatabase().delete(TABLE_NAME, COL0 + " = ?", new String[] {Integer.toString(index)});
-            this.getWritableDatabase().execSQL("VACUUM");
-            indexArrayList.remove(id);
-
-            if (indexArrayList.size() == 0) {
+            long start = getMetrics().start();
+            RowIndex rowIndex = getRowIndex(TABLE_NAME);
+            int index = rowIndex.get(id);
+            executeUpdateDelete(DELETE_QUERY, index);
+            dropRecurringIndex();
+            rowIndex.removeAt(id);
+            rowCache.remove(index);
+            notifyChange(DataChange.DELETED, index, id);
+
+            if (rowIndex.size() == 0) {
+                countImplicitTransaction();
                 this.getWritableDatabase().execSQL("UPDATE SQLITE_SEQUENCE SET seq = 0 WHERE name = " + "'" + TABLE_NAME + "'");
             }
+            getCompactionScheduler().requestCompaction();
+            getMetrics().record(DatabaseMetrics.DELETE, start);
         } catch (IndexOutOfBoundsException e) {
             throw new DataExistenceException("Data is not in database.");
         }
     }
 
+    @Override
+    public int deleteDataEntries(int[] ids)
+            throws DataExistenceException {
+        int deleted = deleteRows(TABLE_NAME, ids, rowCache);
+        dropRecurringIndex();
+        return deleted;
+    }
+
+    /**
+     * Deletes every Event dated before a date with a single statement read from the date index.
+     * An Event which repeats is deleted only if its last occurrence is before the date, so
+     * Events which repeat forever are kept, as are Events without a date.
+     * @param date the first date which is kept.
+     * @return int which is the number of Events deleted.
+     */
+    public int deleteEventsBefore(Date date) {
+        String key = Integer.toString(date.getKey());
+        int deleted = deleteRowsWhere(TABLE_NAME, COL4 + " < ? AND (" + COL5 + " IS NULL OR " + COL7 + " < ?)",
+                new String[] {key, key}, rowCache);
+        dropRecurringIndex();
+        return deleted;
+    }
+
+    /**
+     * Deletes every Event of a priority with a single statement read from the priority index.
+     * @param priority an int which is the priority of the Events to delete.
+     * @return int which is the number of Events deleted.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    public int deleteEventsWithPriority(int priority)
+            throws IllegalPriorityException {
+        if (!isValidPriority(priority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        int deleted = deleteRowsWhere(TABLE_NAME, COL2 + " = ?", new String[] {Integer.toString(priority)}, rowCache);
+        dropRecurringIndex();
+        return deleted;
+    }
+
+    @Override
+    public void deleteAllData(String table) {
+        super.deleteAllData(table);
+        rowCache.clear();
+        dropRecurringIndex();
+        notifyChange(DataChange.CLEARED, -1, -1);
+    }
+
+    /**
+     * Gets the cache of recently used Events, which exposes its hit and miss counts.
+     * @return RowCache which is the cache of Events.
+     */
+    public RowCache<Event> getRowCache() {
+        return rowCache;
+    }
+
     /**
      * Gets the Event from the database.
      * @param id an int which is the id of the Event to retrieve from the database.
@@ -130,11 +477,18 @@ public class EventDatabase extends Database {
     public Event getEvent(int id)
             throws DataExistenceException, IllegalDateFormatException, IllegalPriorityException {
         try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            return new Event(getEventName(index),
-                             getEventPriority(index),
-                             getEventDate(index));
+            long start = getMetrics().start();
+            int index = getRowIndex(TABLE_NAME).get(id);
+            Event event = rowCache.get(index);
+            int scanned = 0;
+            if (event == null) {
+                long version = rowCache.getVersion();
+                event = readEvent(index);
+                rowCache.putIfCurrent(index, event, version);
+                scanned = 1;
+            }
+            getMetrics().record(DatabaseMetrics.GET, start, scanned, 1);
+            return event;
         } catch (IndexOutOfBoundsException e) {
             throw new DataExistenceException("Data is not in database.");
         }
@@ -157,9 +511,52 @@ public class EventDatabase extends Database {
      */
     public void updateEvent(String newEventName, int newEventPriority, String newEventDate, int id)
             throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException {
-        updateEventName(newEventName, id);
-        updateEventPriority(newEventPriority, id);
-        updateEventDate(newEventDate, id);
+        if (!isValidPriority(newEventPriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        int dateKey = Date.parse(newEventDate);
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL1, newEventName);
+        contentValues.put(COL2, newEventPriority);
+        contentValues.put(COL3, newEventDate);
+        contentValues.put(COL4, dateKey);
+        updateRow(contentValues, id);
+    }
+
+    /**
+     * Updates only the given fields of the Event with a single statement.
+     * Fields which are null are left unchanged.
+     * @param newEventName a string which is the new Event name to update to, or null.
+     * @param newEventPriority an Integer which is the new priority to update to, or null.
+     * @param newEventDate a string which is the new event date to update to, or null.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not in the database.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format
+     *                                    and is not within the legal ranges of months, days and years.
+     *                                    dueDate must be in the format of month/day/year.
+     *                                    Month ranges from 1 - 12 (inclusive).
+     *                                    Day ranges from 1 - 31 (inclusive).
+     *                                    year ranges from 2000 - 2999 (inclusive).
+     */
+    public void updateEventFields(String newEventName, Integer newEventPriority, String newEventDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException {
+        ContentValues contentValues = new ContentValues();
+        if (newEventName != null) {
+            contentValues.put(COL1, newEventName);
+        }
+        if (newEventPriority != null) {
+            if (!isValidPriority(newEventPriority)) {
+                throw new IllegalPriorityException("Invalid priority.");
+            }
+            contentValues.put(COL2, newEventPriority);
+        }
+        if (newEventDate != null) {
+            int dateKey = Date.parse(newEventDate);
+            contentValues.put(COL3, newEventDate);
+            contentValues.put(COL4, dateKey);
+        }
+        updateRow(contentValues, id);
     }
 
     /**
@@ -170,15 +567,9 @@ public class EventDatabase extends Database {
      */
     public void updateEventName(String newEventName, int id)
             throws DataExistenceException {
-        try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL1, newEventName);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
-        }
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL1, newEventName);
+        updateRow(contentValues, id);
     }
 
     /**
@@ -193,15 +584,9 @@ public class EventDatabase extends Database {
         if (!isValidPriority(newEventPriority)) {
             throw new IllegalPriorityException("Invalid priority.");
         }
-        try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL2, newEventPriority);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
-        }
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL2, newEventPriority);
+        updateRow(contentValues, id);
     }
 
     /**
@@ -218,113 +603,323 @@ public class EventDatabase extends Database {
      */
     public void updateEventDate(String newEventDate, int id)
             throws DataExistenceException, IllegalDateFormatException {
-        Date date = new Date(newEventDate);
+        int dateKey = Date.parse(newEventDate);
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL3, newEventDate);
+        contentValues.put(COL4, dateKey);
+        updateRow(contentValues, id);
+    }
+
+    /**
+     * Sets the rule by which the Event repeats.
+     * @param newRecurrence the new rule, or null to make the Event occur once.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not within the database.
+     */
+    public void updateEventRecurrence(Recurrence newRecurrence, int id)
+            throws DataExistenceException {
+        ContentValues contentValues = new ContentValues();
+        if (newRecurrence == null) {
+            contentValues.putNull(COL5);
+            contentValues.putNull(COL6);
+            contentValues.putNull(COL7);
+            contentValues.putNull(COL8);
+        } else {
+            contentValues.put(COL5, newRecurrence.getFrequency());
+            contentValues.put(COL6, newRecurrence.getInterval());
+            if (newRecurrence.getUntilKey() == Recurrence.NO_END) {
+                contentValues.putNull(COL7);
+            } else {
+                contentValues.put(COL7, newRecurrence.getUntilKey());
+            }
+            contentValues.put(COL8, newRecurrence.encodeExceptions());
+        }
+        updateRow(contentValues, id);
+    }
+
+    /**
+     * Gets the Events occurring within a range of dates, ordered by date.
+     * Events which occur once are read from the index on the event date key, and each
+     * occurrence of an Event which repeats is returned as an Event on the date it occurs,
+     * after the Events which occur once on the same date. The cost grows with the number
+     * of Events returned rather than the size of the table.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of the Events within the range, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    public ArrayList<Event> getEventsBetween(Date from, Date to)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        long start = getMetrics().start();
+        ArrayList<Event> occurrences = getOccurrencesBetween(from, to);
+        Cursor cursor = this.getReadableDatabase().rawQuery(SELECT_BETWEEN_QUERY,
+                new String[] {Integer.toString(from.getKey()), Integer.toString(to.getKey())});
         try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL3, newEventDate);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
+            ArrayList<Event> events = new ArrayList<>(cursor.getCount() + occurrences.size());
+            int next = 0;
+            while (cursor.moveToNext()) {
+                Event event = new Event(cursor.getString(0), cursor.getInt(1), cursor.getString(2));
+                while (next < occurrences.size()
+                        && occurrences.get(next).getEventDateKey() < event.getEventDateKey()) {
+                    events.add(occurrences.get(next++));
+                }
+                events.add(event);
+            }
+            events.addAll(occurrences.subList(next, occurrences.size()));
+            getMetrics().record(DatabaseMetrics.RANGE_QUERY, start, events.size(), events.size());
+            return events;
+        } finally {
+            cursor.close();
         }
     }
 
     /**
-     * The helper method gets the name of the Event given the id of the Event.
-     * @param id an int which is the id of the Event to get the name of.
-     * @return a string which is the name of the Event retrieved.
+     * Gets the occurrences within a range of dates of the Events which repeat, ordered by date.
+     * The Events whose repeats overlap the range are found with the interval index and only
+     * their occurrences within the range are expanded.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of an Event for each occurrence, on the date it occurs, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
      */
-    private String getEventName(int id) {
-        String query = "SELECT " + COL1 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        String data = "";
+    public ArrayList<Event> getOccurrencesBetween(Date from, Date to)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        ArrayList<Event> matches = new ArrayList<>();
+        getRecurringIndex().query(from.getKey(), to.getKey(), matches);
+
+        long[] keys = new long[16];
+        int count = 0;
+        for (int i = 0; i < matches.size(); i++) {
+            Event event = matches.get(i);
+            for (int key : event.getRecurrence().occurrencesBetween(event.getEventDateKey(), from.getKey(), to.getKey())) {
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, count * 2);
+                }
+                keys[count++] = ((long) key << 32) | i;
+            }
+        }
+        Arrays.sort(keys, 0, count);
 
-        if (cursor.moveToFirst()) {
-            do {
-                data += cursor.getString(0);
-            } while (cursor.moveToNext());
+        ArrayList<Event> occurrences = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Event event = matches.get((int) keys[i]);
+            occurrences.add(new Event(event.getName(), event.getPriority(),
+                    Date.format((int) (keys[i] >>> 32)), event.getRecurrence()));
         }
-        return data;
+        return occurrences;
+    }
+
+    @Override
+    public ArrayList<Event> getTopEvents(int k)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        return getTopEvents(k, Date.today());
     }
 
     /**
-     * The helper method gets the priority of the Event given the id of the Event.
-     * @param id an int which is the id of the Event to get the priority of.
-     * @return an int which is the priority of the Event retrieved.
+     * Gets the most urgent Events as of a date: highest priority (1) first, then earliest date.
+     * Only Events on or after the date are returned. The Events which occur once are read in
+     * order from the index on priority and date key and the read stops after k rows, so the
+     * cost does not grow with the size of the table. The Events which repeat are ranked by
+     * their next occurrence on or after the date, found from the interval index, and are left
+     * out once their rule has ended. On the same priority and date an Event which occurs once
+     * comes first.
+     * @param k an int which is the largest number of Events to return.
+     * @param today the date the next occurrences of the Events which repeat are found from.
+     * @return ArrayList of at most k Events, most urgent first, each repeating Event on its next occurrence.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
      */
-    private int getEventPriority(int id) {
-        String query = "SELECT " + COL2 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        int data = 0;
+    @Override
+    public ArrayList<Event> getTopEvents(int k, Date today)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        ArrayList<Event> events = new ArrayList<>();
+        if (k <= 0) {
+            return events;
+        }
+        long start = getMetrics().start();
+        Cursor cursor = this.getReadableDatabase().rawQuery(SELECT_TOP_QUERY,
+                new String[] {Integer.toString(today.getKey()), Integer.toString(k)});
+        try {
+            while (cursor.moveToNext()) {
+                events.add(eventFrom(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
 
-        if (cursor.moveToFirst()) {
-            do {
-                data = cursor.getInt(0);
-            } while (cursor.moveToNext());
+        ArrayList<Event> recurring = new ArrayList<>();
+        getRecurringIndex().query(today.getKey(), Recurrence.NO_END, recurring);
+        int scanned = events.size() + recurring.size();
+        for (Event event : recurring) {
+            int next = event.getRecurrence().nextOccurrence(event.getEventDateKey(), today.getKey());
+            if (next != -1) {
+                events.add(new Event(event.getName(), event.getPriority(), Date.format(next), event.getRecurrence()));
+            }
         }
-        return data;
+        Collections.sort(events, URGENCY_ORDER);
+        if (events.size() > k) {
+            events.subList(k, events.size()).clear();
+        }
+        getMetrics().record(DatabaseMetrics.TOP, start, scanned, events.size());
+        return events;
     }
 
     /**
-     * The helper method gets the date of the Event given the id of the Event.
-     * @param id an int which is the id of the Event to get the date of.
-     * @return a string which is the date of the Event retrieved.
+     * Gets one page of the Events, ordered by ID.
+     * @param afterId a long which is the ID of the last Event of the previous page, or 0 for the first page.
+     * @param pageSize an int which is the largest number of Events in the page.
+     * @return Cursor which contains the rows of the page.
      */
-    private String getEventDate(int id) {
-        String query = "SELECT " + COL3 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        String data = "";
+    public Cursor getEventPage(long afterId, int pageSize) {
+        return getDataPage(TABLE_NAME, afterId, pageSize);
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                data += cursor.getString(0);
-            } while (cursor.moveToNext());
+    /**
+     * Gets one page of the Events, ordered by event date.
+     * @param afterKey a long which is the page key of the last Event of the previous page, made with
+     *                 {@link Database#packPageKey(int, int)}, or 0 for the first page.
+     * @param pageSize an int which is the largest number of Events in the page.
+     * @return Cursor which contains the rows of the page.
+     */
+    public Cursor getEventPageByDate(long afterKey, int pageSize) {
+        return getDataPageByDate(TABLE_NAME, COL4, afterKey, pageSize);
+    }
+
+    /**
+     * The helper method updates the columns of an Event row with a single statement.
+     * @param contentValues the new values of the columns to update.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not in the database.
+     */
+    private void updateRow(ContentValues contentValues, int id)
+            throws DataExistenceException {
+        try {
+            long start = getMetrics().start();
+            int index = getRowIndex(TABLE_NAME).get(id);
+            if (contentValues.size() > 0) {
+                countImplicitTransaction();
+                this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
+                rowCache.remove(index);
+                dropRecurringIndex();
+                notifyChange(DataChange.UPDATED, index, id);
+            }
+            getMetrics().record(DatabaseMetrics.UPDATE, start);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
         }
-        return data;
     }
 
     /**
-     * The helper method determines if the Event is already in the database.
-     * @param event an Event object to determine if is is within the database.
-     * @return a boolean which is true if the Event is in the database and false otherwise.
-     * @throws IllegalDateFormatException is thrown if the date is not of the proper format
-     *                                    and is not within the legal ranges of months, days and years.
-     *                                    dueDate must be in the format of month/day/year.
-     *                                    Month ranges from 1 - 12 (inclusive).
-     *                                    Day ranges from 1 - 31 (inclusive).
-     *                                    year ranges from 2000 - 2999 (inclusive).
-     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     * The helper method reads a whole Event row with a single query.
+     * @param rowId an int which is the row ID of the Event to read.
+     * @return Event which is the Event stored in the row.
+     * @throws DataExistenceException is thrown if there is no row with the row ID.
+     * @throws IllegalDateFormatException is thrown if the stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
      */
-    private boolean isDataInDatabase(Event event) throws IllegalDateFormatException, IllegalPriorityException {
-        Cursor cursor = this.getAllData(TABLE_NAME);
-        boolean isInDatabase = false;
+    private Event readEvent(int rowId)
+            throws DataExistenceException, IllegalDateFormatException, IllegalPriorityException {
+        Cursor cursor = this.getReadableDatabase().rawQuery(SELECT_ROW_QUERY, new String[] {Integer.toString(rowId)});
+        try {
+            if (!cursor.moveToFirst()) {
+                throw new DataExistenceException("Data is not in database.");
+            }
+            return eventFrom(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                Event e = new Event(cursor.getString(1), cursor.getInt(2), cursor.getString(3));
-                if (event.equals(e)) {
-                    isInDatabase = true;
-                    break;
+    /**
+     * The helper method gets the index of the Events which repeat, loading it again if
+     * any EventDatabase changed the table since it was loaded. The version is read before
+     * the table, so a change committed while the index loads makes it load again next time.
+     * @return IntervalIndex of the Events which repeat over the dates from their first
+     *         occurrence to the end of their rule.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    private IntervalIndex<Event> getRecurringIndex()
+            throws IllegalDateFormatException, IllegalPriorityException {
+        synchronized (recurringLock) {
+            long version = getTableState().getWriteVersion();
+            if (recurringIndex == null || recurringVersion != version) {
+                Cursor cursor = this.getReadableDatabase().rawQuery(SELECT_RECURRING_QUERY, null);
+                try {
+                    ArrayList<Event> events = new ArrayList<>(cursor.getCount());
+                    int[] starts = new int[cursor.getCount()];
+                    int[] ends = new int[cursor.getCount()];
+                    while (cursor.moveToNext()) {
+                        Event event = eventFrom(cursor);
+                        starts[events.size()] = event.getEventDateKey();
+                        ends[events.size()] = event.getRecurrence().getUntilKey();
+                        events.add(event);
+                    }
+                    recurringIndex = new IntervalIndex<>(events, starts, ends);
+                    recurringVersion = version;
+                } finally {
+                    cursor.close();
                 }
-            } while (cursor.moveToNext());
+            }
+            return recurringIndex;
         }
-        return isInDatabase;
     }
 
     /**
-     * The helper method updates the indexes of the Database.
+     * The helper method marks the index of the Events which repeat as stale in every
+     * EventDatabase, so it is loaded again when next needed. Called after every change
+     * to the table is committed.
      */
-    private void updateIndexes() {
-        String query = "SELECT * FROM " + TABLE_NAME;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        indexArrayList.clear();
+    private void dropRecurringIndex() {
+        getTableState().bumpWriteVersion();
+    }
+
+    /**
+     * The helper method makes the Event in the current row of a cursor which reads EVENT_COLUMNS.
+     * @param cursor the cursor, positioned on a row.
+     * @return Event which is the Event stored in the row, with its rule if it repeats.
+     * @throws IllegalDateFormatException is thrown if the stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    private static Event eventFrom(Cursor cursor)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        Recurrence recurrence = null;
+        if (!cursor.isNull(3)) {
+            recurrence = new Recurrence(cursor.getInt(3), cursor.getInt(4),
+                    cursor.isNull(5) ? Recurrence.NO_END : cursor.getInt(5),
+                    Recurrence.decodeExceptions(cursor.getString(6)));
+        }
+        return new Event(cursor.getString(0), cursor.getInt(1), cursor.getString(2), recurrence);
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                indexArrayList.add(cursor.getInt(0));
-            } while (cursor.moveToNext());
+    /**
+     * The helper method gets the values of the columns inserted for an Event, in the order of INSERT_QUERY.
+     * @param event the Event to insert.
+     * @return Object array of the values, with nulls for the repeat columns of an Event which occurs once.
+     */
+    private static Object[] insertValues(Event event) {
+        Recurrence recurrence = event.getRecurrence();
+        if (recurrence == null) {
+            return new Object[] {event.getName(), event.getPriority(), event.getEventDate(),
+                    event.getEventDateKey(), null, null, null, null};
         }
+        return new Object[] {event.getName(), event.getPriority(), event.getEventDate(), event.getEventDateKey(),
+                recurrence.getFrequency(), recurrence.getInterval(),
+                recurrence.getUntilKey() == Recurrence.NO_END ? null : recurrence.getUntilKey(),
+                recurrence.encodeExceptions()};
+    }
+
+    /**
+     * The helper method determines if the Event is already in the database.
+     * Two Events are the same if they have the same name and event date, and the
+     * lookup is answered from the index on those columns.
+     * @param event an Event object to determine if is is within the database.
+     * @return a boolean which is true if the Event is in the database and false otherwise.
+     */
+    private boolean isDataInDatabase(Event event) {
+        return simpleQueryForLong(EXISTS_QUERY, event.getName(), event.getEventDate()) != 0;
     }
 
     /**
@@ -0,0 +1,141 @@
+package com.bcit.swch.swch;
+
+import java.util.ArrayList;
+
+/**
+ * EventStore interface is the storage contract for Events.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface EventStore extends DataStore {
+
+    /**
+     * Gets the Event from the store.
+     * @param id an int which is the id of the Event to retrieve.
+     * @return Event the event containing all the data of the event.
+     * @throws DataExistenceException is thrown if the Event is not in the store.
+     * @throws IllegalDateFormatException is thrown if the stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    Event getEvent(int id) throws DataExistenceException, IllegalDateFormatException, IllegalPriorityException;
+
+    /**
+     * Updates the Event to a new Event.
+     * @param newEventName a string which is the new Event name to update to.
+     * @param newEventPriority an int which is the new priority to update to.
+     * @param newEventDate a string which is the new date to update to.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format.
+     */
+    void updateEvent(String newEventName, int newEventPriority, String newEventDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException;
+
+    /**
+     * Updates only the given fields of the Event. Fields which are null are left unchanged.
+     * @param newEventName a string which is the new Event name to update to, or null.
+     * @param newEventPriority an Integer which is the new priority to update to, or null.
+     * @param newEventDate a string which is the new date to update to, or null.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format.
+     */
+    void updateEventFields(String newEventName, Integer newEventPriority, String newEventDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException;
+
+    /**
+     * Updates the name of the Event to a new Event name.
+     * @param newEventName a string which is the new Event name to update to.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not in the store.
+     */
+    void updateEventName(String newEventName, int id) throws DataExistenceException;
+
+    /**
+     * Updates the priority of the Event to a new priority.
+     * @param newEventPriority an int which is the new priority to update to.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    void updateEventPriority(int newEventPriority, int id) throws DataExistenceException, IllegalPriorityException;
+
+    /**
+     * Updates the date of the Event to a new date.
+     * @param newEventDate a string which is the new date to update to.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not in the store.
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format.
+     */
+    void updateEventDate(String newEventDate, int id) throws DataExistenceException, IllegalDateFormatException;
+
+    /**
+     * Sets the rule by which the Event repeats.
+     * @param newRecurrence the new rule, or null to make the Event occur once.
+     * @param id an int which is the id of the Event to update.
+     * @throws DataExistenceException is thrown if the Event is not in the store.
+     */
+    void updateEventRecurrence(Recurrence newRecurrence, int id) throws DataExistenceException;
+
+    /**
+     * Gets the Events within a range of dates, ordered by date, with an Event for each
+     * occurrence of the Events which repeat.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of the Events within the range, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    ArrayList<Event> getEventsBetween(Date from, Date to) throws IllegalDateFormatException, IllegalPriorityException;
+
+    /**
+     * Gets the occurrences within a range of dates of the Events which repeat, ordered by date.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of an Event for each occurrence, on the date it occurs, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    ArrayList<Event> getOccurrencesBetween(Date from, Date to) throws IllegalDateFormatException, IllegalPriorityException;
+
+    /**
+     * Gets the most urgent Events as of today: highest priority (1) first, then earliest date.
+     * @param k an int which is the largest number of Events to return.
+     * @return ArrayList of at most k Events, most urgent first.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     * @see #getTopEvents(int, Date)
+     */
+    ArrayList<Event> getTopEvents(int k) throws IllegalDateFormatException, IllegalPriorityException;
+
+    /**
+     * Gets the most urgent Events as of a date: highest priority (1) first, then earliest date.
+     * An Event which occurs once is ranked by its date, and is left out if it is before the date. An Event which repeats is ranked by,
+     * and returned on, its next occurrence on or after the date, and is left out if it has none.
+     * @param k an int which is the largest number of Events to return.
+     * @param today the date the next occurrences of the Events which repeat are found from.
+     * @return ArrayList of at most k Events, most urgent first.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    ArrayList<Event> getTopEvents(int k, Date today) throws IllegalDateFormatException, IllegalPriorityException;
+
+    /**
+     * Deletes every Event dated before a date. Events without a date are kept.
+     * @param date the first date which is kept.
+     * @return int which is the number of Events deleted.
+     */
+    int deleteEventsBefore(Date date);
+
+    /**
+     * Deletes every Event of a priority.
+     * @param priority an int which is the priority of the Events to delete.
+     * @return int which is the number of Events deleted.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    int deleteEventsWithPriority(int priority) throws IllegalPriorityException;
+}
@@ -0,0 +1,68 @@
+package com.bcit.swch.swch;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * FileMetricsSink class appends the snapshots of a database's metrics to a file
+ * as comma separated values, one line per operation.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class FileMetricsSink implements MetricsSink {
+
+    /**
+     * The tag of the log line written when the file cannot be written.
+     */
+    private static final String TAG = "DatabaseMetrics";
+
+    /**
+     * The header line written at the start of a new file.
+     */
+    private static final String HEADER = "time_ms,database,operation,count,total_ns,max_ns,"
+            + "p50_us,p90_us,p99_us,rows_scanned,rows_returned,transactions";
+
+    /**
+     * The file the snapshots are appended to.
+     */
+    private final File file;
+
+    /**
+     * The constructor which constructs an object of type FileMetricsSink.
+     * @param file the file to append the snapshots to.
+     */
+    public FileMetricsSink(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void publish(MetricsSnapshot snapshot) {
+        boolean isNew = !file.exists();
+        PrintWriter writer = null;
+        try {
+            writer = new PrintWriter(new FileWriter(file, true));
+            if (isNew) {
+                writer.println(HEADER);
+            }
+            for (OperationStats stats : snapshot.getOperations()) {
+                writer.println(snapshot.getTimeMillis() + "," + snapshot.getDatabaseName() + "," + stats.getName()
+                        + "," + stats.getCount() + "," + stats.getTotalNanos() + "," + stats.getMaxNanos()
+                        + "," + stats.getP50Micros() + "," + stats.getP90Micros() + "," + stats.getP99Micros()
+                        + "," + stats.getRowsScanned() + "," + stats.getRowsReturned()
+                        + "," + snapshot.getTransactionCount());
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write metrics to " + file, e);
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.bcit.swch.swch;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.PriorityQueue;
+
+/**
+ * InMemoryEventStore class is a store for Events which keeps its rows in memory only.
+ *
+ * Rows are kept in primitive column arrays, with interned names and dates stored
+ * as packed yyyymmdd keys, so a large number of Events takes little memory and no disk.
+ * It behaves like EventDatabase, including its errors, and suits ephemeral data, tests
+ * and fast simulations of large datasets on a plain JVM.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class InMemoryEventStore implements EventStore {
+
+    /**
+     * The interned names of the Events.
+     */
+    private final SymbolTable names = new SymbolTable();
+
+    /**
+     * The rows of the Events, whose value column holds the date key.
+     */
+    private final ColumnTable table = new ColumnTable();
+
+    /**
+     * The rule by which each Event repeats, or null if it occurs once, in the order of the rows.
+     */
+    private final ArrayList<Recurrence> recurrences = new ArrayList<>();
+
+    /**
+     * The bit set in a sort key of getBetween or getTopEvents for an occurrence of an Event which repeats,
+     * so occurrences sort after the Events which occur once on the same date.
+     */
+    private static final long OCCURRENCE_BIT = 1L << 31;
+
+    @Override
+    public synchronized void addDataEntry(Object data)
+            throws DataExistenceException, IllegalPriorityException {
+        if (!(data instanceof Event)) {
+            throw new DataExistenceException("Data is not an Event.");
+        }
+
+        Event event = (Event) data;
+
+        if (table.contains(names.find(event.getName()), event.getEventDateKey())) {
+            throw new DataExistenceException("Data is already in database.");
+        }
+        table.add(names.retain(event.getName()), event.getPriority(), event.getEventDateKey());
+        recurrences.add(event.getRecurrence());
+    }
+
+    @Override
+    public synchronized BatchResult addDataEntries(Collection<?> data, boolean atomic) {
+        BatchResult result = new BatchResult();
+        int sizeBefore = table.size();
+        int position = 0;
+        for (Object item : data) {
+            DataExistenceException failure = null;
+            try {
+                addDataEntry(item);
+                result.addInserted();
+            } catch (DataExistenceException e) {
+                failure = e;
+            } catch (IllegalPriorityException e) {
+                failure = new DataExistenceException(e.getMessage());
+            }
+            if (failure != null) {
+                result.addFailure(position, failure);
+                if (atomic) {
+                    while (table.size() > sizeBefore) {
+                        removeRow(table.size() - 1);
+                    }
+                    result.setRolledBack();
+                    return result;
+                }
+            }
+            position++;
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void deleteDataEntry(int id)
+            throws DataExistenceException {
+        try {
+            removeRow(id);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    @Override
+    public synchronized int deleteDataEntries(int[] ids)
+            throws DataExistenceException {
+        for (int id : ids) {
+            checkExists(id);
+        }
+        int[] positions = ids.clone();
+        Arrays.sort(positions);
+        int deleted = 0;
+        for (int i = positions.length - 1; i >= 0; i--) {
+            if (i == positions.length - 1 || positions[i] != positions[i + 1]) {
+                removeRow(positions[i]);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized int deleteEventsBefore(Date date) {
+        int deleted = 0;
+        for (int i = table.size() - 1; i >= 0; i--) {
+            int dateKey = table.getValue(i);
+            Recurrence recurrence = recurrences.get(i);
+            if (dateKey != 0 && dateKey < date.getKey()
+                    && (recurrence == null || recurrence.getUntilKey() < date.getKey())) {
+                removeRow(i);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized int deleteEventsWithPriority(int priority)
+            throws IllegalPriorityException {
+        if (!isValidPriority(priority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        int deleted = 0;
+        for (int i = table.size() - 1; i >= 0; i--) {
+            if (table.getPriority(i) == priority) {
+                removeRow(i);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes every Event and resets the primary key (the ID).
+     * @param table a string which is ignored, since the store holds a single table.
+     */
+    @Override
+    public synchronized void deleteAllData(String table) {
+        this.table.clear();
+        this.names.clear();
+        this.recurrences.clear();
+    }
+
+    /**
+     * Gets every Event, in the columns of the table of EventDatabase.
+     * @param table a string which is ignored, since the store holds a single table.
+     * @return Cursor which contains a copy of every row.
+     */
+    @Override
+    public synchronized Cursor getAllData(String table) {
+        int size = this.table.size();
+        MatrixCursor cursor = new MatrixCursor(EventDatabase.COLUMNS, size);
+        for (int i = 0; i < size; i++) {
+            int dateKey = this.table.getValue(i);
+            Recurrence recurrence = recurrences.get(i);
+            if (recurrence == null) {
+                cursor.addRow(new Object[] {this.table.getRowId(i), names.get(this.table.getName(i)),
+                        this.table.getPriority(i), Date.format(dateKey), dateKey, null, null, null, null});
+            } else {
+                cursor.addRow(new Object[] {this.table.getRowId(i), names.get(this.table.getName(i)),
+                        this.table.getPriority(i), Date.format(dateKey), dateKey, recurrence.getFrequency(),
+                        recurrence.getInterval(),
+                        recurrence.getUntilKey() == Recurrence.NO_END ? null : recurrence.getUntilKey(),
+                        recurrence.encodeExceptions()});
+            }
+        }
+        return cursor;
+    }
+
+    /**
+     * Gets the number of Events in the store.
+     * @return int which is the number of Events.
+     */
+    public synchronized int size() {
+        return table.size();
+    }
+
+    @Override
+    public synchronized Event getEvent(int id)
+            throws DataExistenceException, IllegalDateFormatException, IllegalPriorityException {
+        try {
+            return getEventAt(id);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    @Override
+    public synchronized void updateEvent(String newEventName, int newEventPriority, String newEventDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException {
+        updateEventFields(newEventName, newEventPriority, newEventDate, id);
+    }
+
+    @Override
+    public synchronized void updateEventFields(String newEventName, Integer newEventPriority, String newEventDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException {
+        if (newEventPriority != null && !isValidPriority(newEventPriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        int dateKey = newEventDate != null ? Date.parse(newEventDate) : 0;
+        checkExists(id);
+        if (newEventName != null) {
+            setName(id, newEventName);
+        }
+        if (newEventPriority != null) {
+            table.setPriority(id, newEventPriority);
+        }
+        if (newEventDate != null) {
+            table.setValue(id, dateKey);
+        }
+    }
+
+    @Override
+    public synchronized void updateEventName(String newEventName, int id)
+            throws DataExistenceException {
+        checkExists(id);
+        setName(id, newEventName);
+    }
+
+    @Override
+    public synchronized void updateEventPriority(int newEventPriority, int id)
+            throws DataExistenceException, IllegalPriorityException {
+        if (!isValidPriority(newEventPriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        checkExists(id);
+        table.setPriority(id, newEventPriority);
+    }
+
+    @Override
+    public synchronized void updateEventDate(String newEventDate, int id)
+            throws DataExistenceException, IllegalDateFormatException {
+        int dateKey = Date.parse(newEventDate);
+        checkExists(id);
+        table.setValue(id, dateKey);
+    }
+
+    @Override
+    public synchronized void updateEventRecurrence(Recurrence newRecurrence, int id)
+            throws DataExistenceException {
+        checkExists(id);
+        recurrences.set(id, newRecurrence);
+    }
+
+    /**
+     * Gets the Events within a range of dates, ordered by date, with an Event for each
+     * occurrence of the Events which repeat, after the Events which occur once on the same date.
+     * The store is scanned, so the cost grows with the size of the store.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of the Events within the range, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    @Override
+    public synchronized ArrayList<Event> getEventsBetween(Date from, Date to)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        return getBetween(from, to, true);
+    }
+
+    @Override
+    public synchronized ArrayList<Event> getOccurrencesBetween(Date from, Date to)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        return getBetween(from, to, false);
+    }
+
+    /**
+     * The helper method gets the Events and occurrences within a range of dates, ordered by date.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @param includeSingle a boolean which is true to include the Events which occur once.
+     * @return ArrayList of the Events within the range, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    private ArrayList<Event> getBetween(Date from, Date to, boolean includeSingle)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        int size = table.size();
+        long[] matches = new long[16];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int dateKey = table.getValue(i);
+            Recurrence recurrence = recurrences.get(i);
+            if (recurrence == null) {
+                if (includeSingle && dateKey >= from.getKey() && dateKey <= to.getKey()) {
+                    matches = append(matches, count++, ((long) dateKey << 32) | i);
+                }
+            } else {
+                for (int key : recurrence.occurrencesBetween(dateKey, from.getKey(), to.getKey())) {
+                    matches = append(matches, count++, ((long) key << 32) | OCCURRENCE_BIT | i);
+                }
+            }
+        }
+        Arrays.sort(matches, 0, count);
+
+        ArrayList<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int position = (int) (matches[i] & ~OCCURRENCE_BIT);
+            events.add(new Event(names.get(table.getName(position)), table.getPriority(position),
+                    Date.format((int) (matches[i] >>> 32)), recurrences.get(position)));
+        }
+        return events;
+    }
+
+    /**
+     * The helper method adds a value to an array, growing it when it is full.
+     * @param values the array.
+     * @param count an int which is the number of values in the array.
+     * @param value a long which is the value to add.
+     * @return long array which holds the values, which may be a new array.
+     */
+    private static long[] append(long[] values, int count, long value) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count] = value;
+        return values;
+    }
+
+    @Override
+    public ArrayList<Event> getTopEvents(int k)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        return getTopEvents(k, Date.today());
+    }
+
+    /**
+     * Gets the most urgent Events as of a date: highest priority (1) first, then earliest date.
+     * The store is scanned once, keeping the best k Events seen in a bounded heap. An Event
+     * which occurs once is left out if it is before the date. An Event which repeats is ranked
+     * by its next occurrence on or after the date, after the Events which occur once on the
+     * same date, and is left out if it has none.
+     * @param k an int which is the largest number of Events to return.
+     * @param today the date the next occurrences of the Events which repeat are found from.
+     * @return ArrayList of at most k Events, most urgent first.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    @Override
+    public synchronized ArrayList<Event> getTopEvents(int k, Date today)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        ArrayList<Event> events = new ArrayList<>();
+        if (k <= 0) {
+            return events;
+        }
+        PriorityQueue<Long> best = new PriorityQueue<>(k, Collections.<Long>reverseOrder());
+        int size = table.size();
+        for (int i = 0; i < size; i++) {
+            Recurrence recurrence = recurrences.get(i);
+            long key;
+            if (recurrence == null) {
+                if (table.getValue(i) < today.getKey()) {
+                    continue;
+                }
+                key = (table.getPriority(i) * 100000000L + table.getValue(i)) << 32 | i;
+            } else {
+                int next = recurrence.nextOccurrence(table.getValue(i), today.getKey());
+                if (next == -1) {
+                    continue;
+                }
+                key = (table.getPriority(i) * 100000000L + next) << 32 | OCCURRENCE_BIT | i;
+            }
+            if (best.size() < k) {
+                best.add(key);
+            } else if (key < best.peek()) {
+                best.poll();
+                best.add(key);
+            }
+        }
+
+        long[] keys = new long[best.size()];
+        int count = 0;
+        for (Long key : best) {
+            keys[count++] = key;
+        }
+        Arrays.sort(keys);
+        for (long key : keys) {
+            int position = (int) (key & ~OCCURRENCE_BIT);
+            events.add(new Event(names.get(table.getName(position)), table.getPriority(position),
+                    Date.format((int) (key >>> 32) % 100000000), recurrences.get(position)));
+        }
+        return events;
+    }
+
+    /**
+     * The helper method builds the Event stored at a position.
+     * @param position an int which is the position of the Event.
+     * @return Event which is the Event stored at the position.
+     * @throws IllegalDateFormatException is thrown if the stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    private Event getEventAt(int position)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        return new Event(names.get(table.getName(position)), table.getPriority(position),
+                Date.format(table.getValue(position)), recurrences.get(position));
+    }
+
+    /**
+     * The helper method replaces the name of the Event at a position.
+     * @param position an int which is the position of the Event.
+     * @param newEventName a string which is the new name.
+     */
+    private void setName(int position, String newEventName) {
+        int oldName = table.getName(position);
+        table.setName(position, names.retain(newEventName));
+        names.release(oldName);
+    }
+
+    /**
+     * The helper method removes the Event at a position and releases its name.
+     * @param position an int which is the position of the Event.
+     * @throws IndexOutOfBoundsException is thrown if there is no Event at the position.
+     */
+    private void removeRow(int position) {
+        int name = table.getName(position);
+        table.removeAt(position);
+        recurrences.remove(position);
+        names.release(name);
+    }
+
+    /**
+     * The helper method determines if there is an Event at a position.
+     * @param id an int which is the id of the Event.
+     * @throws DataExistenceException is thrown if the Event is not in the store.
+     */
+    private void checkExists(int id)
+            throws DataExistenceException {
+        if (id < 0 || id >= table.size()) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    /**
+     * The helper method determines if a priority is valid.
+     * @param priority an int which is an Event priority.
+     * @return a boolean which is true if the priority is valid and false otherwise.
+     */
+    private boolean isValidPriority(int priority) {
+        return (priority <= 3) && (priority >= 1);
+    }
+}
@@ -0,0 +1,286 @@
+package com.bcit.swch.swch;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * InMemoryNoteStore class is a store for Notes which keeps its rows in memory only.
+ *
+ * Rows are kept in primitive column arrays, with interned names and contents, so
+ * Notes which repeat the same text share it. It behaves like NoteDatabase, including
+ * its errors, and suits ephemeral data, tests and fast simulations of large datasets
+ * on a plain JVM.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class InMemoryNoteStore implements NoteStore {
+
+    /**
+     * The interned names of the Notes.
+     */
+    private final SymbolTable names = new SymbolTable();
+
+    /**
+     * The interned contents of the Notes.
+     */
+    private final SymbolTable contents = new SymbolTable();
+
+    /**
+     * The rows of the Notes, whose value column holds the contents symbol.
+     */
+    private final ColumnTable table = new ColumnTable();
+
+    @Override
+    public synchronized void addDataEntry(Object data)
+            throws DataExistenceException, IllegalPriorityException {
+        if (!(data instanceof Note)) {
+            throw new DataExistenceException("Data is not a Note.");
+        }
+
+        Note note = (Note) data;
+
+        if (table.contains(names.find(note.getName()), contents.find(note.getContents()))) {
+            throw new DataExistenceException("Data is already in database.");
+        }
+        table.add(names.retain(note.getName()), note.getPriority(), contents.retain(note.getContents()));
+    }
+
+    @Override
+    public synchronized BatchResult addDataEntries(Collection<?> data, boolean atomic) {
+        BatchResult result = new BatchResult();
+        int sizeBefore = table.size();
+        int position = 0;
+        for (Object item : data) {
+            DataExistenceException failure = null;
+            try {
+                addDataEntry(item);
+                result.addInserted();
+            } catch (DataExistenceException e) {
+                failure = e;
+            } catch (IllegalPriorityException e) {
+                failure = new DataExistenceException(e.getMessage());
+            }
+            if (failure != null) {
+                result.addFailure(position, failure);
+                if (atomic) {
+                    while (table.size() > sizeBefore) {
+                        removeRow(table.size() - 1);
+                    }
+                    result.setRolledBack();
+                    return result;
+                }
+            }
+            position++;
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void deleteDataEntry(int id)
+            throws DataExistenceException {
+        try {
+            removeRow(id);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    @Override
+    public synchronized int deleteDataEntries(int[] ids)
+            throws DataExistenceException {
+        for (int id : ids) {
+            checkExists(id);
+        }
+        int[] positions = ids.clone();
+        Arrays.sort(positions);
+        int deleted = 0;
+        for (int i = positions.length - 1; i >= 0; i--) {
+            if (i == positions.length - 1 || positions[i] != positions[i + 1]) {
+                removeRow(positions[i]);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized int deleteNotesWithPriority(int priority)
+            throws IllegalPriorityException {
+        if (!isValidPriority(priority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        int deleted = 0;
+        for (int i = table.size() - 1; i >= 0; i--) {
+            if (table.getPriority(i) == priority) {
+                removeRow(i);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes every Note and resets the primary key (the ID).
+     * @param table a string which is ignored, since the store holds a single table.
+     */
+    @Override
+    public synchronized void deleteAllData(String table) {
+        this.table.clear();
+        this.names.clear();
+        this.contents.clear();
+    }
+
+    /**
+     * Gets every Note, in the columns of the table of NoteDatabase.
+     * @param table a string which is ignored, since the store holds a single table.
+     * @return Cursor which contains a copy of every row.
+     */
+    @Override
+    public synchronized Cursor getAllData(String table) {
+        int size = this.table.size();
+        MatrixCursor cursor = new MatrixCursor(NoteDatabase.COLUMNS, size);
+        for (int i = 0; i < size; i++) {
+            cursor.addRow(new Object[] {this.table.getRowId(i), names.get(this.table.getName(i)),
+                    this.table.getPriority(i), contents.get(this.table.getValue(i))});
+        }
+        return cursor;
+    }
+
+    @Override
+    public synchronized Cursor getNoteList() {
+        int size = this.table.size();
+        MatrixCursor cursor = new MatrixCursor(NoteDatabase.LIST_COLUMNS, size);
+        for (int i = 0; i < size; i++) {
+            cursor.addRow(new Object[] {this.table.getRowId(i), names.get(this.table.getName(i)),
+                    this.table.getPriority(i)});
+        }
+        return cursor;
+    }
+
+    /**
+     * Gets the number of Notes in the store.
+     * @return int which is the number of Notes.
+     */
+    public synchronized int size() {
+        return table.size();
+    }
+
+    @Override
+    public synchronized Note getNote(int id)
+            throws DataExistenceException, IllegalPriorityException {
+        try {
+            return new Note(names.get(table.getName(id)), table.getPriority(id), contents.get(table.getValue(id)));
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    @Override
+    public synchronized void updateNote(String newNoteName, int newNotePriority, String newNoteContents, int id)
+            throws DataExistenceException, IllegalPriorityException {
+        updateNoteFields(newNoteName, newNotePriority, newNoteContents, id);
+    }
+
+    @Override
+    public synchronized void updateNoteFields(String newNoteName, Integer newNotePriority, String newNoteContents, int id)
+            throws DataExistenceException, IllegalPriorityException {
+        if (newNotePriority != null && !isValidPriority(newNotePriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        checkExists(id);
+        if (newNoteName != null) {
+            setName(id, newNoteName);
+        }
+        if (newNotePriority != null) {
+            table.setPriority(id, newNotePriority);
+        }
+        if (newNoteContents != null) {
+            setContents(id, newNoteContents);
+        }
+    }
+
+    @Override
+    public synchronized void updateNoteName(String newNoteName, int id)
+            throws DataExistenceException {
+        checkExists(id);
+        setName(id, newNoteName);
+    }
+
+    @Override
+    public synchronized void updateNotePriority(int newNotePriority, int id)
+            throws DataExistenceException, IllegalPriorityException {
+        if (!isValidPriority(newNotePriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        checkExists(id);
+        table.setPriority(id, newNotePriority);
+    }
+
+    @Override
+    public synchronized void updateNoteContents(String newNoteContents, int id)
+            throws DataExistenceException {
+        checkExists(id);
+        setContents(id, newNoteContents);
+    }
+
+    /**
+     * The helper method replaces the name of the Note at a position.
+     * @param position an int which is the position of the Note.
+     * @param newNoteName a string which is the new name.
+     */
+    private void setName(int position, String newNoteName) {
+        int oldName = table.getName(position);
+        table.setName(position, names.retain(newNoteName));
+        names.release(oldName);
+    }
+
+    /**
+     * The helper method replaces the contents of the Note at a position.
+     * @param position an int which is the position of the Note.
+     * @param newNoteContents a string which is the new contents.
+     */
+    private void setContents(int position, String newNoteContents) {
+        int oldContents = table.getValue(position);
+        table.setValue(position, contents.retain(newNoteContents));
+        contents.release(oldContents);
+    }
+
+    /**
+     * The helper method removes the Note at a position and releases its name and contents.
+     * @param position an int which is the position of the Note.
+     * @throws IndexOutOfBoundsException is thrown if there is no Note at the position.
+     */
+    private void removeRow(int position) {
+        int name = table.getName(position);
+        int noteContents = table.getValue(position);
+        table.removeAt(position);
+        names.release(name);
+        contents.release(noteContents);
+    }
+
+    /**
+     * The helper method determines if there is a Note at a position.
+     * @param id an int which is the id of the Note.
+     * @throws DataExistenceException is thrown if the Note is not in the store.
+     */
+    private void checkExists(int id)
+            throws DataExistenceException {
+        if (id < 0 || id >= table.size()) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    /**
+     * The helper method determines if a priority is valid.
+     * @param priority an int which is a Note priority.
+     * @return a boolean which is true if the priority is valid and false otherwise.
+     */
+    private boolean isValidPriority(int priority) {
+        return (priority <= 3) && (priority >= 1);
+    }
+}
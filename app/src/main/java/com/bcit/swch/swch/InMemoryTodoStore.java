@@ -0,0 +1,358 @@
+package com.bcit.swch.swch;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.PriorityQueue;
+
+/**
+ * InMemoryTodoStore class is a store for Todos which keeps its rows in memory only.
+ *
+ * Rows are kept in primitive column arrays, with interned names and due dates stored
+ * as packed yyyymmdd keys, so a large number of Todos takes little memory and no disk.
+ * It behaves like TodoDatabase, including its errors, and suits ephemeral data, tests
+ * and fast simulations of large datasets on a plain JVM.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class InMemoryTodoStore implements TodoStore {
+
+    /**
+     * The interned names of the Todos.
+     */
+    private final SymbolTable names = new SymbolTable();
+
+    /**
+     * The rows of the Todos, whose value column holds the due date key.
+     */
+    private final ColumnTable table = new ColumnTable();
+
+    @Override
+    public synchronized void addDataEntry(Object data)
+            throws DataExistenceException, IllegalPriorityException {
+        if (!(data instanceof Todo)) {
+            throw new DataExistenceException("Data is not a Todo.");
+        }
+
+        Todo todo = (Todo) data;
+
+        if (table.contains(names.find(todo.getName()), todo.getDueDateKey())) {
+            throw new DataExistenceException("Data is already in database.");
+        }
+        table.add(names.retain(todo.getName()), todo.getPriority(), todo.getDueDateKey());
+    }
+
+    @Override
+    public synchronized BatchResult addDataEntries(Collection<?> data, boolean atomic) {
+        BatchResult result = new BatchResult();
+        int sizeBefore = table.size();
+        int position = 0;
+        for (Object item : data) {
+            DataExistenceException failure = null;
+            try {
+                addDataEntry(item);
+                result.addInserted();
+            } catch (DataExistenceException e) {
+                failure = e;
+            } catch (IllegalPriorityException e) {
+                failure = new DataExistenceException(e.getMessage());
+            }
+            if (failure != null) {
+                result.addFailure(position, failure);
+                if (atomic) {
+                    while (table.size() > sizeBefore) {
+                        removeRow(table.size() - 1);
+                    }
+                    result.setRolledBack();
+                    return result;
+                }
+            }
+            position++;
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void deleteDataEntry(int id)
+            throws DataExistenceException {
+        try {
+            removeRow(id);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    @Override
+    public synchronized int deleteDataEntries(int[] ids)
+            throws DataExistenceException {
+        for (int id : ids) {
+            checkExists(id);
+        }
+        int[] positions = ids.clone();
+        Arrays.sort(positions);
+        int deleted = 0;
+        for (int i = positions.length - 1; i >= 0; i--) {
+            if (i == positions.length - 1 || positions[i] != positions[i + 1]) {
+                removeRow(positions[i]);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized int deleteTodosDueBefore(Date date) {
+        int deleted = 0;
+        for (int i = table.size() - 1; i >= 0; i--) {
+            int dateKey = table.getValue(i);
+            if (dateKey != 0 && dateKey < date.getKey()) {
+                removeRow(i);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized int deleteTodosWithPriority(int priority)
+            throws IllegalPriorityException {
+        if (!isValidPriority(priority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        int deleted = 0;
+        for (int i = table.size() - 1; i >= 0; i--) {
+            if (table.getPriority(i) == priority) {
+                removeRow(i);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes every Todo and resets the primary key (the ID).
+     * @param table a string which is ignored, since the store holds a single table.
+     */
+    @Override
+    public synchronized void deleteAllData(String table) {
+        this.table.clear();
+        this.names.clear();
+    }
+
+    /**
+     * Gets every Todo, in the columns of the table of TodoDatabase.
+     * @param table a string which is ignored, since the store holds a single table.
+     * @return Cursor which contains a copy of every row.
+     */
+    @Override
+    public synchronized Cursor getAllData(String table) {
+        int size = this.table.size();
+        MatrixCursor cursor = new MatrixCursor(TodoDatabase.COLUMNS, size);
+        for (int i = 0; i < size; i++) {
+            int dateKey = this.table.getValue(i);
+            cursor.addRow(new Object[] {this.table.getRowId(i), names.get(this.table.getName(i)),
+                    this.table.getPriority(i), Date.format(dateKey), dateKey});
+        }
+        return cursor;
+    }
+
+    /**
+     * Gets the number of Todos in the store.
+     * @return int which is the number of Todos.
+     */
+    public synchronized int size() {
+        return table.size();
+    }
+
+    @Override
+    public synchronized Todo getTodo(int id)
+            throws DataExistenceException, IllegalDateFormatException, IllegalPriorityException {
+        try {
+            return getTodoAt(id);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    @Override
+    public synchronized void updateTodo(String newTodoName, int newTodoPriority, String newTodoDueDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException {
+        updateTodoFields(newTodoName, newTodoPriority, newTodoDueDate, id);
+    }
+
+    @Override
+    public synchronized void updateTodoFields(String newTodoName, Integer newTodoPriority, String newTodoDueDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException {
+        if (newTodoPriority != null && !isValidPriority(newTodoPriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        int dateKey = newTodoDueDate != null ? Date.parse(newTodoDueDate) : 0;
+        checkExists(id);
+        if (newTodoName != null) {
+            setName(id, newTodoName);
+        }
+        if (newTodoPriority != null) {
+            table.setPriority(id, newTodoPriority);
+        }
+        if (newTodoDueDate != null) {
+            table.setValue(id, dateKey);
+        }
+    }
+
+    @Override
+    public synchronized void updateTodoName(String newTodoName, int id)
+            throws DataExistenceException {
+        checkExists(id);
+        setName(id, newTodoName);
+    }
+
+    @Override
+    public synchronized void updateTodoPriority(int newTodoPriority, int id)
+            throws DataExistenceException, IllegalPriorityException {
+        if (!isValidPriority(newTodoPriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        checkExists(id);
+        table.setPriority(id, newTodoPriority);
+    }
+
+    @Override
+    public synchronized void updateTodoDueDate(String newTodoDueDate, int id)
+            throws DataExistenceException, IllegalDateFormatException {
+        int dateKey = Date.parse(newTodoDueDate);
+        checkExists(id);
+        table.setValue(id, dateKey);
+    }
+
+    /**
+     * Gets the Todos due within a range of dates, ordered by date.
+     * The date key column is scanned, so the cost grows with the size of the store.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of the Todos within the range, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    @Override
+    public synchronized ArrayList<Todo> getTodosDueBetween(Date from, Date to)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        int size = table.size();
+        long[] matches = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int dateKey = table.getValue(i);
+            if (dateKey >= from.getKey() && dateKey <= to.getKey()) {
+                matches[count++] = ((long) dateKey << 32) | i;
+            }
+        }
+        Arrays.sort(matches, 0, count);
+
+        ArrayList<Todo> todos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            todos.add(getTodoAt((int) matches[i]));
+        }
+        return todos;
+    }
+
+    /**
+     * Gets the most urgent Todos: highest priority (1) first, then earliest date.
+     * Overdue Todos are included, since a Todo stays to be done after it is due.
+     * The store is scanned once, keeping the best k Todos seen in a bounded heap.
+     * @param k an int which is the largest number of Todos to return.
+     * @return ArrayList of at most k Todos, most urgent first.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    @Override
+    public synchronized ArrayList<Todo> getTopTodos(int k)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        ArrayList<Todo> todos = new ArrayList<>();
+        if (k <= 0) {
+            return todos;
+        }
+        PriorityQueue<Long> best = new PriorityQueue<>(k, Collections.<Long>reverseOrder());
+        int size = table.size();
+        for (int i = 0; i < size; i++) {
+            long key = (table.getPriority(i) * 100000000L + table.getValue(i)) << 32 | i;
+            if (best.size() < k) {
+                best.add(key);
+            } else if (key < best.peek()) {
+                best.poll();
+                best.add(key);
+            }
+        }
+
+        long[] keys = new long[best.size()];
+        int count = 0;
+        for (Long key : best) {
+            keys[count++] = key;
+        }
+        Arrays.sort(keys);
+        for (long key : keys) {
+            todos.add(getTodoAt((int) key));
+        }
+        return todos;
+    }
+
+    /**
+     * The helper method builds the Todo stored at a position.
+     * @param position an int which is the position of the Todo.
+     * @return Todo which is the Todo stored at the position.
+     * @throws IllegalDateFormatException is thrown if the stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    private Todo getTodoAt(int position)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        return new Todo(names.get(table.getName(position)), table.getPriority(position),
+                Date.format(table.getValue(position)));
+    }
+
+    /**
+     * The helper method replaces the name of the Todo at a position.
+     * @param position an int which is the position of the Todo.
+     * @param newTodoName a string which is the new name.
+     */
+    private void setName(int position, String newTodoName) {
+        int oldName = table.getName(position);
+        table.setName(position, names.retain(newTodoName));
+        names.release(oldName);
+    }
+
+    /**
+     * The helper method removes the Todo at a position and releases its name.
+     * @param position an int which is the position of the Todo.
+     * @throws IndexOutOfBoundsException is thrown if there is no Todo at the position.
+     */
+    private void removeRow(int position) {
+        int name = table.getName(position);
+        table.removeAt(position);
+        names.release(name);
+    }
+
+    /**
+     * The helper method determines if there is a Todo at a position.
+     * @param id an int which is the id of the Todo.
+     * @throws DataExistenceException is thrown if the Todo is not in the store.
+     */
+    private void checkExists(int id)
+            throws DataExistenceException {
+        if (id < 0 || id >= table.size()) {
+            throw new DataExistenceException("Data is not in database.");
+        }
+    }
+
+    /**
+     * The helper method determines if a priority is valid.
+     * @param priority an int which is a Todo priority.
+     * @return a boolean which is true if the priority is valid and false otherwise.
+     */
+    private boolean isValidPriority(int priority) {
+        return (priority <= 3) && (priority >= 1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.bcit.swch.swch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * IntervalIndex class finds the values whose ranges of int keys overlap a query range.
+ *
+ * The ranges are sorted by start and searched as an implicit balanced tree in which
+ * every node knows the largest end below it, so a query visits O(log n + k) nodes
+ * for k matches. The index is immutable once built.
+ *
+ * @param <T> the type of the values.
+ * @author SWCH
+ * @version 2017
+ */
+
+class IntervalIndex<T> {
+
+    /**
+     * The first key of each range, in ascending order.
+     */
+    private final int[] starts;
+
+    /**
+     * The last key of each range, in the order of the starts.
+     */
+    private final int[] ends;
+
+    /**
+     * The largest end of the subtree rooted at each position.
+     */
+    private final int[] maxEnds;
+
+    /**
+     * The values, in the order of the starts.
+     */
+    private final ArrayList<T> values;
+
+    /**
+     * The constructor which constructs an object of type IntervalIndex.
+     * @param values the values, one per range.
+     * @param starts an int array of the first key of each range (inclusive).
+     * @param ends an int array of the last key of each range (inclusive).
+     */
+    IntervalIndex(List<T> values, int[] starts, int[] ends) {
+        int size = values.size();
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) starts[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        this.starts = new int[size];
+        this.ends = new int[size];
+        this.maxEnds = new int[size];
+        this.values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int from = (int) order[i];
+            this.starts[i] = starts[from];
+            this.ends[i] = ends[from];
+            this.values.add(values.get(from));
+        }
+        build(0, size);
+    }
+
+    /**
+     * Gets the number of ranges in the index.
+     * @return int which is the number of ranges.
+     */
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * Finds the values whose ranges overlap a query range.
+     * @param from an int which is the first key of the query range (inclusive).
+     * @param to an int which is the last key of the query range (inclusive).
+     * @param matches the list the matching values are added to, in order of the start of their ranges.
+     */
+    void query(int from, int to, List<T> matches) {
+        query(0, values.size(), from, to, matches);
+    }
+
+    /**
+     * Helper method used to compute the largest end of each subtree.
+     * @param low an int which is the first position of the subtree.
+     * @param high an int which is the position after the last of the subtree.
+     * @return int which is the largest end of the subtree, or Integer.MIN_VALUE if it is empty.
+     */
+    private int build(int low, int high) {
+        if (low >= high) {
+            return Integer.MIN_VALUE;
+        }
+        int middle = (low + high) >>> 1;
+        maxEnds[middle] = Math.max(ends[middle], Math.max(build(low, middle), build(middle + 1, high)));
+        return maxEnds[middle];
+    }
+
+    /**
+     * Helper method used to search a subtree for the ranges which overlap a query range.
+     * @param low an int which is the first position of the subtree.
+     * @param high an int which is the position after the last of the subtree.
+     * @param from an int which is the first key of the query range.
+     * @param to an int which is the last key of the query range.
+     * @param matches the list the matching values are added to.
+     */
+    private void query(int low, int high, int from, int to, List<T> matches) {
+        if (low >= high) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        if (maxEnds[middle] < from) {
+            return;
+        }
+        query(low, middle, from, to, matches);
+        if (starts[middle] > to) {
+            return;
+        }
+        if (ends[middle] >= from) {
+            matches.add(values.get(middle));
+        }
+        query(middle + 1, high, from, to, matches);
+    }
+}
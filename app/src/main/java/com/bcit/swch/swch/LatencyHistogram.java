@@ -0,0 +1,117 @@
+package com.bcit.swch.swch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram class counts durations in buckets which double in width.
+ *
+ * Bucket 0 holds durations under 1 microsecond and bucket i holds durations from
+ * 2^(i-1) up to 2^i microseconds, so percentiles are accurate to within a factor of
+ * two. Recording is lock-free and allocates nothing.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class LatencyHistogram {
+
+    /**
+     * The number of buckets, enough for durations of over an hour.
+     */
+    static final int BUCKET_COUNT = 34;
+
+    /**
+     * The number of durations in each bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * The number of durations recorded.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The sum of the durations recorded, in nanoseconds.
+     */
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    /**
+     * The longest duration recorded, in nanoseconds.
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a duration.
+     * @param nanos a long which is the duration in nanoseconds.
+     */
+    void record(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Gets the number of durations recorded.
+     * @return long which is the number of durations.
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the sum of the durations recorded.
+     * @return long which is the sum in nanoseconds.
+     */
+    long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * Gets the longest duration recorded.
+     * @return long which is the duration in nanoseconds.
+     */
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets an upper bound of a percentile of the durations.
+     * @param percentile a double which is the percentile, from 0 to 100.
+     * @return long which is the upper bound of the bucket holding the percentile, in microseconds,
+     *         or 0 if nothing has been recorded.
+     */
+    long getPercentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Forgets every duration recorded.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,227 @@
+package com.bcit.swch.swch;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.io.File;
+
+/**
+ * LegacyImportMigration class copies a table from the separate database file used
+ * before the tables were combined into the combined database file.
+ *
+ * Rows are copied in order of ID with their IDs kept, a chunk at a time, and rows
+ * already copied are skipped, so an interrupted import resumes where it stopped.
+ * The old file is deleted once every row has been copied. A file which cannot be
+ * opened is left alone.
+ *
+ * The old files did not check their dates, so a date is repaired where its meaning
+ * is clear: leading zeros are dropped and a day past the end of its month, such as
+ * 2/31, is moved back to the last day of the month. A row whose date cannot be read
+ * at all, which the new tables could never load, is left out, logged and counted
+ * as a failed row of the progress.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class LegacyImportMigration extends Migration {
+
+    /**
+     * The tag of the log messages about rows which could not be imported.
+     */
+    private static final String TAG = "LegacyImportMigration";
+
+    /**
+     * The application context, used to find and delete the old database file.
+     */
+    private final Context context;
+
+    /**
+     * The name of the table, which is also the name of the old database file.
+     */
+    private final String table;
+
+    /**
+     * The columns to copy. The first column is the ID.
+     */
+    private final String[] columns;
+
+    /**
+     * The position within the columns of the month/day/year date column, or -1 if there is none.
+     */
+    private final int dateColumn;
+
+    /**
+     * The name of the date key column filled from the date column, or null if there is none.
+     */
+    private final String keyColumn;
+
+    /**
+     * The old database file, opened read-only once the migration starts copying.
+     */
+    private SQLiteDatabase legacy;
+
+    /**
+     * Whether the old database file was opened, and so may be deleted once it is copied.
+     */
+    private boolean opened;
+
+    /**
+     * The constructor which constructs an object of type LegacyImportMigration.
+     * @param version an int which is the version of the migration.
+     * @param context the application context.
+     * @param table a string which is the name of the table and of the old database file.
+     * @param dateColumn a string which is the name of the date column to fill the key from, or null.
+     * @param keyColumn a string which is the name of the date key column, or null.
+     * @param columns the names of the columns to copy, starting with the ID column.
+     */
+    LegacyImportMigration(int version, Context context, String table, String dateColumn, String keyColumn,
+                          String... columns) {
+        super(version, "import " + table);
+        this.context = context;
+        this.table = table;
+        this.columns = columns;
+        this.keyColumn = keyColumn;
+        int position = -1;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equals(dateColumn)) {
+                position = i;
+            }
+        }
+        this.dateColumn = position;
+    }
+
+    @Override
+    protected long countRows(SQLiteDatabase db) {
+        SQLiteDatabase source = openLegacy();
+        return source == null ? 0 : DatabaseUtils.queryNumEntries(source, table);
+    }
+
+    @Override
+    protected boolean migrateChunk(SQLiteDatabase db, MigrationProgress progress, int chunkSize) {
+        SQLiteDatabase source = openLegacy();
+        if (source == null) {
+            return false;
+        }
+
+        StringBuilder columnList = new StringBuilder();
+        StringBuilder parameters = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            columnList.append(i == 0 ? "" : ", ").append(columns[i]);
+            parameters.append(i == 0 ? "?" : ", ?");
+        }
+        String insertColumns = keyColumn == null ? columnList.toString() : columnList + ", " + keyColumn;
+        String insertParameters = keyColumn == null ? parameters.toString() : parameters + ", ?";
+
+        SQLiteStatement insert = db.compileStatement("INSERT OR IGNORE INTO " + table
+                + " (" + insertColumns + ") VALUES (" + insertParameters + ")");
+        Cursor cursor = source.rawQuery("SELECT " + columnList + " FROM " + table
+                + " WHERE " + columns[0] + " > ? ORDER BY " + columns[0] + " LIMIT ?",
+                new String[] {Long.toString(progress.getLastKey()), Integer.toString(chunkSize)});
+        try {
+            int count = 0;
+            long lastKey = progress.getLastKey();
+            while (cursor.moveToNext()) {
+                lastKey = cursor.getLong(0);
+                count++;
+                for (int i = 0; i < columns.length; i++) {
+                    if (cursor.isNull(i)) {
+                        insert.bindNull(i + 1);
+                    } else {
+                        insert.bindString(i + 1, cursor.getString(i));
+                    }
+                }
+                if (keyColumn != null) {
+                    int key = repairDate(cursor.getString(dateColumn));
+                    if (key == -1) {
+                        Log.w(TAG, "Left out row " + lastKey + " of " + table + " with unreadable date "
+                                + cursor.getString(dateColumn));
+                        progress.addFailedRows(1);
+                        continue;
+                    }
+                    insert.bindString(dateColumn + 1, Date.format(key));
+                    insert.bindLong(columns.length + 1, key);
+                }
+                insert.executeInsert();
+            }
+            progress.advance(lastKey, count);
+            return count == chunkSize;
+        } finally {
+            cursor.close();
+            insert.close();
+        }
+    }
+
+    @Override
+    protected void finish(SQLiteDatabase db) {
+        if (legacy != null) {
+            legacy.close();
+            legacy = null;
+        }
+        if (opened) {
+            context.deleteDatabase(table);
+        }
+    }
+
+    /**
+     * Reads a month/day/year date of an old row, repairing it where its meaning is clear.
+     * Leading zeros are accepted, and a day past the end of its month is moved back to
+     * the last day of the month, e.g. 2/31/2018 becomes 2/28/2018.
+     * @param date a string which is the date of the old row, or null.
+     * @return int which is the repaired date packed as yyyymmdd, or -1 if the date cannot be read.
+     */
+    static int repairDate(String date) {
+        if (date == null) {
+            return -1;
+        }
+        String[] fields = date.trim().split("/", -1);
+        if (fields.length != 3 || fields[2].length() != 4) {
+            return -1;
+        }
+        int[] values = new int[3];
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].isEmpty() || fields[i].length() > 4) {
+                return -1;
+            }
+            for (int j = 0; j < fields[i].length(); j++) {
+                char c = fields[i].charAt(j);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                values[i] = values[i] * 10 + (c - '0');
+            }
+        }
+        int month = values[0];
+        int day = values[1];
+        int year = values[2];
+        if (month < 1 || month > 12 || day < 1 || !Date.isValidKey(year * 10000 + month * 100 + 1)) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + Math.min(day, Date.daysInMonth(year, month));
+    }
+
+    /**
+     * Helper method used to open the old database file, if it exists.
+     * @return SQLiteDatabase which is the old database opened read-only, or null if there is none.
+     */
+    private SQLiteDatabase openLegacy() {
+        if (legacy == null) {
+            File file = context.getDatabasePath(table);
+            if (file == null || !file.exists()) {
+                return null;
+            }
+            try {
+                legacy = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+                opened = true;
+            } catch (SQLiteException e) {
+                return null;
+            }
+        }
+        return legacy;
+    }
+}
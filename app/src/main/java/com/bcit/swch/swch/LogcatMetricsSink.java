@@ -0,0 +1,26 @@
+package com.bcit.swch.swch;
+
+import android.util.Log;
+
+/**
+ * LogcatMetricsSink class writes the snapshots of a database's metrics to logcat.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class LogcatMetricsSink implements MetricsSink {
+
+    /**
+     * The tag of the log lines.
+     */
+    private static final String TAG = "DatabaseMetrics";
+
+    @Override
+    public void publish(MetricsSnapshot snapshot) {
+        Log.i(TAG, snapshot.getDatabaseName() + " transactions=" + snapshot.getTransactionCount());
+        for (OperationStats stats : snapshot.getOperations()) {
+            Log.i(TAG, snapshot.getDatabaseName() + " " + stats);
+        }
+    }
+}
@@ -6,20 +6,101 @@ import android.support.annotation.Nullable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.TextView;
 
 import com.example.burt.swch_planner.R;
 
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
 /**
  * Created by Burt on 2017-11-26.
  */
 
 public class MainFragment extends Fragment {
+    private static final int NEXT_ITEM_COUNT = 3;
+    private AsyncDatabase asyncDatabase;
+
     @Nullable
     @Override
     public View onCreateView(LayoutInflater inflater, @Nullable ViewGroup container, Bundle savedInstanceState) {
         View myView;
         myView = inflater.inflate(R.layout.main_layout, container, false);
+        showNextItems(myView);
         return myView;
 
     }
+
+    @Override
+    public void onDestroyView() {
+        if (asyncDatabase != null) {
+            asyncDatabase.shutdown();
+            asyncDatabase = null;
+        }
+        super.onDestroyView();
+    }
+
+    /**
+     * Shows the most urgent Todos and Events, merged by priority and then date.
+     * Each database reads only its first few rows from its priority index, so this
+     * takes the same time whatever the size of the tables.
+     * @param myView the view of the fragment.
+     */
+    private void showNextItems(View myView) {
+        final TextView[] nextTasks = {
+                (TextView) myView.findViewById(R.id.nextTask1),
+                (TextView) myView.findViewById(R.id.nextTask2),
+                (TextView) myView.findViewById(R.id.nextTask3)};
+        final TodoDatabase todoDatabase = new TodoDatabase(getActivity());
+        final EventDatabase eventDatabase = new EventDatabase(getActivity());
+        asyncDatabase = new AsyncDatabase(todoDatabase, eventDatabase, new NoteDatabase(getActivity()));
+
+        asyncDatabase.read(new Callable<ArrayList<String>>() {
+            @Override
+            public ArrayList<String> call() throws Exception {
+                ArrayList<Todo> todos = todoDatabase.getTopTodos(NEXT_ITEM_COUNT);
+                ArrayList<Event> events = eventDatabase.getTopEvents(NEXT_ITEM_COUNT);
+                ArrayList<String> items = new ArrayList<>();
+                int t = 0;
+                int e = 0;
+                while (items.size() < NEXT_ITEM_COUNT && (t < todos.size() || e < events.size())) {
+                    boolean takeTodo = e == events.size() || (t < todos.size()
+                            && urgency(todos.get(t).getPriority(), todos.get(t).getDueDateKey())
+                            <= urgency(events.get(e).getPriority(), events.get(e).getEventDateKey()));
+                    if (takeTodo) {
+                        Todo todo = todos.get(t++);
+                        items.add(">  " + todo.getName() + " (" + todo.getDueDate() + ")");
+                    } else {
+                        Event event = events.get(e++);
+                        items.add(">  " + event.getName() + " (" + event.getEventDate() + ")");
+                    }
+                }
+                return items;
+            }
+        }, new DatabaseCallback<ArrayList<String>>() {
+            @Override
+            public void onResult(ArrayList<String> items) {
+                for (int i = 0; i < nextTasks.length; i++) {
+                    nextTasks[i].setText(i < items.size() ? items.get(i) : "");
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                for (TextView nextTask : nextTasks) {
+                    nextTask.setText("");
+                }
+            }
+        });
+    }
+
+    /**
+     * Helper method used to order items by priority and then date.
+     * @param priority an int which is the priority of the item.
+     * @param dateKey an int which is the date of the item packed as yyyymmdd.
+     * @return long which is smaller for more urgent items.
+     */
+    private static long urgency(int priority, int dateKey) {
+        return priority * 100000000L + dateKey;
+    }
 }
@@ -0,0 +1,17 @@
+package com.bcit.swch.swch;
+
+/**
+ * MetricsSink interface receives the snapshots published by a database's metrics.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface MetricsSink {
+
+    /**
+     * Called with each published snapshot, on the thread which published it.
+     * @param snapshot the snapshot of the measurements.
+     */
+    void publish(MetricsSnapshot snapshot);
+}
@@ -0,0 +1,81 @@
+package com.bcit.swch.swch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MetricsSnapshot class represents the measurements of a database at one moment.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class MetricsSnapshot {
+
+    /**
+     * The name of the database measured.
+     */
+    private final String databaseName;
+
+    /**
+     * The time the snapshot was taken, in milliseconds since the epoch.
+     */
+    private final long timeMillis;
+
+    /**
+     * The number of transactions committed or rolled back by the database.
+     */
+    private final long transactionCount;
+
+    /**
+     * The measurements of each operation which has been called.
+     */
+    private final List<OperationStats> operations;
+
+    /**
+     * The constructor which constructs an object of type MetricsSnapshot.
+     * @param databaseName a string which is the name of the database measured.
+     * @param timeMillis a long which is the time of the snapshot in milliseconds since the epoch.
+     * @param transactionCount a long which is the number of transactions.
+     * @param operations the measurements of each operation.
+     */
+    MetricsSnapshot(String databaseName, long timeMillis, long transactionCount, ArrayList<OperationStats> operations) {
+        this.databaseName = databaseName;
+        this.timeMillis = timeMillis;
+        this.transactionCount = transactionCount;
+        this.operations = Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Gets the name of the database measured.
+     * @return string which is the name.
+     */
+    public String getDatabaseName() {
+        return this.databaseName;
+    }
+
+    /**
+     * Gets the time the snapshot was taken.
+     * @return long which is the time in milliseconds since the epoch.
+     */
+    public long getTimeMillis() {
+        return this.timeMillis;
+    }
+
+    /**
+     * Gets the number of transactions run by the database, including single-statement writes.
+     * @return long which is the number of transactions.
+     */
+    public long getTransactionCount() {
+        return this.transactionCount;
+    }
+
+    /**
+     * Gets the measurements of each operation which has been called.
+     * @return List of the measurements, one per operation.
+     */
+    public List<OperationStats> getOperations() {
+        return this.operations;
+    }
+}
@@ -0,0 +1,91 @@
+package com.bcit.swch.swch;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Migration class is an abstract class that represents one versioned change to
+ * the data of the database file.
+ *
+ * A migration copies or transforms rows a chunk at a time. Each chunk is run in
+ * its own transaction together with the saving of the migration's progress, so a
+ * large table never has to fit in memory or in one transaction, and a migration
+ * which is interrupted resumes after its last committed chunk. Every step must be
+ * safe to run again after an interruption.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public abstract class Migration {
+
+    /**
+     * The version of the migration. Migrations are run in order of version.
+     */
+    private final int version;
+
+    /**
+     * The name of the migration.
+     */
+    private final String name;
+
+    /**
+     * The constructor which constructs an object of type Migration.
+     * @param version an int which is the version of the migration, unique and greater than 0.
+     * @param name a string which is the name of the migration.
+     */
+    public Migration(int version, String name) {
+        this.version = version;
+        this.name = name;
+    }
+
+    /**
+     * Gets the version of the migration.
+     * @return int which is the version.
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Gets the name of the migration.
+     * @return string which is the name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Makes the schema changes the migration needs before its rows are migrated.
+     * Runs in a transaction, once, before the first chunk.
+     * @param db the database being migrated.
+     */
+    protected void prepare(SQLiteDatabase db) {
+    }
+
+    /**
+     * Counts the rows the migration will migrate, for reporting progress.
+     * @param db the database being migrated.
+     * @return long which is the number of rows, or -1 if it is not known.
+     */
+    protected long countRows(SQLiteDatabase db) {
+        return -1;
+    }
+
+    /**
+     * Migrates the next chunk of rows, starting after progress.getLastKey(), and
+     * records the chunk with progress.advance(). Runs in a transaction.
+     * @param db the database being migrated.
+     * @param progress the progress of the migration.
+     * @param chunkSize an int which is the largest number of rows to migrate.
+     * @return boolean which is true if rows may remain and false if the migration has migrated every row.
+     */
+    protected abstract boolean migrateChunk(SQLiteDatabase db, MigrationProgress progress, int chunkSize);
+
+    /**
+     * Cleans up after every row has been migrated, before the migration is recorded as complete.
+     * Runs outside a transaction.
+     * @param db the database being migrated.
+     */
+    protected void finish(SQLiteDatabase db) {
+    }
+}
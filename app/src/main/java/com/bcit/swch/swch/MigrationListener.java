@@ -0,0 +1,24 @@
+package com.bcit.swch.swch;
+
+/**
+ * MigrationListener interface receives the progress of the migrations run when
+ * the database file is opened. Both methods are called on the thread which opens the file.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface MigrationListener {
+
+    /**
+     * Called after each chunk of a migration is committed.
+     * @param progress the progress of the migration.
+     */
+    void onProgress(MigrationProgress progress);
+
+    /**
+     * Called when a migration is complete.
+     * @param progress the final progress of the migration, including its duration.
+     */
+    void onComplete(MigrationProgress progress);
+}
@@ -0,0 +1,178 @@
+package com.bcit.swch.swch;
+
+/**
+ * MigrationProgress class represents how far a migration has got.
+ *
+ * The progress is saved in the same transaction as each chunk of the migration,
+ * so a migration which is interrupted resumes after its last committed chunk.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class MigrationProgress {
+
+    /**
+     * The version of the migration.
+     */
+    private final int version;
+
+    /**
+     * The name of the migration.
+     */
+    private final String name;
+
+    /**
+     * The key of the last row migrated, which the next chunk starts after.
+     */
+    private long lastKey;
+
+    /**
+     * The number of rows migrated.
+     */
+    private long rowsDone;
+
+    /**
+     * The number of rows which could not be migrated during this run of the migration.
+     */
+    private long failedRows;
+
+    /**
+     * The number of rows the migration expects to migrate, or -1 if it is not known.
+     */
+    private long totalRows = -1;
+
+    /**
+     * The time spent running the migration, over every attempt, in milliseconds.
+     */
+    private long durationMillis;
+
+    /**
+     * Whether the migration is complete.
+     */
+    private boolean complete;
+
+    /**
+     * The constructor which constructs an object of type MigrationProgress.
+     * @param version an int which is the version of the migration.
+     * @param name a string which is the name of the migration.
+     * @param lastKey a long which is the key of the last row migrated.
+     * @param rowsDone a long which is the number of rows migrated.
+     * @param durationMillis a long which is the time spent so far in milliseconds.
+     * @param complete a boolean which is true if the migration is complete.
+     */
+    MigrationProgress(int version, String name, long lastKey, long rowsDone, long durationMillis, boolean complete) {
+        this.version = version;
+        this.name = name;
+        this.lastKey = lastKey;
+        this.rowsDone = rowsDone;
+        this.durationMillis = durationMillis;
+        this.complete = complete;
+    }
+
+    /**
+     * Records that a chunk of rows was migrated.
+     * @param lastKey a long which is the key of the last row of the chunk.
+     * @param rows an int which is the number of rows in the chunk.
+     */
+    public void advance(long lastKey, int rows) {
+        this.lastKey = lastKey;
+        this.rowsDone += rows;
+    }
+
+    /**
+     * Records that rows could not be migrated and were left out.
+     * @param rows an int which is the number of rows left out.
+     */
+    public void addFailedRows(int rows) {
+        this.failedRows += rows;
+    }
+
+    /**
+     * Sets the number of rows the migration expects to migrate.
+     * @param totalRows a long which is the number of rows, or -1 if it is not known.
+     */
+    void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    /**
+     * Adds time spent running the migration.
+     * @param millis a long which is the time in milliseconds.
+     */
+    void addDuration(long millis) {
+        this.durationMillis += millis;
+    }
+
+    /**
+     * Records that the migration is complete.
+     */
+    void setComplete() {
+        this.complete = true;
+    }
+
+    /**
+     * Gets the version of the migration.
+     * @return int which is the version.
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Gets the name of the migration.
+     * @return string which is the name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the key of the last row migrated.
+     * @return long which is the key, or 0 if no rows have been migrated.
+     */
+    public long getLastKey() {
+        return this.lastKey;
+    }
+
+    /**
+     * Gets the number of rows migrated.
+     * @return long which is the number of rows.
+     */
+    public long getRowsDone() {
+        return this.rowsDone;
+    }
+
+    /**
+     * Gets the number of rows which could not be migrated during this run of the migration.
+     * The count is not saved, so it starts again from 0 when an interrupted migration resumes.
+     * @return long which is the number of rows left out.
+     */
+    public long getFailedRows() {
+        return this.failedRows;
+    }
+
+    /**
+     * Gets the number of rows the migration expects to migrate.
+     * @return long which is the number of rows, or -1 if it is not known.
+     */
+    public long getTotalRows() {
+        return this.totalRows;
+    }
+
+    /**
+     * Gets the time spent running the migration, over every attempt.
+     * @return long which is the duration in milliseconds.
+     */
+    public long getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    /**
+     * Determines if the migration is complete.
+     * @return boolean which is true if the migration is complete and false otherwise.
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+}
@@ -0,0 +1,192 @@
+package com.bcit.swch.swch;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * MigrationRunner class runs the migrations of the database file which have not completed.
+ *
+ * The progress of every migration is kept in a table of the file. A migration is
+ * prepared once, then run a chunk per transaction until it has migrated every row,
+ * then finished and recorded as complete. If the app is stopped part way, the next
+ * open resumes each unfinished migration after its last committed chunk.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class MigrationRunner {
+
+    /**
+     * The default number of rows migrated in each transaction.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /**
+     * Name of the table which keeps the progress of the migrations.
+     */
+    private static final String TABLE_NAME = "schema_migrations";
+
+    /**
+     * The version column of the table for migration progress.
+     */
+    private static final String COL0 = "version";
+
+    /**
+     * The last key column of the table for migration progress.
+     */
+    private static final String COL1 = "last_key";
+
+    /**
+     * The rows done column of the table for migration progress.
+     */
+    private static final String COL2 = "rows_done";
+
+    /**
+     * The duration column of the table for migration progress.
+     */
+    private static final String COL3 = "duration_ms";
+
+    /**
+     * The completed column of the table for migration progress.
+     */
+    private static final String COL4 = "completed";
+
+    /**
+     * The statement which creates the table for migration progress.
+     */
+    private static final String CREATE_TABLE_QUERY = "CREATE TABLE IF NOT EXISTS " + TABLE_NAME
+            + " (" + COL0 + " INTEGER PRIMARY KEY, "
+                   + COL1 + " INTEGER NOT NULL, "
+                   + COL2 + " INTEGER NOT NULL, "
+                   + COL3 + " INTEGER NOT NULL, "
+                   + COL4 + " INTEGER NOT NULL)";
+
+    /**
+     * The query which selects the saved progress of a migration.
+     */
+    private static final String SELECT_PROGRESS_QUERY = "SELECT " + COL1 + ", " + COL2 + ", " + COL3 + ", " + COL4
+            + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = ?";
+
+    /**
+     * The migrations, in order of version.
+     */
+    private final ArrayList<Migration> migrations = new ArrayList<>();
+
+    /**
+     * The number of rows migrated in each transaction.
+     */
+    private final int chunkSize;
+
+    /**
+     * The constructor which constructs an object of type MigrationRunner.
+     * @param migrations the migrations to run.
+     * @param chunkSize an int which is the number of rows migrated in each transaction.
+     */
+    MigrationRunner(Migration[] migrations, int chunkSize) {
+        Collections.addAll(this.migrations, migrations);
+        Collections.sort(this.migrations, new Comparator<Migration>() {
+            @Override
+            public int compare(Migration a, Migration b) {
+                return a.getVersion() < b.getVersion() ? -1 : (a.getVersion() == b.getVersion() ? 0 : 1);
+            }
+        });
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Runs every migration which has not completed.
+     * Must be called outside a transaction so each chunk commits on its own.
+     * @param db the database to migrate.
+     * @param listener the listener which receives the progress, or null.
+     */
+    void run(SQLiteDatabase db, MigrationListener listener) {
+        db.execSQL(CREATE_TABLE_QUERY);
+        for (Migration migration : migrations) {
+            MigrationProgress progress = loadProgress(db, migration);
+            if (progress != null && progress.isComplete()) {
+                continue;
+            }
+
+            long start = SystemClock.elapsedRealtime();
+            if (progress == null) {
+                progress = new MigrationProgress(migration.getVersion(), migration.getName(), 0, 0, 0, false);
+                db.beginTransaction();
+                try {
+                    migration.prepare(db);
+                    saveProgress(db, progress);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+            progress.setTotalRows(migration.countRows(db));
+
+            boolean more = true;
+            while (more) {
+                db.beginTransaction();
+                try {
+                    more = migration.migrateChunk(db, progress, chunkSize);
+                    long now = SystemClock.elapsedRealtime();
+                    progress.addDuration(now - start);
+                    start = now;
+                    saveProgress(db, progress);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                if (listener != null) {
+                    listener.onProgress(progress);
+                }
+            }
+
+            migration.finish(db);
+            progress.addDuration(SystemClock.elapsedRealtime() - start);
+            progress.setComplete();
+            saveProgress(db, progress);
+            if (listener != null) {
+                listener.onComplete(progress);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to read the saved progress of a migration.
+     * @param db the database being migrated.
+     * @param migration the migration.
+     * @return MigrationProgress which is the saved progress, or null if the migration has not started.
+     */
+    private static MigrationProgress loadProgress(SQLiteDatabase db, Migration migration) {
+        Cursor cursor = db.rawQuery(SELECT_PROGRESS_QUERY, new String[] {Integer.toString(migration.getVersion())});
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new MigrationProgress(migration.getVersion(), migration.getName(),
+                    cursor.getLong(0), cursor.getLong(1), cursor.getLong(2), cursor.getInt(3) != 0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Helper method used to save the progress of a migration.
+     * @param db the database being migrated.
+     * @param progress the progress to save.
+     */
+    private static void saveProgress(SQLiteDatabase db, MigrationProgress progress) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL0, progress.getVersion());
+        contentValues.put(COL1, progress.getLastKey());
+        contentValues.put(COL2, progress.getRowsDone());
+        contentValues.put(COL3, progress.getDurationMillis());
+        contentValues.put(COL4, progress.isComplete() ? 1 : 0);
+        db.insertWithOnConflict(TABLE_NAME, null, contentValues, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
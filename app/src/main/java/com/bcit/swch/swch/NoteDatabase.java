@@ -3,9 +3,20 @@ package com.bcit.swch.swch;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 
 /**
  * NoteDatabase class is the database for Notes.
@@ -14,7 +25,7 @@ import java.util.ArrayList;
  * @version 2017
  */
 
-public class NoteDatabase extends Database {
+public class NoteDatabase extends Database implements NoteStore {
 
     /**
      * Name of the database table.
@@ -42,38 +53,302 @@ public class NoteDatabase extends Database {
     private static final String COL3 = "contents";
 
     /**
-     * The array list is used to manage the IDs of the data entries.
+     * The compressed contents column of the table for notes, which holds the contents
+     * of long notes as deflate bytes while the contents column is null.
      */
-    private static ArrayList<Integer> indexArrayList = new ArrayList<>();
+    private static final String COL4 = "contents_deflated";
+
+    /**
+     * The contents hash column of the table for notes, which holds a hash of the plain
+     * contents so duplicates are found without comparing compressed bytes.
+     */
+    private static final String COL5 = "contents_hash";
+
+    /**
+     * The columns of every Note, in order, as returned by getAllData.
+     */
+    static final String[] COLUMNS = {COL0, COL1, COL2, COL3};
+
+    /**
+     * The columns of a listing of Notes, in order. The contents are left out and read
+     * only when a single Note is opened.
+     */
+    static final String[] LIST_COLUMNS = {COL0, COL1, COL2};
+
+    /**
+     * The query which selects every Note with its stored contents, compressed or not.
+     */
+    private static final String SELECT_ALL_QUERY = "SELECT " + COL0 + ", " + COL1 + ", " + COL2 + ", " + COL3
+            + ", " + COL4 + " FROM " + TABLE_NAME;
+
+    /**
+     * The query which selects the listing columns of every Note.
+     */
+    private static final String SELECT_LIST_QUERY = "SELECT " + COL0 + ", " + COL1 + ", " + COL2
+            + " FROM " + TABLE_NAME;
+
+    /**
+     * The query which selects the listing columns of a page of Notes, ordered by ID.
+     */
+    private static final String SELECT_PAGE_QUERY = SELECT_LIST_QUERY
+            + " WHERE " + COL0 + " > ? ORDER BY " + COL0 + " LIMIT ?";
+
+    /**
+     * The query which selects a whole Note row given its row ID.
+     */
+    private static final String SELECT_ROW_QUERY = "SELECT " + COL1 + ", " + COL2 + ", " + COL3 + ", " + COL4
+            + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = ?";
+
+    /**
+     * The query which determines if a Note with the same name and contents hash exists.
+     * The hash is of the plain text, whether the contents are stored compressed or not.
+     */
+    private static final String EXISTS_QUERY = "SELECT EXISTS (SELECT 1 FROM " + TABLE_NAME
+            + " WHERE " + COL1 + " = ? AND " + COL5 + " IS ?)";
+
+    /**
+     * The query which selects the stored contents of the Notes with a name and contents hash,
+     * so a matching hash can be confirmed by comparing the contents.
+     */
+    private static final String SELECT_SAME_HASH_QUERY = "SELECT " + COL3 + ", " + COL4 + " FROM " + TABLE_NAME
+            + " WHERE " + COL1 + " = ? AND " + COL5 + " = ?";
+
+    /**
+     * The statement which inserts a Note row.
+     */
+    private static final String INSERT_QUERY = "INSERT INTO " + TABLE_NAME
+            + " (" + COL1 + ", " + COL2 + ", " + COL3 + ", " + COL4 + ", " + COL5 + ") VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * The statement which deletes a Note row given its row ID.
+     */
+    private static final String DELETE_QUERY = "DELETE FROM " + TABLE_NAME + " WHERE " + COL0 + " = ?";
+
+    /**
+     * The index on the name column used to find duplicate Notes.
+     */
+    private static final String CREATE_DUPLICATE_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_duplicate_index ON " + TABLE_NAME + " (" + COL1 + ")";
+
+    /**
+     * The index on the priority column used to delete the Notes of a priority.
+     */
+    static final String CREATE_PRIORITY_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_priority_index ON " + TABLE_NAME + " (" + COL2 + ")";
+
+    /**
+     * Name of the full-text index of the note names and contents.
+     */
+    private static final String FTS_TABLE_NAME = "note_fts";
+
+    /**
+     * The full-text index, whose docids are the row IDs of the notes.
+     * The index keeps its own plain copy of every name and contents, compressed or not,
+     * since FTS4 needs the old text of a row to remove its words when the row changes.
+     */
+    private static final String CREATE_FTS_TABLE_QUERY = "CREATE VIRTUAL TABLE " + FTS_TABLE_NAME
+            + " USING fts4(" + COL1 + ", " + COL3 + ")";
+
+    /**
+     * The triggers which keep the full-text index in step with the table.
+     * The triggers cannot inflate compressed contents, so a Note whose contents are
+     * compressed has its contents added to the index by the statement which writes it.
+     */
+    private static final String[] CREATE_FTS_TRIGGER_QUERIES = {
+            "CREATE TRIGGER IF NOT EXISTS " + FTS_TABLE_NAME + "_insert AFTER INSERT ON " + TABLE_NAME + " BEGIN"
+                    + " INSERT INTO " + FTS_TABLE_NAME + " (docid, " + COL1 + ", " + COL3 + ")"
+                    + " VALUES (new." + COL0 + ", new." + COL1 + ", new." + COL3 + "); END",
+            "CREATE TRIGGER IF NOT EXISTS " + FTS_TABLE_NAME + "_update_name AFTER UPDATE OF " + COL1
+                    + " ON " + TABLE_NAME + " BEGIN"
+                    + " UPDATE " + FTS_TABLE_NAME + " SET " + COL1 + " = new." + COL1
+                    + " WHERE docid = old." + COL0 + "; END",
+            "CREATE TRIGGER IF NOT EXISTS " + FTS_TABLE_NAME + "_update_contents AFTER UPDATE OF " + COL3
+                    + " ON " + TABLE_NAME + " WHEN new." + COL3 + " IS NOT NULL BEGIN"
+                    + " UPDATE " + FTS_TABLE_NAME + " SET " + COL3 + " = new." + COL3
+                    + " WHERE docid = old." + COL0 + "; END",
+            "CREATE TRIGGER IF NOT EXISTS " + FTS_TABLE_NAME + "_delete AFTER DELETE ON " + TABLE_NAME + " BEGIN"
+                    + " DELETE FROM " + FTS_TABLE_NAME + " WHERE docid = old." + COL0 + "; END"
+    };
+
+    /**
+     * The statement which sets the contents of a Note in the full-text index, used when
+     * the contents are stored compressed.
+     */
+    private static final String UPDATE_FTS_CONTENTS_QUERY = "UPDATE " + FTS_TABLE_NAME + " SET " + COL3 + " = ?"
+            + " WHERE docid = ?";
+
+    /**
+     * The query which finds the notes matching a search, with the statistics used to rank them.
+     */
+    private static final String SEARCH_QUERY = "SELECT docid, matchinfo(" + FTS_TABLE_NAME + ", 'pcnalx')"
+            + " FROM " + FTS_TABLE_NAME + " WHERE " + FTS_TABLE_NAME + " MATCH ?";
+
+    /**
+     * The weight of a match in the name column, relative to a match in the contents column.
+     */
+    private static final double NAME_WEIGHT = 2.0;
+
+    /**
+     * The term frequency saturation of the BM25 ranking.
+     */
+    private static final double BM25_K1 = 1.2;
+
+    /**
+     * The length normalization of the BM25 ranking.
+     */
+    private static final double BM25_B = 0.75;
+
+    /**
+     * The cache of recently used Notes, keyed by row ID, shared by every NoteDatabase.
+     */
+    private final RowCache<Note> rowCache = getSharedRowCache();
 
     /**
      * The constructor which constructs an object of type NoteDatabase.
      * @param context the application context.
      */
     public NoteDatabase(Context context) {
-        super(context, TABLE_NAME, null, 1);
+        super(context, TABLE_NAME);
     }
 
-    @Override
-    public void onCreate(SQLiteDatabase sqLiteDatabase) {
+    /**
+     * Creates the table for Notes, its indexes and its full-text index.
+     * @param sqLiteDatabase the database to create the table in.
+     */
+    static void createTable(SQLiteDatabase sqLiteDatabase) {
         String createTableQuery = "CREATE TABLE " + TABLE_NAME
                 + " (" + COL0 + " INTEGER PRIMARY KEY AUTOINCREMENT, "
                        + COL1 + " TEXT, "
                        + COL2 + " INT, "
-                       + COL3 + " TEXT)";
+                       + COL3 + " TEXT, "
+                       + COL4 + " BLOB, "
+                       + COL5 + " INTEGER)";
         sqLiteDatabase.execSQL(createTableQuery);
+        sqLiteDatabase.execSQL(CREATE_DUPLICATE_INDEX_QUERY);
+        sqLiteDatabase.execSQL(CREATE_PRIORITY_INDEX_QUERY);
+        createFullTextIndex(sqLiteDatabase);
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
-        onCreate(sqLiteDatabase);
+    /**
+     * Makes the migration which copies the Notes of the separate database file used
+     * before the tables were combined.
+     * The triggers on the table add the copied Notes to the full-text index.
+     * @param context the application context.
+     * @param version an int which is the version of the migration.
+     * @return Migration which copies the Notes.
+     */
+    static Migration createLegacyImport(Context context, int version) {
+        return new LegacyImportMigration(version, context, TABLE_NAME, null, null, COL0, COL1, COL2, COL3);
     }
 
+    /**
+     * Makes the migration which adds the compressed contents column to a table made before
+     * it existed and compresses the contents of the long Notes already in the table, a chunk
+     * at a time. The full-text index keeps the contents it already has.
+     * @param version an int which is the version of the migration.
+     * @return Migration which compresses the contents of long Notes.
+     */
+    static Migration createContentsCompression(int version) {
+        return new Migration(version, "compress note contents") {
+            @Override
+            protected void prepare(SQLiteDatabase db) {
+                if (!hasColumn(db, COL4)) {
+                    db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COL4 + " BLOB");
+                }
+                db.execSQL("DROP TRIGGER IF EXISTS " + FTS_TABLE_NAME + "_update");
+                for (String createTriggerQuery : CREATE_FTS_TRIGGER_QUERIES) {
+                    db.execSQL(createTriggerQuery);
+                }
+            }
+
+            @Override
+            protected long countRows(SQLiteDatabase db) {
+                return DatabaseUtils.queryNumEntries(db, TABLE_NAME, "length(" + COL3 + ") >= ?",
+                        new String[] {Integer.toString(CompressedText.THRESHOLD)});
+            }
+
+            @Override
+            protected boolean migrateChunk(SQLiteDatabase db, MigrationProgress progress, int chunkSize) {
+                SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_NAME + " SET " + COL3 + " = NULL, "
+                        + COL4 + " = ? WHERE " + COL0 + " = ?");
+                Cursor cursor = db.rawQuery("SELECT " + COL0 + ", " + COL3 + " FROM " + TABLE_NAME
+                        + " WHERE " + COL0 + " > ? AND length(" + COL3 + ") >= ? ORDER BY " + COL0 + " LIMIT ?",
+                        new String[] {Long.toString(progress.getLastKey()),
+                                Integer.toString(CompressedText.THRESHOLD), Integer.toString(chunkSize)});
+                try {
+                    int count = 0;
+                    long lastKey = progress.getLastKey();
+                    while (cursor.moveToNext()) {
+                        byte[] compressed = CompressedText.compress(cursor.getString(1));
+                        lastKey = cursor.getLong(0);
+                        if (compressed != null) {
+                            update.bindBlob(1, compressed);
+                            update.bindLong(2, lastKey);
+                            update.executeUpdateDelete();
+                        }
+                        count++;
+                    }
+                    progress.advance(lastKey, count);
+                    return count == chunkSize;
+                } finally {
+                    cursor.close();
+                    update.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Makes the migration which adds the contents hash column to a table made before it
+     * existed and hashes the contents of the Notes already in the table, a chunk at a time.
+     * @param version an int which is the version of the migration.
+     * @return Migration which hashes the contents of the Notes.
+     */
+    static Migration createContentsHash(int version) {
+        return new Migration(version, "hash note contents") {
+            @Override
+            protected void prepare(SQLiteDatabase db) {
+                if (!hasColumn(db, COL5)) {
+                    db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COL5 + " INTEGER");
+                }
+            }
+
+            @Override
+            protected long countRows(SQLiteDatabase db) {
+                return DatabaseUtils.queryNumEntries(db, TABLE_NAME, COL5 + " IS NULL");
+            }
+
+            @Override
+            protected boolean migrateChunk(SQLiteDatabase db, MigrationProgress progress, int chunkSize) {
+                SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_NAME + " SET " + COL5 + " = ?"
+                        + " WHERE " + COL0 + " = ?");
+                Cursor cursor = db.rawQuery("SELECT " + COL0 + ", " + COL3 + ", " + COL4 + " FROM " + TABLE_NAME
+                        + " WHERE " + COL0 + " > ? AND " + COL5 + " IS NULL ORDER BY " + COL0 + " LIMIT ?",
+                        new String[] {Long.toString(progress.getLastKey()), Integer.toString(chunkSize)});
+                try {
+                    int count = 0;
+                    long lastKey = progress.getLastKey();
+                    while (cursor.moveToNext()) {
+                        lastKey = cursor.getLong(0);
+                        DatabaseUtils.bindObjectToProgram(update, 1, contentsHash(readContents(cursor, 1)));
+                        update.bindLong(2, lastKey);
+                        update.executeUpdateDelete();
+                        count++;
+                    }
+                    progress.advance(lastKey, count);
+                    return count == chunkSize;
+                } finally {
+                    cursor.close();
+                    update.close();
+                }
+            }
+        };
+    }
 
     @Override
     public void addDataEntry(Object data)
             throws DataExistenceException, IllegalPriorityException {
+        long start = getMetrics().start();
         if (!(data instanceof Note)) {
             throw new DataExistenceException("Data is not a Note.");
         }
@@ -84,34 +359,160 @@ public class NoteDatabase extends Database {
             throw new DataExistenceException("Data is already in database.");
         }
 
-        updateIndexes();
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(COL1, note.getName());
-        contentValues.put(COL2, note.getPriority());
-        contentValues.put(COL3, note.getContents());
-        this.getWritableDatabase().insert(TABLE_NAME, null, contentValues);
+        long rowId = insertNote(note);
+        if (rowId != -1) {
+            RowIndex rowIndex = getRowIndex(TABLE_NAME);
+            rowIndex.add((int) rowId);
+            rowCache.put((int) rowId, note);
+            notifyChange(DataChange.INSERTED, (int) rowId, rowIndex.positionOf((int) rowId));
+        }
+        getMetrics().record(DatabaseMetrics.ADD, start);
+    }
+
+    @Override
+    public BatchResult addDataEntries(Collection<?> data, boolean atomic) {
+        long start = getMetrics().start();
+        BatchResult result = new BatchResult();
+        int[] rowIds = new int[data.size()];
+        int insertedCount = 0;
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement existsStatement = db.compileStatement(EXISTS_QUERY);
+        SQLiteStatement insertStatement = db.compileStatement(INSERT_QUERY);
+        SQLiteStatement ftsStatement = db.compileStatement(UPDATE_FTS_CONTENTS_QUERY);
+
+        db.beginTransaction();
+        try {
+            int position = 0;
+            for (Object item : data) {
+                try {
+                    if (!(item instanceof Note)) {
+                        throw new DataExistenceException("Data is not a Note.");
+                    }
+                    Note note = (Note) item;
+                    Object[] stored = storedContents(note.getContents());
+                    existsStatement.bindString(1, note.getName());
+                    DatabaseUtils.bindObjectToProgram(existsStatement, 2, stored[2]);
+                    if (existsStatement.simpleQueryForLong() != 0
+                            && hasSameContents(db, note, (Long) stored[2])) {
+                        throw new DataExistenceException("Data is already in database.");
+                    }
+                    insertStatement.bindString(1, note.getName());
+                    insertStatement.bindLong(2, note.getPriority());
+                    DatabaseUtils.bindObjectToProgram(insertStatement, 3, stored[0]);
+                    DatabaseUtils.bindObjectToProgram(insertStatement, 4, stored[1]);
+                    DatabaseUtils.bindObjectToProgram(insertStatement, 5, stored[2]);
+                    long rowId = insertStatement.executeInsert();
+                    if (stored[1] != null) {
+                        ftsStatement.bindString(1, note.getContents());
+                        ftsStatement.bindLong(2, rowId);
+                        ftsStatement.executeUpdateDelete();
+                    }
+                    rowIds[insertedCount++] = (int) rowId;
+                    result.addInserted();
+                } catch (DataExistenceException e) {
+                    result.addFailure(position, e);
+                    if (atomic) {
+                        result.setRolledBack();
+                        return result;
+                    }
+                }
+                position++;
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            getMetrics().recordTransaction();
+            existsStatement.close();
+            insertStatement.close();
+            ftsStatement.close();
+        }
+
+        RowIndex rowIndex = getRowIndex(TABLE_NAME);
+        for (int i = 0; i < insertedCount; i++) {
+            rowIndex.add(rowIds[i]);
+        }
+        notifyInserted(rowIndex, rowIds, insertedCount);
+        getMetrics().record(DatabaseMetrics.ADD_BATCH, start);
+        return result;
     }
 
     @Override
     public void deleteDataEntry(int id)
             throws DataExistenceException {
         try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            this.getWritableDatabase().delete(TABLE_NAME, COL0 + " = ?", new String[] {Integer.toString(index)});
-            this.getWritableDatabase().execSQL("VACUUM");
-            indexArrayList.remove(id);
+            long start = getMetrics().start();
+            RowIndex rowIndex = getRowIndex(TABLE_NAME);
+            int index = rowIndex.get(id);
+            executeUpdateDelete(DELETE_QUERY, index);
+            rowIndex.removeAt(id);
+            rowCache.remove(index);
+            notifyChange(DataChange.DELETED, index, id);
 
-            if (indexArrayList.size() == 0) {
+            if (rowIndex.size() == 0) {
+                countImplicitTransaction();
                 this.getWritableDatabase().execSQL("UPDATE SQLITE_SEQUENCE SET seq = 0 WHERE name = " + "'" + TABLE_NAME + "'");
             }
+            getCompactionScheduler().requestCompaction();
+            getMetrics().record(DatabaseMetrics.DELETE, start);
         } catch (IndexOutOfBoundsException e) {
             throw new DataExistenceException("Data is not in database.");
         }
     }
 
+    @Override
+    public int deleteDataEntries(int[] ids)
+            throws DataExistenceException {
+        return deleteRows(TABLE_NAME, ids, rowCache);
+    }
+
+    /**
+     * Deletes every Note of a priority with a single statement read from the priority index.
+     * @param priority an int which is the priority of the Notes to delete.
+     * @return int which is the number of Notes deleted.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    public int deleteNotesWithPriority(int priority)
+            throws IllegalPriorityException {
+        if (!isValidPriority(priority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        return deleteRowsWhere(TABLE_NAME, COL2 + " = ?", new String[] {Integer.toString(priority)}, rowCache);
+    }
+
+    @Override
+    public void deleteAllData(String table) {
+        super.deleteAllData(table);
+        rowCache.clear();
+        notifyChange(DataChange.CLEARED, -1, -1);
+    }
+
+    /**
+     * Gets every Note. The rows are read from the table a window at a time, and compressed
+     * contents are inflated only when the contents of a row are read.
+     * A listing which does not need the contents should use getNoteList instead.
+     * @param table a string which is the name of the database's table used to make the database.
+     * @return Cursor which contains a row for every Note, in the columns of COLUMNS.
+     */
+    @Override
+    public Cursor getAllData(String table) {
+        return new ContentsCursor(this.getReadableDatabase().rawQuery(SELECT_ALL_QUERY, null));
+    }
+
+    @Override
+    public Cursor getNoteList() {
+        return this.getReadableDatabase().rawQuery(SELECT_LIST_QUERY, null);
+    }
+
     /**
-     * Gets the Note from the database.
+     * Gets the cache of recently used Notes, which exposes its hit and miss counts.
+     * @return RowCache which is the cache of Notes.
+     */
+    public RowCache<Note> getRowCache() {
+        return rowCache;
+    }
+
+    /**
+     * Gets the Note from the database, inflating its contents if they are compressed.
      * @param id an int which is the id of the Note to retrieve from the data base.
      * @return Note the note containing all the data of the note.
      * @throws DataExistenceException is thrown if the Note is not in the database.
@@ -120,11 +521,18 @@ public class NoteDatabase extends Database {
     public Note getNote(int id)
             throws DataExistenceException, IllegalPriorityException {
         try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            return new Note(getNoteName(index),
-                            getNotePriority(index),
-                            getNoteContents(index));
+            long start = getMetrics().start();
+            int rowId = getRowIndex(TABLE_NAME).get(id);
+            Note note = rowCache.get(rowId);
+            int scanned = 0;
+            if (note == null) {
+                long version = rowCache.getVersion();
+                note = readNote(rowId);
+                rowCache.putIfCurrent(rowId, note, version);
+                scanned = 1;
+            }
+            getMetrics().record(DatabaseMetrics.GET, start, scanned, 1);
+            return note;
         } catch (IndexOutOfBoundsException e) {
             throw new DataExistenceException("Data is not in database.");
         }
@@ -141,9 +549,42 @@ public class NoteDatabase extends Database {
      */
     public void updateNote(String newNoteName, int newNotePriority, String newNoteContents, int id)
             throws DataExistenceException, IllegalPriorityException {
-        updateNoteName(newNoteName, id);
-        updateNotePriority(newNotePriority, id);
-        updateNoteContents(newNoteContents, id);
+        if (!isValidPriority(newNotePriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL1, newNoteName);
+        contentValues.put(COL2, newNotePriority);
+        updateRow(contentValues, putContents(contentValues, newNoteContents), id);
+    }
+
+    /**
+     * Updates only the given fields of the Note with a single statement.
+     * Fields which are null are left unchanged.
+     * @param newNoteName a string which is the new Note name to update to, or null.
+     * @param newNotePriority an Integer which is the new priority to update to, or null.
+     * @param newNoteContents a string which is the new contents to update to, or null.
+     * @param id an int which is the id of the Note to update.
+     * @throws DataExistenceException is thrown if the Note is not in the database.
+     * @throws IllegalPriorityException is thrown if the priority is not with the range of 1 - 3 (inclusive).
+     */
+    public void updateNoteFields(String newNoteName, Integer newNotePriority, String newNoteContents, int id)
+            throws DataExistenceException, IllegalPriorityException {
+        ContentValues contentValues = new ContentValues();
+        if (newNoteName != null) {
+            contentValues.put(COL1, newNoteName);
+        }
+        if (newNotePriority != null) {
+            if (!isValidPriority(newNotePriority)) {
+                throw new IllegalPriorityException("Invalid priority.");
+            }
+            contentValues.put(COL2, newNotePriority);
+        }
+        String indexedContents = null;
+        if (newNoteContents != null) {
+            indexedContents = putContents(contentValues, newNoteContents);
+        }
+        updateRow(contentValues, indexedContents, id);
     }
 
     /**
@@ -154,15 +595,9 @@ public class NoteDatabase extends Database {
      */
     public void updateNoteName(String newNoteName, int id)
             throws DataExistenceException {
-        try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL1, newNoteName);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
-        }
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL1, newNoteName);
+        updateRow(contentValues, null, id);
     }
 
     /**
@@ -177,15 +612,9 @@ public class NoteDatabase extends Database {
         if (!isValidPriority(newNotePriority)) {
             throw new IllegalPriorityException("Invalid priority.");
         }
-        try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL2, newNotePriority);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
-        }
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL2, newNotePriority);
+        updateRow(contentValues, null, id);
     }
 
     /**
@@ -196,106 +625,357 @@ public class NoteDatabase extends Database {
      */
     public void updateNoteContents(String newNoteContents, int id)
             throws DataExistenceException {
-        try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL3, newNoteContents);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
-        }
+        ContentValues contentValues = new ContentValues();
+        updateRow(contentValues, putContents(contentValues, newNoteContents), id);
     }
 
     /**
-     * The helper method gets the name of the Note given the id of the Note.
-     * @param id an int which is the id of the Note to get the name of.
-     * @return a string which is the name of the Note retrieved.
+     * Gets one page of the Notes, ordered by ID, without their contents.
+     * @param afterId a long which is the ID of the last Note of the previous page, or 0 for the first page.
+     * @param pageSize an int which is the largest number of Notes in the page.
+     * @return Cursor which contains the rows of the page, in the columns of LIST_COLUMNS.
      */
-    private String getNoteName(int id) {
-        String query = "SELECT " + COL1 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        String data = "";
+    public Cursor getNotePage(long afterId, int pageSize) {
+        return this.getReadableDatabase().rawQuery(SELECT_PAGE_QUERY,
+                new String[] {Long.toString(afterId), Integer.toString(pageSize)});
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                data += cursor.getString(0);
-            } while (cursor.moveToNext());
+    /**
+     * Searches the names and contents of the Notes.
+     * Every word of the query must appear in the Note, and the last word may be the
+     * start of a longer word. The Notes are ranked with BM25, where a match in the
+     * name counts more than a match in the contents.
+     * @param query a string which is the words to search for.
+     * @param limit an int which is the largest number of Notes to return.
+     * @return ArrayList of the matching Notes, best match first.
+     * @throws DataExistenceException is thrown if a matching Note is removed while it is being read.
+     * @throws IllegalPriorityException is thrown if a stored priority is not with the range of 1 - 3 (inclusive).
+     */
+    public ArrayList<Note> searchNotes(String query, int limit)
+            throws DataExistenceException, IllegalPriorityException {
+        long start = getMetrics().start();
+        ArrayList<Note> notes = new ArrayList<>();
+        String matchExpression = toMatchExpression(query);
+        if (matchExpression.isEmpty() || limit <= 0) {
+            return notes;
         }
-        return data;
+
+        PriorityQueue<double[]> best = new PriorityQueue<>(limit, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] a, double[] b) {
+                return Double.compare(a[1], b[1]);
+            }
+        });
+        int scanned = 0;
+        Cursor cursor = this.getReadableDatabase().rawQuery(SEARCH_QUERY, new String[] {matchExpression});
+        try {
+            while (cursor.moveToNext()) {
+                scanned++;
+                double score = rank(cursor.getBlob(1));
+                if (best.size() < limit) {
+                    best.add(new double[] {cursor.getLong(0), score});
+                } else if (score > best.peek()[1]) {
+                    best.poll();
+                    best.add(new double[] {cursor.getLong(0), score});
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+
+        double[][] ranked = best.toArray(new double[best.size()][]);
+        Arrays.sort(ranked, Collections.reverseOrder(best.comparator()));
+        for (double[] match : ranked) {
+            notes.add(getCachedNote((int) match[0]));
+        }
+        getMetrics().record(DatabaseMetrics.SEARCH, start, scanned, notes.size());
+        return notes;
     }
 
     /**
-     * The helper method gets the priority of the Note given the id of the Note.
-     * @param id an int which is the id of the Note to get the priority of.
-     * @return an int which is the priority of the Note retrieved.
+     * The helper method inserts a Note row, compressing its contents if they are long.
+     * A Note with compressed contents has them added to the full-text index in the same transaction.
+     * @param note the Note to insert.
+     * @return long which is the row ID of the inserted row, or -1 if it failed.
      */
-    private int getNotePriority(int id) {
-        String query = "SELECT " + COL2 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        int data = 0;
+    private long insertNote(Note note) {
+        Object[] stored = storedContents(note.getContents());
+        if (stored[1] == null) {
+            return executeInsert(INSERT_QUERY, note.getName(), note.getPriority(), stored[0], stored[1], stored[2]);
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long rowId = executeInsert(INSERT_QUERY, note.getName(), note.getPriority(),
+                    stored[0], stored[1], stored[2]);
+            if (rowId != -1) {
+                executeUpdateDelete(UPDATE_FTS_CONTENTS_QUERY, note.getContents(), rowId);
+            }
+            db.setTransactionSuccessful();
+            return rowId;
+        } finally {
+            db.endTransaction();
+            getMetrics().recordTransaction();
+        }
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                data = cursor.getInt(0);
-            } while (cursor.moveToNext());
+    /**
+     * The helper method updates the columns of a Note row with a single statement.
+     * @param contentValues the new values of the columns to update.
+     * @param indexedContents a string which is the new contents to add to the full-text index
+     *                        when they are stored compressed, or null.
+     * @param id an int which is the id of the Note to update.
+     * @throws DataExistenceException is thrown if the Note is not in the database.
+     */
+    private void updateRow(ContentValues contentValues, String indexedContents, int id)
+            throws DataExistenceException {
+        try {
+            long start = getMetrics().start();
+            int index = getRowIndex(TABLE_NAME).get(id);
+            if (contentValues.size() > 0) {
+                SQLiteDatabase db = this.getWritableDatabase();
+                if (indexedContents == null) {
+                    countImplicitTransaction();
+                    db.update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
+                } else {
+                    db.beginTransaction();
+                    try {
+                        db.update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
+                        executeUpdateDelete(UPDATE_FTS_CONTENTS_QUERY, indexedContents, index);
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                        getMetrics().recordTransaction();
+                    }
+                }
+                rowCache.remove(index);
+                notifyChange(DataChange.UPDATED, index, id);
+            }
+            getMetrics().record(DatabaseMetrics.UPDATE, start);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
         }
-        return data;
     }
 
     /**
-     * The helper method gets the contents of the Note given the id of the Note.
-     * @param id an int which is the id of the Note to get the contents of.
-     * @return a string which is the contents of the Note retrieved.
+     * The helper method gets a Note from the cache, reading it from the table if it is not cached.
+     * @param rowId an int which is the row ID of the Note.
+     * @return Note which is the Note stored in the row.
+     * @throws DataExistenceException is thrown if there is no row with the row ID.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
      */
-    private String getNoteContents(int id) {
-        String query = "SELECT " + COL3 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        String data = "";
+    private Note getCachedNote(int rowId)
+            throws DataExistenceException, IllegalPriorityException {
+        Note note = rowCache.get(rowId);
+        if (note == null) {
+            long version = rowCache.getVersion();
+            note = readNote(rowId);
+            rowCache.putIfCurrent(rowId, note, version);
+        }
+        return note;
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                data += cursor.getString(0);
-            } while (cursor.moveToNext());
+    /**
+     * The helper method reads a whole Note row with a single query.
+     * @param rowId an int which is the row ID of the Note to read.
+     * @return Note which is the Note stored in the row.
+     * @throws DataExistenceException is thrown if there is no row with the row ID.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    private Note readNote(int rowId)
+            throws DataExistenceException, IllegalPriorityException {
+        Cursor cursor = this.getReadableDatabase().rawQuery(SELECT_ROW_QUERY, new String[] {Integer.toString(rowId)});
+        try {
+            if (!cursor.moveToFirst()) {
+                throw new DataExistenceException("Data is not in database.");
+            }
+            return new Note(cursor.getString(0), cursor.getInt(1), readContents(cursor, 2));
+        } finally {
+            cursor.close();
         }
-        return data;
     }
 
     /**
      * The helper method determines if the Note is already in the database.
+     * Two Notes are the same if they have the same name and contents. The lookup is
+     * narrowed by the index on the name column and by the contents hash, and a matching
+     * hash is confirmed by comparing the contents.
      * @param note a Note object to determine if is is within the database.
      * @return a boolean which is true if the Note is in the database and false otherwise.
-     * @throws IllegalPriorityException is thrown if the priority is not with the range of 1 - 3 (inclusive).
      */
-    private boolean isDataInDatabase(Note note) throws IllegalPriorityException {
-        Cursor cursor = this.getAllData(TABLE_NAME);
-        boolean isInDatabase = false;
+    private boolean isDataInDatabase(Note note) {
+        Long hash = contentsHash(note.getContents());
+        return simpleQueryForLong(EXISTS_QUERY, note.getName(), hash) != 0
+                && hasSameContents(this.getReadableDatabase(), note, hash);
+    }
+
+    /**
+     * The helper method compares the contents of a Note with those of the stored Notes which
+     * have its name and contents hash, inflating them if they are compressed.
+     * @param db the database which holds the table.
+     * @param note the Note whose contents are compared.
+     * @param hash a Long which is the hash of the contents of the Note, or null if it has none.
+     * @return a boolean which is true if a stored Note has the same contents and false otherwise.
+     */
+    private static boolean hasSameContents(SQLiteDatabase db, Note note, Long hash) {
+        if (hash == null) {
+            // Only Notes without contents have no hash, so the match is exact.
+            return true;
+        }
+        Cursor cursor = db.rawQuery(SELECT_SAME_HASH_QUERY, new String[] {note.getName(), hash.toString()});
+        try {
+            while (cursor.moveToNext()) {
+                if (note.getContents().equals(readContents(cursor, 0))) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * The helper method gets the values of the contents columns which store contents.
+     * @param contents a string which is the contents of a Note.
+     * @return Object array of the value of the contents column, which is null if the contents
+     *         are compressed, of the compressed contents column, which is null otherwise,
+     *         and of the contents hash column.
+     */
+    private static Object[] storedContents(String contents) {
+        byte[] compressed = CompressedText.compress(contents);
+        Long hash = contentsHash(contents);
+        return compressed == null ? new Object[] {contents, null, hash} : new Object[] {null, compressed, hash};
+    }
+
+    /**
+     * The helper method hashes the plain contents of a Note.
+     * @param contents a string which is the contents of a Note, or null.
+     * @return Long which is the hash of the contents, or null if there are no contents.
+     */
+    private static Long contentsHash(String contents) {
+        return contents == null ? null : CompressedText.hash(contents);
+    }
+
+    /**
+     * The helper method reads the contents of a Note from a cursor, inflating them if they are compressed.
+     * @param cursor the cursor positioned on the row.
+     * @param column an int which is the index of the contents column, followed by the compressed contents column.
+     * @return a string which is the contents of the Note, or null if there are none.
+     */
+    private static String readContents(Cursor cursor, int column) {
+        return cursor.isNull(column) && !cursor.isNull(column + 1)
+                ? CompressedText.decompress(cursor.getBlob(column + 1)) : cursor.getString(column);
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                Note n = new Note(cursor.getString(1), cursor.getInt(2), cursor.getString(3));
-                if (note.equals(n)) {
-                    isInDatabase = true;
-                    break;
+    /**
+     * The helper method determines if a column is in the table for notes.
+     * @param db the database which holds the table.
+     * @param column a string which is the name of the column.
+     * @return a boolean which is true if the table has the column and false otherwise.
+     */
+    private static boolean hasColumn(SQLiteDatabase db, String column) {
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + TABLE_NAME + ")", null);
+        try {
+            while (cursor.moveToNext()) {
+                if (column.equals(cursor.getString(1))) {
+                    return true;
                 }
-            } while (cursor.moveToNext());
+            }
+            return false;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * The helper method puts new contents into the values of an update, compressed if they are long.
+     * @param contentValues the new values of the columns to update.
+     * @param contents a string which is the new contents of the Note.
+     * @return a string which is the contents to add to the full-text index if they are compressed,
+     *         or null if the triggers index them.
+     */
+    private static String putContents(ContentValues contentValues, String contents) {
+        byte[] compressed = CompressedText.compress(contents);
+        contentValues.put(COL5, contentsHash(contents));
+        if (compressed == null) {
+            contentValues.put(COL3, contents);
+            contentValues.putNull(COL4);
+            return null;
+        }
+        contentValues.putNull(COL3);
+        contentValues.put(COL4, compressed);
+        return contents;
+    }
+
+    /**
+     * The helper method creates the full-text index and the triggers which maintain it.
+     * @param sqLiteDatabase the database to create the index in.
+     */
+    private static void createFullTextIndex(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL(CREATE_FTS_TABLE_QUERY);
+        for (String createTriggerQuery : CREATE_FTS_TRIGGER_QUERIES) {
+            sqLiteDatabase.execSQL(createTriggerQuery);
         }
-        return isInDatabase;
     }
 
     /**
-     * The helper method updates the indexes of the Database.
+     * The helper method turns the words of a search into a full-text match expression.
+     * Each word is quoted so search syntax typed by the user is taken literally, and the
+     * last word is matched as a prefix, e.g. "buy" "appl*", so a word still being typed matches.
+     * @param query a string which is the words to search for.
+     * @return a string which is the match expression, or an empty string if there are no words.
      */
-    private void updateIndexes() {
-        String query = "SELECT * FROM " + TABLE_NAME;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        indexArrayList.clear();
+    static String toMatchExpression(String query) {
+        StringBuilder expression = new StringBuilder();
+        for (String word : query.trim().split("\\s+")) {
+            String term = word.replace("\"", "");
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (expression.length() > 0) {
+                expression.append(' ');
+            }
+            expression.append('"').append(term).append('"');
+        }
+        if (expression.length() > 0) {
+            expression.insert(expression.length() - 1, '*');
+        }
+        return expression.toString();
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                indexArrayList.add(cursor.getInt(0));
-            } while (cursor.moveToNext());
+    /**
+     * The helper method scores a match with BM25 from its full-text matchinfo statistics.
+     * @param matchInfo the matchinfo blob of the match, made with the format 'pcnalx'.
+     * @return a double which is the score of the match, higher being better.
+     */
+    private static double rank(byte[] matchInfo) {
+        IntBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phraseCount = info.get(0);
+        int columnCount = info.get(1);
+        double rowCount = info.get(2);
+        int averageLengths = 3;
+        int lengths = averageLengths + columnCount;
+        int hits = lengths + columnCount;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int hit = hits + 3 * (phrase * columnCount + column);
+                double termFrequency = info.get(hit);
+                if (termFrequency == 0) {
+                    continue;
+                }
+                double documentFrequency = info.get(hit + 2);
+                double idf = Math.max(Math.log((rowCount - documentFrequency + 0.5) / (documentFrequency + 0.5)), 1e-6);
+                double averageLength = Math.max(info.get(averageLengths + column), 1);
+                double length = info.get(lengths + column);
+                double weight = column == 0 ? NAME_WEIGHT : 1.0;
+                score += weight * idf * termFrequency * (BM25_K1 + 1)
+                        / (termFrequency + BM25_K1 * (1 - BM25_B + BM25_B * length / averageLength));
+            }
         }
+        return score;
     }
 
     /**
@@ -306,4 +986,70 @@ public class NoteDatabase extends Database {
     private boolean isValidPriority(int priority) {
         return (priority <= 3) && (priority >= 1);
     }
-}
\ No newline at end of file
+
+    /**
+     * ContentsCursor class shows the rows of SELECT_ALL_QUERY in the columns of COLUMNS,
+     * inflating the contents of the current row when they are read.
+     */
+    private static class ContentsCursor extends CursorWrapper {
+
+        /**
+         * The index of the contents column.
+         */
+        private static final int CONTENTS = 3;
+
+        /**
+         * The position of the row whose contents were last read, or -1 for none.
+         */
+        private int contentsPosition = -1;
+
+        /**
+         * The contents of the row at contentsPosition.
+         */
+        private String contents;
+
+        /**
+         * The constructor which constructs an object of type ContentsCursor.
+         * @param cursor the cursor over the rows of SELECT_ALL_QUERY.
+         */
+        ContentsCursor(Cursor cursor) {
+            super(cursor);
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String[] getColumnNames() {
+            return COLUMNS.clone();
+        }
+
+        @Override
+        public String getString(int column) {
+            if (column != CONTENTS) {
+                return super.getString(column);
+            }
+            int position = getPosition();
+            if (position != contentsPosition) {
+                contents = readContents(getWrappedCursor(), CONTENTS);
+                contentsPosition = position;
+            }
+            return contents;
+        }
+
+        @Override
+        public boolean isNull(int column) {
+            return super.isNull(column) && (column != CONTENTS || super.isNull(CONTENTS + 1));
+        }
+
+        @Override
+        public int getType(int column) {
+            if (column != CONTENTS) {
+                return super.getType(column);
+            }
+            return isNull(CONTENTS) ? FIELD_TYPE_NULL : FIELD_TYPE_STRING;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.bcit.swch.swch;
+
+import android.database.Cursor;
+
+/**
+ * NoteStore interface is the storage contract for Notes.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface NoteStore extends DataStore {
+
+    /**
+     * Gets the Note from the store.
+     * @param id an int which is the id of the Note to retrieve.
+     * @return Note the note containing all the data of the note.
+     * @throws DataExistenceException is thrown if the Note is not in the store.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    Note getNote(int id) throws DataExistenceException, IllegalPriorityException;
+
+    /**
+     * Gets the ID, name and priority of every Note, without their contents.
+     * @return Cursor which contains a row for every Note, in the columns of NoteDatabase.LIST_COLUMNS.
+     */
+    Cursor getNoteList();
+
+    /**
+     * Updates the Note to a new Note.
+     * @param newNoteName a string which is the new Note name to update to.
+     * @param newNotePriority an int which is the new priority to update to.
+     * @param newNoteContents a string which is the new contents to update to.
+     * @param id an int which is the id of the Note to update.
+     * @throws DataExistenceException is thrown if the Note is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    void updateNote(String newNoteName, int newNotePriority, String newNoteContents, int id)
+            throws DataExistenceException, IllegalPriorityException;
+
+    /**
+     * Updates only the given fields of the Note. Fields which are null are left unchanged.
+     * @param newNoteName a string which is the new Note name to update to, or null.
+     * @param newNotePriority an Integer which is the new priority to update to, or null.
+     * @param newNoteContents a string which is the new contents to update to, or null.
+     * @param id an int which is the id of the Note to update.
+     * @throws DataExistenceException is thrown if the Note is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    void updateNoteFields(String newNoteName, Integer newNotePriority, String newNoteContents, int id)
+            throws DataExistenceException, IllegalPriorityException;
+
+    /**
+     * Updates the name of the Note to a new Note name.
+     * @param newNoteName a string which is the new Note name to update to.
+     * @param id an int which is the id of the Note to update.
+     * @throws DataExistenceException is thrown if the Note is not in the store.
+     */
+    void updateNoteName(String newNoteName, int id) throws DataExistenceException;
+
+    /**
+     * Updates the priority of the Note to a new priority.
+     * @param newNotePriority an int which is the new priority to update to.
+     * @param id an int which is the id of the Note to update.
+     * @throws DataExistenceException is thrown if the Note is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    void updateNotePriority(int newNotePriority, int id) throws DataExistenceException, IllegalPriorityException;
+
+    /**
+     * Updates the contents of the Note to new contents.
+     * @param newNoteContents a string which is the new contents to update to.
+     * @param id an int which is the id of the Note to update.
+     * @throws DataExistenceException is thrown if the Note is not in the store.
+     */
+    void updateNoteContents(String newNoteContents, int id) throws DataExistenceException;
+
+    /**
+     * Deletes every Note of a priority.
+     * @param priority an int which is the priority of the Notes to delete.
+     * @return int which is the number of Notes deleted.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    int deleteNotesWithPriority(int priority) throws IllegalPriorityException;
+}
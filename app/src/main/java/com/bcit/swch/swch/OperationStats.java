@@ -0,0 +1,165 @@
+package com.bcit.swch.swch;
+
+import java.util.Locale;
+
+/**
+ * OperationStats class represents the measurements of one kind of database
+ * operation at the time of a snapshot.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class OperationStats {
+
+    /**
+     * The name of the operation.
+     */
+    private final String name;
+
+    /**
+     * The number of calls of the operation.
+     */
+    private final long count;
+
+    /**
+     * The total time spent in the operation, in nanoseconds.
+     */
+    private final long totalNanos;
+
+    /**
+     * The longest call of the operation, in nanoseconds.
+     */
+    private final long maxNanos;
+
+    /**
+     * The upper bound of the median call time, in microseconds.
+     */
+    private final long p50Micros;
+
+    /**
+     * The upper bound of the 90th percentile call time, in microseconds.
+     */
+    private final long p90Micros;
+
+    /**
+     * The upper bound of the 99th percentile call time, in microseconds.
+     */
+    private final long p99Micros;
+
+    /**
+     * The number of rows the operation read.
+     */
+    private final long rowsScanned;
+
+    /**
+     * The number of rows the operation returned to its callers.
+     */
+    private final long rowsReturned;
+
+    /**
+     * The constructor which constructs an object of type OperationStats.
+     * @param name a string which is the name of the operation.
+     * @param histogram the histogram of the call times of the operation.
+     * @param rowsScanned a long which is the number of rows read.
+     * @param rowsReturned a long which is the number of rows returned.
+     */
+    OperationStats(String name, LatencyHistogram histogram, long rowsScanned, long rowsReturned) {
+        this.name = name;
+        this.count = histogram.getCount();
+        this.totalNanos = histogram.getTotalNanos();
+        this.maxNanos = histogram.getMaxNanos();
+        this.p50Micros = histogram.getPercentileMicros(50);
+        this.p90Micros = histogram.getPercentileMicros(90);
+        this.p99Micros = histogram.getPercentileMicros(99);
+        this.rowsScanned = rowsScanned;
+        this.rowsReturned = rowsReturned;
+    }
+
+    /**
+     * Gets the name of the operation.
+     * @return string which is the name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of calls of the operation.
+     * @return long which is the number of calls.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the total time spent in the operation.
+     * @return long which is the time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * Gets the mean call time of the operation.
+     * @return long which is the mean in nanoseconds, or 0 if there were no calls.
+     */
+    public long getMeanNanos() {
+        return this.count == 0 ? 0 : this.totalNanos / this.count;
+    }
+
+    /**
+     * Gets the longest call of the operation.
+     * @return long which is the time in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    /**
+     * Gets the upper bound of the median call time.
+     * @return long which is the time in microseconds.
+     */
+    public long getP50Micros() {
+        return this.p50Micros;
+    }
+
+    /**
+     * Gets the upper bound of the 90th percentile call time.
+     * @return long which is the time in microseconds.
+     */
+    public long getP90Micros() {
+        return this.p90Micros;
+    }
+
+    /**
+     * Gets the upper bound of the 99th percentile call time.
+     * @return long which is the time in microseconds.
+     */
+    public long getP99Micros() {
+        return this.p99Micros;
+    }
+
+    /**
+     * Gets the number of rows the operation read.
+     * @return long which is the number of rows.
+     */
+    public long getRowsScanned() {
+        return this.rowsScanned;
+    }
+
+    /**
+     * Gets the number of rows the operation returned to its callers.
+     * @return long which is the number of rows.
+     */
+    public long getRowsReturned() {
+        return this.rowsReturned;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s count=%d mean=%dus p50<=%dus p90<=%dus p99<=%dus max=%dus scanned=%d returned=%d",
+                name, count, getMeanNanos() / 1000, p50Micros, p90Micros, p99Micros, maxNanos / 1000,
+                rowsScanned, rowsReturned);
+    }
+}
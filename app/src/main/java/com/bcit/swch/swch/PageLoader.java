@@ -0,0 +1,26 @@
+package com.bcit.swch.swch;
+
+import java.util.List;
+
+/**
+ * PageLoader interface loads a list one page at a time using keyset pagination.
+ * Each page starts after the key of the last item of the previous page, so
+ * loading a page costs the same no matter how far down the list it is.
+ *
+ * @param <T> the type of the items in the list.
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface PageLoader<T> {
+
+    /**
+     * Loads the page of items which follows a key.
+     * Called on a background thread.
+     * @param afterKey a long which is the key of the last loaded item, or 0 for the first page.
+     * @param pageSize an int which is the largest number of items to load.
+     * @param items the list the loaded items are added to.
+     * @return long which is the key of the last item loaded.
+     */
+    long loadPage(long afterKey, int pageSize, List<T> items);
+}
@@ -0,0 +1,295 @@
+package com.bcit.swch.swch;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * PagedListAdapter class shows a list which is loaded one page at a time.
+ *
+ * Only the first page is loaded up front. The next page is loaded on a background
+ * thread once the list is scrolled to within a page of the end of the loaded items,
+ * so the time to show the list and the memory it holds do not depend on how many
+ * rows exist.
+ *
+ * As a DataChangeListener of its database the list applies inserts, updates and
+ * deletes to the loaded items instead of reloading them. This needs the pages to be
+ * loaded in row ID order with the row ID as the key, as the paging of the databases does.
+ *
+ * @param <T> the type of the items in the list.
+ * @author SWCH
+ * @version 2017
+ */
+
+public class PagedListAdapter<T> extends BaseAdapter implements DataChangeListener {
+
+    /**
+     * The background thread shared by the page loads of every list.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "list-page-loader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * The handler used to hand loaded pages back to the UI thread.
+     */
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The inflater used to make the views of the items.
+     */
+    private final LayoutInflater inflater;
+
+    /**
+     * The loader which loads the pages of the list.
+     */
+    private final PageLoader<T> pageLoader;
+
+    /**
+     * The largest number of items loaded at once.
+     */
+    private final int pageSize;
+
+    /**
+     * The items loaded so far.
+     */
+    private final ArrayList<T> items = new ArrayList<>();
+
+    /**
+     * The key of the last item loaded.
+     */
+    private long lastKey;
+
+    /**
+     * The number of times pages being loaded have been made stale, used to drop them.
+     */
+    private int generation;
+
+    /**
+     * The number of times the list has been reloaded, used to drop stale refreshes.
+     */
+    private int reloads;
+
+    /**
+     * The number of items removed from the list, used to detect refreshes whose position has moved.
+     */
+    private int removals;
+
+    /**
+     * Whether a page is being loaded.
+     */
+    private boolean loading;
+
+    /**
+     * Whether the last page has been loaded.
+     */
+    private boolean exhausted;
+
+    /**
+     * The constructor which constructs an object of type PagedListAdapter and loads the first page.
+     * @param context the context the list is shown in.
+     * @param pageSize an int which is the largest number of items loaded at once.
+     * @param pageLoader the loader which loads the pages of the list.
+     */
+    public PagedListAdapter(Context context, int pageSize, PageLoader<T> pageLoader) {
+        this.inflater = LayoutInflater.from(context);
+        this.pageSize = pageSize;
+        this.pageLoader = pageLoader;
+        loadNextPage();
+    }
+
+    /**
+     * Drops every loaded item and loads the list again from the first page.
+     */
+    public void reload() {
+        items.clear();
+        generation++;
+        reloads++;
+        lastKey = 0;
+        exhausted = false;
+        notifyDataSetChanged();
+        loadNextPage();
+    }
+
+    /**
+     * Hands the changes of the database to the UI thread to be applied to the list.
+     * @param database the database which changed.
+     * @param changes the changes, in the order they were made.
+     */
+    @Override
+    public void onDataChanged(Database database, final List<DataChange> changes) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                applyChanges(changes);
+            }
+        });
+    }
+
+    /**
+     * Applies changes of the database to the loaded items.
+     * Deleted items are removed, updated items are read again on the background thread,
+     * and inserted items, which come after every loaded item, are left to the next page.
+     * Must be called from the UI thread.
+     * @param changes the changes, in the order they were made.
+     */
+    public void applyChanges(List<DataChange> changes) {
+        boolean changed = false;
+        boolean inserted = false;
+        for (DataChange change : changes) {
+            int position = change.getPosition();
+            switch (change.getType()) {
+                case DataChange.CLEARED:
+                    reload();
+                    return;
+                case DataChange.DELETED:
+                    if (position < items.size()) {
+                        items.remove(position);
+                        removals++;
+                        changed = true;
+                    } else if (loading) {
+                        // The page being loaded may hold the deleted row, so it is loaded again.
+                        generation++;
+                    }
+                    break;
+                case DataChange.UPDATED:
+                    if (position < items.size()) {
+                        refreshItem(change.getRowId(), position);
+                    }
+                    break;
+                case DataChange.INSERTED:
+                    inserted = true;
+                    break;
+            }
+        }
+        if (changed) {
+            notifyDataSetChanged();
+        }
+        if (inserted && exhausted) {
+            exhausted = false;
+            loadNextPage();
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return items.size();
+    }
+
+    @Override
+    public T getItem(int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (position >= items.size() - pageSize) {
+            loadNextPage();
+        }
+
+        View view = convertView;
+        if (view == null) {
+            view = inflater.inflate(android.R.layout.simple_list_item_1, parent, false);
+        }
+        ((TextView) view.findViewById(android.R.id.text1)).setText(getLabel(items.get(position)));
+        return view;
+    }
+
+    /**
+     * Gets the text shown for an item.
+     * @param item the item to show.
+     * @return CharSequence which is the text of the item.
+     */
+    protected CharSequence getLabel(T item) {
+        return String.valueOf(item);
+    }
+
+    /**
+     * Helper method used to read an updated item again on the background thread.
+     * If items are removed before it is read, its position is no longer known and the
+     * list is reloaded instead.
+     * @param rowId an int which is the row ID of the item.
+     * @param position an int which is the position of the item.
+     */
+    private void refreshItem(final int rowId, final int position) {
+        final int refreshReloads = reloads;
+        final int refreshRemovals = removals;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> page = new ArrayList<>(1);
+                pageLoader.loadPage(rowId - 1, 1, page);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (refreshReloads != reloads) {
+                            return;
+                        }
+                        if (refreshRemovals != removals) {
+                            reload();
+                        } else if (!page.isEmpty() && position < items.size()) {
+                            items.set(position, page.get(0));
+                            notifyDataSetChanged();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Helper method used to load the next page on the background thread.
+     * Must be called from the UI thread.
+     */
+    private void loadNextPage() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        final long afterKey = lastKey;
+        final int loadGeneration = generation;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> page = new ArrayList<>(pageSize);
+                final long pageLastKey = pageLoader.loadPage(afterKey, pageSize, page);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        loading = false;
+                        if (loadGeneration != generation) {
+                            // The list was reloaded or changed while this page was loading.
+                            loadNextPage();
+                            return;
+                        }
+                        items.addAll(page);
+                        lastKey = pageLastKey;
+                        exhausted = page.size() < pageSize;
+                        notifyDataSetChanged();
+                    }
+                });
+            }
+        });
+    }
+}
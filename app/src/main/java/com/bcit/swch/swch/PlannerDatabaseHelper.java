@@ -0,0 +1,247 @@
+package com.bcit.swch.swch;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Build;
+
+import java.util.HashMap;
+
+/**
+ * PlannerDatabaseHelper class opens the single database file which holds the
+ * tables for Todos, Events and Notes.
+ *
+ * Every Database shares one instance, and so one connection, page cache and journal.
+ * The helper also keeps the state held in memory for each table, so every Database
+ * of a table shares one index of positions, row cache and set of change listeners,
+ * and every Database shares the one scheduler which compacts the file.
+ *
+ * Changes to the data are made by versioned migrations, never by dropping tables.
+ * The migrations which have not completed are run each time the file is opened,
+ * outside the open transaction, so each chunk of rows commits on its own and an
+ * interrupted migration resumes on the next open. The first migrations copy the
+ * Todos, Events and Notes of the separate database files used by earlier versions.
+ *
+ * The journaling and caching settings of the DatabaseConfig are applied each time the
+ * file is opened: in onConfigure where the platform calls it, and otherwise in onOpen.
+ * A new file is made with incremental auto-vacuum, so compactions release free pages
+ * without rebuilding the file.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class PlannerDatabaseHelper extends SQLiteOpenHelper {
+
+    /**
+     * Name of the database file.
+     */
+    private static final String DATABASE_NAME = "swch_planner.db";
+
+    /**
+     * The version of the database.
+     */
+    private static final int DATABASE_VERSION = 1;
+
+    /**
+     * The helper shared by every Database.
+     */
+    private static PlannerDatabaseHelper instance;
+
+    /**
+     * The application context.
+     */
+    private final Context context;
+
+    /**
+     * The journaling and caching settings applied when the file is opened.
+     */
+    private volatile DatabaseConfig config = DatabaseConfig.DEFAULT;
+
+    /**
+     * Whether the settings have been applied to the connection being opened.
+     */
+    private boolean configured;
+
+    /**
+     * The runner of the migrations of the file.
+     */
+    private final MigrationRunner migrationRunner;
+
+    /**
+     * The listener which receives the progress of the migrations, or null.
+     */
+    private volatile MigrationListener migrationListener;
+
+    /**
+     * The scheduler which reclaims the space freed by deletes from the file.
+     */
+    private final CompactionScheduler compactionScheduler = new CompactionScheduler(this);
+
+    /**
+     * The state held in memory for each table, keyed by the name of the table.
+     */
+    private final HashMap<String, TableState> tableStates = new HashMap<>();
+
+    /**
+     * The constructor which constructs an object of type PlannerDatabaseHelper.
+     * @param context the application context.
+     */
+    private PlannerDatabaseHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context;
+        this.migrationRunner = new MigrationRunner(new Migration[] {
+                TodoDatabase.createLegacyImport(context, 1),
+                EventDatabase.createLegacyImport(context, 2),
+                NoteDatabase.createLegacyImport(context, 3),
+                new SchemaMigration(4, "add priority indexes",
+                        TodoDatabase.CREATE_PRIORITY_INDEX_QUERY, EventDatabase.CREATE_PRIORITY_INDEX_QUERY),
+                new SchemaMigration(5, "add note priority index", NoteDatabase.CREATE_PRIORITY_INDEX_QUERY),
+                EventDatabase.createRecurrenceColumns(6),
+                DayCounts.createMigration(7),
+                NoteDatabase.createContentsCompression(8),
+                CompactionScheduler.createAutoVacuumMigration(9),
+                NoteDatabase.createContentsHash(10)
+        }, MigrationRunner.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Gets the helper shared by every Database.
+     * @param context a context of the application.
+     * @return PlannerDatabaseHelper which is the shared helper.
+     */
+    static synchronized PlannerDatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new PlannerDatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Closes the shared helper and forgets it, with the state of its tables, so the next
+     * Database opens the file again. Used by tests, which each run with a new application.
+     */
+    static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    /**
+     * Gets the state held in memory for a table, shared by every Database of the table.
+     * @param table a string which is the name of the table.
+     * @return TableState which is the state of the table.
+     */
+    synchronized TableState getTableState(String table) {
+        TableState state = tableStates.get(table);
+        if (state == null) {
+            state = new TableState(table, Database.ROW_CACHE_SIZE);
+            tableStates.put(table, state);
+        }
+        return state;
+    }
+
+    /**
+     * Gets the scheduler which reclaims the space freed by deletes from the file.
+     * @return CompactionScheduler which is the scheduler shared by every Database.
+     */
+    CompactionScheduler getCompactionScheduler() {
+        return this.compactionScheduler;
+    }
+
+    /**
+     * Sets the journaling and caching settings of the database file.
+     * The settings take effect the next time the file is opened.
+     * @param config the settings to apply.
+     */
+    void setConfig(DatabaseConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Gets the journaling and caching settings of the database file.
+     * @return DatabaseConfig which is the settings applied when the file is opened.
+     */
+    DatabaseConfig getConfig() {
+        return this.config;
+    }
+
+    /**
+     * Sets the listener which receives the progress of the migrations.
+     * @param listener the listener, or null for none.
+     */
+    void setMigrationListener(MigrationListener listener) {
+        this.migrationListener = listener;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase sqLiteDatabase) {
+        super.onConfigure(sqLiteDatabase);
+        // Write-ahead logging fixes the auto-vacuum mode of a new file, so it is set first.
+        pragma(sqLiteDatabase, CompactionScheduler.AUTO_VACUUM_QUERY);
+        applyConfig(sqLiteDatabase);
+        configured = true;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase sqLiteDatabase) {
+        pragma(sqLiteDatabase, CompactionScheduler.AUTO_VACUUM_QUERY);
+        DayCounts.createTable(sqLiteDatabase);
+        TodoDatabase.createTable(sqLiteDatabase);
+        EventDatabase.createTable(sqLiteDatabase);
+        NoteDatabase.createTable(sqLiteDatabase);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
+        // Data is changed by migrations run in onOpen, where each chunk can commit on its own.
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase sqLiteDatabase) {
+        super.onOpen(sqLiteDatabase);
+        if (!configured && !sqLiteDatabase.isReadOnly()) {
+            applyConfig(sqLiteDatabase);
+        }
+        configured = false;
+        if (!sqLiteDatabase.isReadOnly()) {
+            migrationRunner.run(sqLiteDatabase, migrationListener);
+        }
+    }
+
+    /**
+     * Helper method used to apply the journaling and caching settings to a connection.
+     * @param db the database being opened.
+     */
+    private void applyConfig(SQLiteDatabase db) {
+        DatabaseConfig settings = config;
+        if (settings.isWriteAheadLogging()) {
+            db.enableWriteAheadLogging();
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            db.disableWriteAheadLogging();
+        } else {
+            // disableWriteAheadLogging was added in API 16, so the journal is switched back directly.
+            pragma(db, "PRAGMA journal_mode = DELETE");
+        }
+        pragma(db, "PRAGMA synchronous = " + settings.getSynchronous());
+        pragma(db, "PRAGMA cache_size = " + settings.getCacheSize());
+        pragma(db, "PRAGMA mmap_size = " + settings.getMmapSize());
+    }
+
+    /**
+     * Helper method used to run a pragma whether or not it returns a row.
+     * Versions of SQLite which do not know a pragma ignore it.
+     * @param db the database being opened.
+     * @param sql a string which is the pragma to run.
+     */
+    private static void pragma(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.bcit.swch.swch;
+
+import java.util.Arrays;
+
+/**
+ * Recurrence class represents the rule by which an event repeats: every so many
+ * days, weeks or months from its date, until an optional end date, skipping
+ * the dates given as exceptions.
+ *
+ * A monthly rule repeats on the day of the month of the event, and months
+ * without that day are skipped. Occurrences are only ever expanded for the
+ * range of dates asked for.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public class Recurrence {
+
+    /**
+     * The frequency of a rule which repeats every so many days.
+     */
+    public static final int DAILY = 0;
+
+    /**
+     * The frequency of a rule which repeats every so many weeks.
+     */
+    public static final int WEEKLY = 1;
+
+    /**
+     * The frequency of a rule which repeats every so many months.
+     */
+    public static final int MONTHLY = 2;
+
+    /**
+     * The packed date after every legal date, used as the end of a rule without one.
+     */
+    static final int NO_END = 30000101;
+
+    /**
+     * The frequency of the rule, one of DAILY, WEEKLY or MONTHLY.
+     */
+    private final int frequency;
+
+    /**
+     * The number of days, weeks or months between occurrences.
+     */
+    private final int interval;
+
+    /**
+     * The last date an occurrence may fall on, packed as yyyymmdd, or NO_END.
+     */
+    private final int untilKey;
+
+    /**
+     * The dates on which the event does not occur, packed as yyyymmdd in ascending order.
+     */
+    private final int[] exceptionKeys;
+
+    /**
+     * The constructor which constructs an object of type Recurrence.
+     * @param frequency an int which is the frequency of the rule, one of DAILY, WEEKLY or MONTHLY.
+     * @param interval an int which is the number of days, weeks or months between occurrences.
+     * @param until a string which is the last date an occurrence may fall on, or null to repeat forever.
+     * @param exceptions the dates, if any, on which the event does not occur.
+     * @throws IllegalDateFormatException is thrown if a date is not of the proper format.
+     *                                    Dates must be in the format of month/day/year.
+     */
+    public Recurrence(int frequency, int interval, String until, String... exceptions)
+            throws IllegalDateFormatException {
+        this(frequency, interval, until == null ? NO_END : Date.parse(until), parseAll(exceptions));
+    }
+
+    /**
+     * The constructor which constructs an object of type Recurrence from packed dates.
+     * @param frequency an int which is the frequency of the rule, one of DAILY, WEEKLY or MONTHLY.
+     * @param interval an int which is the number of days, weeks or months between occurrences.
+     * @param untilKey an int which is the last date an occurrence may fall on, or NO_END.
+     * @param exceptionKeys an int array of the dates on which the event does not occur.
+     * @throws IllegalArgumentException is thrown if the frequency or interval is not legal.
+     */
+    Recurrence(int frequency, int interval, int untilKey, int[] exceptionKeys) {
+        if (frequency < DAILY || frequency > MONTHLY) {
+            throw new IllegalArgumentException("Invalid frequency: " + frequency);
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.untilKey = untilKey;
+        this.exceptionKeys = exceptionKeys.clone();
+        Arrays.sort(this.exceptionKeys);
+    }
+
+    /**
+     * Gets the frequency of the rule.
+     * @return int which is DAILY, WEEKLY or MONTHLY.
+     */
+    public int getFrequency() {
+        return this.frequency;
+    }
+
+    /**
+     * Gets the number of days, weeks or months between occurrences.
+     * @return int which is the interval.
+     */
+    public int getInterval() {
+        return this.interval;
+    }
+
+    /**
+     * Gets the last date an occurrence may fall on.
+     * @return string which is the date, or null if the rule repeats forever.
+     */
+    public String getUntil() {
+        return this.untilKey == NO_END ? null : Date.format(this.untilKey);
+    }
+
+    /**
+     * Gets the last date an occurrence may fall on as a sortable key.
+     * @return int which is the date packed as yyyymmdd, or NO_END if the rule repeats forever.
+     */
+    int getUntilKey() {
+        return this.untilKey;
+    }
+
+    /**
+     * Gets the dates on which the event does not occur.
+     * @return String array of the dates, in order.
+     */
+    public String[] getExceptions() {
+        String[] exceptions = new String[exceptionKeys.length];
+        for (int i = 0; i < exceptionKeys.length; i++) {
+            exceptions[i] = Date.format(exceptionKeys[i]);
+        }
+        return exceptions;
+    }
+
+    /**
+     * Gets the dates on which the event does not occur, as they are stored in the database.
+     * @return string of the packed dates separated by commas, or null if there are none.
+     */
+    String encodeExceptions() {
+        if (exceptionKeys.length == 0) {
+            return null;
+        }
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < exceptionKeys.length; i++) {
+            encoded.append(i == 0 ? "" : ",").append(exceptionKeys[i]);
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Reads the dates on which the event does not occur from the form stored in the database.
+     * @param encoded a string of the packed dates separated by commas, or null if there are none.
+     * @return int array of the packed dates.
+     */
+    static int[] decodeExceptions(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = encoded.split(",");
+        int[] keys = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            keys[i] = Integer.parseInt(parts[i]);
+        }
+        return keys;
+    }
+
+    /**
+     * Expands the occurrences of an event which fall within a range of dates.
+     * Only the occurrences within the range are computed, however long the rule runs.
+     * @param startKey an int which is the date of the first occurrence, packed as yyyymmdd.
+     * @param fromKey an int which is the first date of the range (inclusive), packed as yyyymmdd.
+     * @param toKey an int which is the last date of the range (inclusive), packed as yyyymmdd.
+     * @return int array of the dates of the occurrences, packed as yyyymmdd in ascending order.
+     */
+    int[] occurrencesBetween(int startKey, int fromKey, int toKey) {
+        int lastKey = Math.min(toKey, untilKey);
+        int firstKey = Math.max(fromKey, startKey);
+        if (firstKey > lastKey) {
+            return new int[0];
+        }
+
+        int[] keys = new int[16];
+        int count = 0;
+        if (frequency == MONTHLY) {
+            int day = startKey % 100;
+            int startMonth = monthNumber(startKey);
+            int step = (monthNumber(firstKey) - startMonth) / interval;
+            for (int month = startMonth + step * interval; month <= monthNumber(lastKey); month += interval) {
+                int key = keyOf(month, day);
+                if (key >= firstKey && key <= lastKey && Date.isValidKey(key) && !isException(key)) {
+                    keys = append(keys, count++, key);
+                }
+            }
+        } else {
+            int days = frequency == WEEKLY ? interval * 7 : interval;
+            int startDay = Date.toDayNumber(startKey);
+            int lastDay = Date.toDayNumber(lastKey);
+            int step = (Date.toDayNumber(firstKey) - startDay + days - 1) / days;
+            for (int dayNumber = startDay + step * days; dayNumber <= lastDay; dayNumber += days) {
+                int key = Date.fromDayNumber(dayNumber);
+                if (!isException(key)) {
+                    keys = append(keys, count++, key);
+                }
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * Finds the first occurrence of an event on or after a date.
+     * Only the occurrences from the date onwards are stepped through, however long the rule has run.
+     * @param startKey an int which is the date of the first occurrence, packed as yyyymmdd.
+     * @param fromKey an int which is the first date to look from (inclusive), packed as yyyymmdd.
+     * @return int which is the date of the occurrence packed as yyyymmdd, or -1 if the rule
+     *         has no occurrence on or after the date.
+     */
+    int nextOccurrence(int startKey, int fromKey) {
+        int firstKey = Math.max(fromKey, startKey);
+        if (frequency == MONTHLY) {
+            int day = startKey % 100;
+            int startMonth = monthNumber(startKey);
+            int month = startMonth + (monthNumber(firstKey) - startMonth) / interval * interval;
+            for (int key = keyOf(month, day); key <= untilKey; key = keyOf(month += interval, day)) {
+                if (key >= firstKey && Date.isValidKey(key) && !isException(key)) {
+                    return key;
+                }
+            }
+        } else {
+            int days = frequency == WEEKLY ? interval * 7 : interval;
+            int startDay = Date.toDayNumber(startKey);
+            int step = (Date.toDayNumber(firstKey) - startDay + days - 1) / days;
+            for (int dayNumber = startDay + step * days; ; dayNumber += days) {
+                int key = Date.fromDayNumber(dayNumber);
+                if (key > untilKey) {
+                    break;
+                }
+                if (!isException(key)) {
+                    return key;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Recurrence that = (Recurrence) o;
+
+        return frequency == that.frequency && interval == that.interval && untilKey == that.untilKey
+                && Arrays.equals(exceptionKeys, that.exceptionKeys);
+    }
+
+    @Override
+    public int hashCode() {
+        return ((frequency * 31 + interval) * 31 + untilKey) * 31 + Arrays.hashCode(exceptionKeys);
+    }
+
+    /**
+     * Helper method used to determine if the event does not occur on a date.
+     * @param key an int which is the date packed as yyyymmdd.
+     * @return boolean where true means the date is an exception and false means otherwise.
+     */
+    private boolean isException(int key) {
+        return exceptionKeys.length > 0 && Arrays.binarySearch(exceptionKeys, key) >= 0;
+    }
+
+    /**
+     * Helper method used to count the months of a packed date from year 0.
+     * @param key an int which is the date packed as yyyymmdd.
+     * @return int which is the year times 12 plus the month from 0 to 11.
+     */
+    private static int monthNumber(int key) {
+        return key / 10000 * 12 + key / 100 % 100 - 1;
+    }
+
+    /**
+     * Helper method used to pack a day of a month counted by monthNumber, which may not be a legal date.
+     * @param month an int which is the year times 12 plus the month from 0 to 11.
+     * @param day an int which is the day of the month.
+     * @return int which is the date packed as yyyymmdd.
+     */
+    private static int keyOf(int month, int day) {
+        return (month / 12) * 10000 + (month % 12 + 1) * 100 + day;
+    }
+
+    /**
+     * Helper method used to add a value to an array, growing it when it is full.
+     * @param values the array.
+     * @param count an int which is the number of values in the array.
+     * @param value an int which is the value to add.
+     * @return int array which holds the values, which may be a new array.
+     */
+    private static int[] append(int[] values, int count, int value) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count] = value;
+        return values;
+    }
+
+    /**
+     * Helper method used to parse the dates given as exceptions.
+     * @param dates the dates, or null.
+     * @return int array of the packed dates.
+     * @throws IllegalDateFormatException is thrown if a date is not of the proper format.
+     */
+    private static int[] parseAll(String[] dates) throws IllegalDateFormatException {
+        if (dates == null) {
+            return new int[0];
+        }
+        int[] keys = new int[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            keys[i] = Date.parse(dates[i]);
+        }
+        return keys;
+    }
+}
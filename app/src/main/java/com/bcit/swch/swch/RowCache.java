@@ -0,0 +1,140 @@
+package com.bcit.swch.swch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RowCache class is a bounded, least recently used cache of the data objects
+ * of a database, keyed by row ID.
+ *
+ * Every write to the database updates or invalidates the cache. Every invalidation
+ * also bumps a version number. A value read from disk is only cached if no write
+ * has happened since the read began, so the cache cannot hold stale data.
+ *
+ * @param <T> the type of the cached data objects.
+ * @author SWCH
+ * @version 2017
+ */
+
+public class RowCache<T> {
+
+    /**
+     * The cached data objects, in least recently used order.
+     */
+    private final LinkedHashMap<Integer, T> entries;
+
+    /**
+     * The number of writes which have invalidated entries of the cache.
+     */
+    private long version;
+
+    /**
+     * The number of lookups answered by the cache.
+     */
+    private long hitCount;
+
+    /**
+     * The number of lookups not answered by the cache.
+     */
+    private long missCount;
+
+    /**
+     * The constructor which constructs an object of type RowCache.
+     * @param capacity an int which is the largest number of data objects to keep.
+     */
+    RowCache(final int capacity) {
+        this.entries = new LinkedHashMap<Integer, T>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached data object of a row.
+     * @param rowId an int which is the row ID.
+     * @return T which is the cached data object, or null if it is not cached.
+     */
+    synchronized T get(int rowId) {
+        T value = entries.get(rowId);
+        if (value == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the current version of the cache, to be passed to putIfCurrent after a read.
+     * @return long which is the version.
+     */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Caches the data object of a row which was just written.
+     * @param rowId an int which is the row ID.
+     * @param value the data object stored in the row.
+     */
+    synchronized void put(int rowId, T value) {
+        version++;
+        entries.put(rowId, value);
+    }
+
+    /**
+     * Caches the data object of a row which was read from disk, unless the cache has
+     * been written to since the read began.
+     * @param rowId an int which is the row ID.
+     * @param value the data object read from the row.
+     * @param readVersion a long which is the version of the cache when the read began.
+     */
+    synchronized void putIfCurrent(int rowId, T value, long readVersion) {
+        if (version == readVersion) {
+            entries.put(rowId, value);
+        }
+    }
+
+    /**
+     * Drops the cached data object of a row.
+     * @param rowId an int which is the row ID.
+     */
+    synchronized void remove(int rowId) {
+        version++;
+        entries.remove(rowId);
+    }
+
+    /**
+     * Drops every cached data object.
+     */
+    synchronized void clear() {
+        version++;
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of lookups answered by the cache.
+     * @return long which is the number of hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups not answered by the cache.
+     * @return long which is the number of misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of data objects in the cache.
+     * @return int which is the number of cached data objects.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,180 @@
+package com.bcit.swch.swch;
+
+import java.util.Arrays;
+
+/**
+ * RowIndex class maps the list positions of a database's data entries to
+ * the row IDs of the database's table.
+ *
+ * Row IDs are kept in ascending order in a primitive array, so looking up the
+ * row ID of a position is O(1) and looking up the position of a row ID is O(log n).
+ * The index is loaded once and then maintained incrementally on insert and delete.
+ * Its methods are synchronized so readers and the writer may share it.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class RowIndex {
+
+    /**
+     * The initial capacity of the array of row IDs.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The row IDs of the data entries, in ascending order.
+     */
+    private int[] rowIds = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of row IDs in the index.
+     */
+    private int size;
+
+    /**
+     * Whether the index reflects the contents of the table.
+     */
+    private boolean valid;
+
+    /**
+     * Determines if the index reflects the contents of the table.
+     * @return boolean which is true if the index is valid and false otherwise.
+     */
+    synchronized boolean isValid() {
+        return this.valid;
+    }
+
+    /**
+     * Marks the index as stale so it is reloaded before its next use.
+     */
+    synchronized void invalidate() {
+        this.valid = false;
+        this.size = 0;
+    }
+
+    /**
+     * Empties the index and marks it as valid, as is the case for an empty table.
+     */
+    synchronized void clear() {
+        this.size = 0;
+        this.valid = true;
+    }
+
+    /**
+     * Replaces the contents of the index with the given row IDs.
+     * @param ids an int array of row IDs in ascending order.
+     * @param count an int which is the number of row IDs to use from the array.
+     */
+    synchronized void load(int[] ids, int count) {
+        this.rowIds = ids.length >= INITIAL_CAPACITY ? ids : Arrays.copyOf(ids, INITIAL_CAPACITY);
+        this.size = count;
+        this.valid = true;
+    }
+
+    /**
+     * Gets the number of row IDs in the index.
+     * @return int which is the number of row IDs.
+     */
+    synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the row ID at a position.
+     * @param position an int which is the position of the data entry.
+     * @return int which is the row ID of the data entry.
+     * @throws IndexOutOfBoundsException is thrown if there is no data entry at the position.
+     */
+    synchronized int get(int position) {
+        checkPosition(position);
+        return this.rowIds[position];
+    }
+
+    /**
+     * Gets the position of a row ID.
+     * @param rowId an int which is the row ID of the data entry.
+     * @return int which is the position of the data entry, or -1 if the row ID is not in the index.
+     */
+    synchronized int positionOf(int rowId) {
+        int position = Arrays.binarySearch(this.rowIds, 0, this.size, rowId);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Adds a newly inserted row ID to the index.
+     * @param rowId an int which is the row ID of the inserted data entry.
+     */
+    synchronized void add(int rowId) {
+        ensureCapacity(this.size + 1);
+        if (this.size == 0 || this.rowIds[this.size - 1] < rowId) {
+            this.rowIds[this.size++] = rowId;
+            return;
+        }
+        int position = Arrays.binarySearch(this.rowIds, 0, this.size, rowId);
+        if (position >= 0) {
+            return;
+        }
+        position = -(position + 1);
+        System.arraycopy(this.rowIds, position, this.rowIds, position + 1, this.size - position);
+        this.rowIds[position] = rowId;
+        this.size++;
+    }
+
+    /**
+     * Removes the row ID at a position from the index.
+     * @param position an int which is the position of the deleted data entry.
+     * @return int which is the row ID that was removed.
+     * @throws IndexOutOfBoundsException is thrown if there is no data entry at the position.
+     */
+    synchronized int removeAt(int position) {
+        checkPosition(position);
+        int rowId = this.rowIds[position];
+        System.arraycopy(this.rowIds, position + 1, this.rowIds, position, this.size - position - 1);
+        this.size--;
+        return rowId;
+    }
+
+    /**
+     * Removes many deleted row IDs from the index in a single pass.
+     * Row IDs which are not in the index are ignored.
+     * @param deletedIds an int array of the deleted row IDs in ascending order.
+     * @param count an int which is the number of row IDs to use from the array.
+     */
+    synchronized void removeAll(int[] deletedIds, int count) {
+        int kept = 0;
+        int next = 0;
+        for (int i = 0; i < this.size; i++) {
+            int rowId = this.rowIds[i];
+            while (next < count && deletedIds[next] < rowId) {
+                next++;
+            }
+            if (next < count && deletedIds[next] == rowId) {
+                continue;
+            }
+            this.rowIds[kept++] = rowId;
+        }
+        this.size = kept;
+    }
+
+    /**
+     * Helper method used to grow the array of row IDs.
+     * @param capacity an int which is the minimum capacity needed.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.rowIds.length) {
+            this.rowIds = Arrays.copyOf(this.rowIds, Math.max(capacity, this.rowIds.length * 2));
+        }
+    }
+
+    /**
+     * Helper method used to determine if a position is within the index.
+     * @param position an int which is the position of a data entry.
+     * @throws IndexOutOfBoundsException is thrown if there is no data entry at the position.
+     */
+    private void checkPosition(int position) {
+        if (position < 0 || position >= this.size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + this.size);
+        }
+    }
+}
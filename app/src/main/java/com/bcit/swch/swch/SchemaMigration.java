@@ -0,0 +1,50 @@
+package com.bcit.swch.swch;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * SchemaMigration class is a migration which only changes the schema, such as adding
+ * an index to a database file made before the index existed. It migrates no rows.
+ *
+ * The statements must be safe to run again, e.g. CREATE INDEX IF NOT EXISTS, since a
+ * new file already has everything createTable makes.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class SchemaMigration extends Migration {
+
+    /**
+     * The statements which change the schema.
+     */
+    private final String[] statements;
+
+    /**
+     * The constructor which constructs an object of type SchemaMigration.
+     * @param version an int which is the version of the migration.
+     * @param name a string which is the name of the migration.
+     * @param statements the statements which change the schema.
+     */
+    SchemaMigration(int version, String name, String... statements) {
+        super(version, name);
+        this.statements = statements;
+    }
+
+    @Override
+    protected void prepare(SQLiteDatabase db) {
+        for (String statement : statements) {
+            db.execSQL(statement);
+        }
+    }
+
+    @Override
+    protected long countRows(SQLiteDatabase db) {
+        return 0;
+    }
+
+    @Override
+    protected boolean migrateChunk(SQLiteDatabase db, MigrationProgress progress, int chunkSize) {
+        return false;
+    }
+}
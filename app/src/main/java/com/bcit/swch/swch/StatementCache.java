@@ -0,0 +1,72 @@
+package com.bcit.swch.swch;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * StatementCache class keeps a bounded number of compiled statements, keyed by
+ * their SQL, so hot statements are parsed once instead of on every call.
+ * The least recently used statement is closed when the cache is full.
+ *
+ * The cache is not thread-safe; callers lock it while they bind and run a statement.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class StatementCache {
+
+    /**
+     * The compiled statements, in least recently used order.
+     */
+    private final LinkedHashMap<String, SQLiteStatement> statements;
+
+    /**
+     * The constructor which constructs an object of type StatementCache.
+     * @param capacity an int which is the number of statements to keep compiled.
+     */
+    StatementCache(final int capacity) {
+        this.statements = new LinkedHashMap<String, SQLiteStatement>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+                if (size() > capacity) {
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the compiled statement for the SQL, compiling it if it is not cached.
+     * @param db the database to compile the statement against.
+     * @param sql a string which is the SQL of the statement.
+     * @return SQLiteStatement which is the compiled statement with its bindings cleared.
+     */
+    SQLiteStatement get(SQLiteDatabase db, String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearBindings();
+        }
+        return statement;
+    }
+
+    /**
+     * Closes and removes every cached statement.
+     */
+    void clear() {
+        Iterator<SQLiteStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().close();
+            iterator.remove();
+        }
+    }
+}
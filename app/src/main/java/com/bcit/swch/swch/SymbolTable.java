@@ -0,0 +1,120 @@
+package com.bcit.swch.swch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * SymbolTable class interns strings, so a column of strings can be stored as
+ * an int array of symbol IDs and each distinct string is kept once.
+ *
+ * Symbols are reference counted. When the last row using a string releases it,
+ * the string is dropped and its symbol ID is reused.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class SymbolTable {
+
+    /**
+     * The initial capacity of the arrays of symbols.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The symbol ID of each interned string.
+     */
+    private final HashMap<String, Integer> ids = new HashMap<>();
+
+    /**
+     * The interned strings, indexed by symbol ID. Freed symbol IDs hold null.
+     */
+    private final ArrayList<String> strings = new ArrayList<>();
+
+    /**
+     * The number of rows using each symbol, indexed by symbol ID.
+     */
+    private int[] refCounts = new int[INITIAL_CAPACITY];
+
+    /**
+     * The freed symbol IDs which can be reused.
+     */
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of freed symbol IDs.
+     */
+    private int freeCount;
+
+    /**
+     * Interns a string and adds a reference to it.
+     * @param string a string to intern.
+     * @return int which is the symbol ID of the string.
+     */
+    int retain(String string) {
+        Integer id = ids.get(string);
+        if (id != null) {
+            refCounts[id]++;
+            return id;
+        }
+        int newId;
+        if (freeCount > 0) {
+            newId = freeIds[--freeCount];
+            strings.set(newId, string);
+        } else {
+            newId = strings.size();
+            strings.add(string);
+            if (newId >= refCounts.length) {
+                refCounts = Arrays.copyOf(refCounts, refCounts.length * 2);
+            }
+        }
+        refCounts[newId] = 1;
+        ids.put(string, newId);
+        return newId;
+    }
+
+    /**
+     * Removes a reference to a symbol, dropping its string when it is no longer used.
+     * @param id an int which is the symbol ID.
+     */
+    void release(int id) {
+        if (--refCounts[id] > 0) {
+            return;
+        }
+        ids.remove(strings.get(id));
+        strings.set(id, null);
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    /**
+     * Gets the symbol ID of a string without interning it.
+     * @param string a string to look up.
+     * @return int which is the symbol ID, or -1 if the string is not interned.
+     */
+    int find(String string) {
+        Integer id = ids.get(string);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Gets the string of a symbol.
+     * @param id an int which is the symbol ID.
+     * @return string which is the interned string.
+     */
+    String get(int id) {
+        return strings.get(id);
+    }
+
+    /**
+     * Drops every symbol.
+     */
+    void clear() {
+        ids.clear();
+        strings.clear();
+        freeCount = 0;
+    }
+}
@@ -0,0 +1,106 @@
+package com.bcit.swch.swch;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TableState class holds the state kept in memory for a table of the shared
+ * database file: the index of positions to row IDs, the cache of data objects,
+ * the listeners of changes, the metrics of its operations and a version which
+ * writes bump when state derived from the table goes stale.
+ *
+ * PlannerDatabaseHelper keeps one TableState per table and gives it to every
+ * Database of that table, so a write made through one Database is seen by the
+ * positions, cache and listeners of every other, and the metrics count the
+ * operations of every Database of the table for as long as the file is open.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+class TableState {
+
+    /**
+     * The index which maps the positions of the data entries to their row IDs.
+     */
+    private final RowIndex rowIndex = new RowIndex();
+
+    /**
+     * The cache of recently used data objects, keyed by row ID.
+     */
+    private final RowCache<Object> rowCache;
+
+    /**
+     * The listeners which receive the changes made to the table.
+     */
+    private final CopyOnWriteArrayList<DataChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The measurements of the operations on the table, off until enabled.
+     */
+    private final DatabaseMetrics metrics;
+
+    /**
+     * The number of committed writes which made state derived from the table stale.
+     */
+    private final AtomicLong writeVersion = new AtomicLong();
+
+    /**
+     * The constructor which constructs an object of type TableState.
+     * @param table a string which is the name of the table, used to name its metrics.
+     * @param rowCacheSize an int which is the largest number of data objects to cache.
+     */
+    TableState(String table, int rowCacheSize) {
+        this.rowCache = new RowCache<>(rowCacheSize);
+        this.metrics = new DatabaseMetrics(table);
+    }
+
+    /**
+     * Gets the index which maps the positions of the data entries to their row IDs.
+     * @return RowIndex which is the index of the table.
+     */
+    RowIndex getRowIndex() {
+        return this.rowIndex;
+    }
+
+    /**
+     * Gets the cache of recently used data objects of the table.
+     * @param <T> the type of the data objects of the table.
+     * @return RowCache which is the cache of the table.
+     */
+    @SuppressWarnings("unchecked")
+    <T> RowCache<T> getRowCache() {
+        return (RowCache<T>) (RowCache<?>) this.rowCache;
+    }
+
+    /**
+     * Gets the listeners which receive the changes made to the table.
+     * @return CopyOnWriteArrayList of the listeners.
+     */
+    CopyOnWriteArrayList<DataChangeListener> getChangeListeners() {
+        return this.changeListeners;
+    }
+
+    /**
+     * Gets the measurements of the operations on the table.
+     * @return DatabaseMetrics which is the metrics of the table.
+     */
+    DatabaseMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Gets the version of the table, which state derived from the table is built at.
+     * @return long which is the version of the table.
+     */
+    long getWriteVersion() {
+        return this.writeVersion.get();
+    }
+
+    /**
+     * Records that a committed write made state derived from the table stale.
+     */
+    void bumpWriteVersion() {
+        this.writeVersion.incrementAndGet();
+    }
+}
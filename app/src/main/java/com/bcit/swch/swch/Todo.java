@@ -69,6 +69,14 @@ public class Todo {
      */
     public String getDueDate() { return this.dueDate.getDate(); }
 
+    /**
+     * Gets the due date of the Todo as a sortable key.
+     * @return int which is the due date packed as yyyymmdd.
+     */
+    public int getDueDateKey() {
+        return this.dueDate.getKey();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
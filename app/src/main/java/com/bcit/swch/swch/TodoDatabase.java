@@ -4,7 +4,10 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * TodoDatabase class is the database for Todos.
@@ -13,7 +16,7 @@ import java.util.ArrayList;
  * @version 2017
  */
 
-public class TodoDatabase extends Database {
+public class TodoDatabase extends Database implements TodoStore {
 
     /**
      * Name of the database table.
@@ -41,78 +44,283 @@ public class TodoDatabase extends Database {
     private static final String COL3 = "due_date";
 
     /**
-     * The array list is used to manage the IDs of the data entries.
+     * The sortable due date column of the table for todos, stored as a packed yyyymmdd int.
+     */
+    private static final String COL4 = "due_date_key";
+
+    /**
+     * The columns of the table, in order.
+     */
+    static final String[] COLUMNS = {COL0, COL1, COL2, COL3, COL4};
+
+    /**
+     * The query which selects a whole Todo row given its row ID.
+     */
+    private static final String SELECT_ROW_QUERY = "SELECT " + COL1 + ", " + COL2 + ", " + COL3
+            + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = ?";
+
+    /**
+     * The query which determines if a Todo with the same name and due date exists.
+     */
+    private static final String EXISTS_QUERY = "SELECT EXISTS (SELECT 1 FROM " + TABLE_NAME
+            + " WHERE " + COL1 + " = ? AND " + COL3 + " = ?)";
+
+    /**
+     * The statement which inserts a Todo row.
+     */
+    private static final String INSERT_QUERY = "INSERT INTO " + TABLE_NAME
+            + " (" + COL1 + ", " + COL2 + ", " + COL3 + ", " + COL4 + ") VALUES (?, ?, ?, ?)";
+
+    /**
+     * The statement which deletes a Todo row given its row ID.
+     */
+    private static final String DELETE_QUERY = "DELETE FROM " + TABLE_NAME + " WHERE " + COL0 + " = ?";
+
+    /**
+     * The index on the name and due date columns used to find duplicate Todos.
+     */
+    private static final String CREATE_DUPLICATE_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_duplicate_index ON " + TABLE_NAME + " (" + COL1 + ", " + COL3 + ")";
+
+    /**
+     * The index on the due date key column used by date-range queries.
+     */
+    private static final String CREATE_DATE_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_date_index ON " + TABLE_NAME + " (" + COL4 + ")";
+
+    /**
+     * The index on the priority and due date key columns used to find the most urgent Todos.
+     */
+    static final String CREATE_PRIORITY_INDEX_QUERY = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME + "_priority_index ON " + TABLE_NAME + " (" + COL2 + ", " + COL4 + ")";
+
+    /**
+     * The query which selects the most urgent Todos, including overdue ones, read in order
+     * from the priority index.
+     */
+    private static final String SELECT_TOP_QUERY = "SELECT " + COL1 + ", " + COL2 + ", " + COL3
+            + " FROM " + TABLE_NAME + " WHERE " + COL4 + " IS NOT NULL"
+            + " ORDER BY " + COL2 + ", " + COL4 + ", " + COL0 + " LIMIT ?";
+
+    /**
+     * The query which selects the Todos within a range of dates, ordered by date.
+     */
+    private static final String SELECT_BETWEEN_QUERY = "SELECT " + COL1 + ", " + COL2 + ", " + COL3
+            + " FROM " + TABLE_NAME + " WHERE " + COL4 + " BETWEEN ? AND ?"
+            + " ORDER BY " + COL4 + ", " + COL0;
+
+    /**
+     * The part of the agenda query which selects the Todos within a range of date keys.
+     * The columns are the kind of item, name, priority, date, date key and row ID.
+     */
+    static final String AGENDA_SELECT = "SELECT 0 AS kind, " + COL1 + ", " + COL2 + ", " + COL3 + ", "
+            + COL4 + " AS date_key, " + COL0 + " FROM " + TABLE_NAME + " WHERE " + COL4 + " BETWEEN ? AND ?";
+
+    /**
+     * The part of the query which fills the day counts with a row for each Todo with a due date.
+     */
+    static final String DAY_COUNT_SELECT = "SELECT " + COL4 + " AS " + DayCounts.COL0 + ", 1 AS " + DayCounts.COL1
+            + ", 0 AS " + DayCounts.COL2 + " FROM " + TABLE_NAME + " WHERE " + COL4 + " IS NOT NULL";
+
+    /**
+     * The triggers which keep the day counts in step with the due dates of the Todos.
+     */
+    static final String[] CREATE_DAY_COUNT_TRIGGER_QUERIES =
+            DayCounts.createTriggerQueries(TABLE_NAME, COL4, null, DayCounts.COL1);
+
+    /**
+     * The cache of recently used Todos, keyed by row ID, shared by every TodoDatabase.
      */
-    private static ArrayList<Integer> indexArrayList = new ArrayList<>();
+    private final RowCache<Todo> rowCache = getSharedRowCache();
 
     /**
      * The constructor which constructs an object of type NoteDatabase.
      * @param context the application context.
      */
     public TodoDatabase(Context context) {
-        super(context, TABLE_NAME, null, 1);
+        super(context, TABLE_NAME);
     }
 
-    @Override
-    public void onCreate(SQLiteDatabase sqLiteDatabase) {
+    /**
+     * Creates the table for Todos, its indexes and the triggers which keep the day counts.
+     * @param sqLiteDatabase the database to create the table in.
+     */
+    static void createTable(SQLiteDatabase sqLiteDatabase) {
         String createTableQuery = "CREATE TABLE " + TABLE_NAME
                 + " (" + COL0 + " INTEGER PRIMARY KEY AUTOINCREMENT, "
                        + COL1 + " TEXT, "
                        + COL2 + " INT, "
-                       + COL3 + " TEXT)";
+                       + COL3 + " TEXT, "
+                       + COL4 + " INTEGER)";
         sqLiteDatabase.execSQL(createTableQuery);
+        sqLiteDatabase.execSQL(CREATE_DUPLICATE_INDEX_QUERY);
+        sqLiteDatabase.execSQL(CREATE_DATE_INDEX_QUERY);
+        sqLiteDatabase.execSQL(CREATE_PRIORITY_INDEX_QUERY);
+        for (String createTriggerQuery : CREATE_DAY_COUNT_TRIGGER_QUERIES) {
+            sqLiteDatabase.execSQL(createTriggerQuery);
+        }
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
-        onCreate(sqLiteDatabase);
+    /**
+     * Makes the migration which copies the Todos of the separate database file used
+     * before the tables were combined.
+     * @param context the application context.
+     * @param version an int which is the version of the migration.
+     * @return Migration which copies the Todos.
+     */
+    static Migration createLegacyImport(Context context, int version) {
+        return new LegacyImportMigration(version, context, TABLE_NAME, COL3, COL4, COL0, COL1, COL2, COL3);
     }
 
-
     @Override
     public void addDataEntry(Object data)
             throws DataExistenceException, IllegalPriorityException {
+        long start = getMetrics().start();
         if (!(data instanceof Todo)) {
             throw new DataExistenceException("Data is not a Todo.");
         }
 
         Todo todo = (Todo) data;
 
+        if (isDataInDatabase(todo)) {
+            throw new DataExistenceException("Data is already in database.");
+        }
+
+        long rowId = executeInsert(INSERT_QUERY, todo.getName(), todo.getPriority(), todo.getDueDate(),
+                todo.getDueDateKey());
+        if (rowId != -1) {
+            RowIndex rowIndex = getRowIndex(TABLE_NAME);
+            rowIndex.add((int) rowId);
+            rowCache.put((int) rowId, todo);
+            notifyChange(DataChange.INSERTED, (int) rowId, rowIndex.positionOf((int) rowId));
+        }
+        getMetrics().record(DatabaseMetrics.ADD, start);
+    }
+
+    @Override
+    public BatchResult addDataEntries(Collection<?> data, boolean atomic) {
+        long start = getMetrics().start();
+        BatchResult result = new BatchResult();
+        int[] rowIds = new int[data.size()];
+        int insertedCount = 0;
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement existsStatement = db.compileStatement(EXISTS_QUERY);
+        SQLiteStatement insertStatement = db.compileStatement(INSERT_QUERY);
+
+        db.beginTransaction();
         try {
-            if (isDataInDatabase(todo)) {
-                throw new DataExistenceException("Data is already in database.");
+            int position = 0;
+            for (Object item : data) {
+                try {
+                    if (!(item instanceof Todo)) {
+                        throw new DataExistenceException("Data is not a Todo.");
+                    }
+                    Todo todo = (Todo) item;
+                    existsStatement.bindString(1, todo.getName());
+                    existsStatement.bindString(2, todo.getDueDate());
+                    if (existsStatement.simpleQueryForLong() != 0) {
+                        throw new DataExistenceException("Data is already in database.");
+                    }
+                    insertStatement.bindString(1, todo.getName());
+                    insertStatement.bindLong(2, todo.getPriority());
+                    insertStatement.bindString(3, todo.getDueDate());
+                    insertStatement.bindLong(4, todo.getDueDateKey());
+                    rowIds[insertedCount++] = (int) insertStatement.executeInsert();
+                    result.addInserted();
+                } catch (DataExistenceException e) {
+                    result.addFailure(position, e);
+                    if (atomic) {
+                        result.setRolledBack();
+                        return result;
+                    }
+                }
+                position++;
             }
-        } catch (IllegalDateFormatException e) {
-            throw new DataExistenceException("Date is not formatted correctly.");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            getMetrics().recordTransaction();
+            existsStatement.close();
+            insertStatement.close();
         }
 
-        updateIndexes();
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(COL1, todo.getName());
-        contentValues.put(COL2, todo.getPriority());
-        contentValues.put(COL3, todo.getDueDate());
-        this.getWritableDatabase().insert(TABLE_NAME, null, contentValues);
+        RowIndex rowIndex = getRowIndex(TABLE_NAME);
+        for (int i = 0; i < insertedCount; i++) {
+            rowIndex.add(rowIds[i]);
+        }
+        notifyInserted(rowIndex, rowIds, insertedCount);
+        getMetrics().record(DatabaseMetrics.ADD_BATCH, start);
+        return result;
     }
 
     @Override
     public void deleteDataEntry(int id)
             throws DataExistenceException {
         try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            this.getWritableDatabase().delete(TABLE_NAME, COL0 + " = ?", new String[] {Integer.toString(index)});
-            this.getWritableDatabase().execSQL("VACUUM");
-            indexArrayList.remove(id);
-
-            if (indexArrayList.size() == 0) {
+            long start = getMetrics().start();
+            RowIndex rowIndex = getRowIndex(TABLE_NAME);
+            int index = rowIndex.get(id);
+            executeUpdateDelete(DELETE_QUERY, index);
+            rowIndex.removeAt(id);
+            rowCache.remove(index);
+            notifyChange(DataChange.DELETED, index, id);
+
+            if (rowIndex.size() == 0) {
+                countImplicitTransaction();
                 this.getWritableDatabase().execSQL("UPDATE SQLITE_SEQUENCE SET seq = 0 WHERE name = " + "'" + TABLE_NAME + "'");
             }
+            getCompactionScheduler().requestCompaction();
+            getMetrics().record(DatabaseMetrics.DELETE, start);
         } catch (IndexOutOfBoundsException e) {
             throw new DataExistenceException("Data is not in database.");
         }
     }
 
+    @Override
+    public int deleteDataEntries(int[] ids)
+            throws DataExistenceException {
+        return deleteRows(TABLE_NAME, ids, rowCache);
+    }
+
+    /**
+     * Deletes every Todo due before a date with a single statement read from the date index.
+     * Todos without a date are kept.
+     * @param date the first date which is kept.
+     * @return int which is the number of Todos deleted.
+     */
+    public int deleteTodosDueBefore(Date date) {
+        return deleteRowsWhere(TABLE_NAME, COL4 + " < ?", new String[] {Integer.toString(date.getKey())}, rowCache);
+    }
+
+    /**
+     * Deletes every Todo of a priority with a single statement read from the priority index.
+     * @param priority an int which is the priority of the Todos to delete.
+     * @return int which is the number of Todos deleted.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    public int deleteTodosWithPriority(int priority)
+            throws IllegalPriorityException {
+        if (!isValidPriority(priority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        return deleteRowsWhere(TABLE_NAME, COL2 + " = ?", new String[] {Integer.toString(priority)}, rowCache);
+    }
+
+    @Override
+    public void deleteAllData(String table) {
+        super.deleteAllData(table);
+        rowCache.clear();
+        notifyChange(DataChange.CLEARED, -1, -1);
+    }
+
+    /**
+     * Gets the cache of recently used Todos, which exposes its hit and miss counts.
+     * @return RowCache which is the cache of Todos.
+     */
+    public RowCache<Todo> getRowCache() {
+        return rowCache;
+    }
+
     /**
      * Gets the Todo from the database.
      * @param id an int which is the id of the Todo to retrieve from the data base.
@@ -129,11 +337,18 @@ public class TodoDatabase extends Database {
     public Todo getTodo(int id)
             throws DataExistenceException, IllegalDateFormatException, IllegalPriorityException {
         try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            return new Todo(getTodoName(index),
-                            getTodoPriority(index),
-                            getTodoDueDate(index));
+            long start = getMetrics().start();
+            int index = getRowIndex(TABLE_NAME).get(id);
+            Todo todo = rowCache.get(index);
+            int scanned = 0;
+            if (todo == null) {
+                long version = rowCache.getVersion();
+                todo = readTodo(index);
+                rowCache.putIfCurrent(index, todo, version);
+                scanned = 1;
+            }
+            getMetrics().record(DatabaseMetrics.GET, start, scanned, 1);
+            return todo;
         } catch (IndexOutOfBoundsException e) {
             throw new DataExistenceException("Data is not in database.");
         }
@@ -156,9 +371,52 @@ public class TodoDatabase extends Database {
      */
     public void updateTodo(String newTodoName, int newTodoPriority, String newTodoDueDate, int id)
             throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException {
-        updateTodoName(newTodoName, id);
-        updateTodoPriority(newTodoPriority, id);
-        updateTodoDueDate(newTodoDueDate, id);
+        if (!isValidPriority(newTodoPriority)) {
+            throw new IllegalPriorityException("Invalid priority.");
+        }
+        int dateKey = Date.parse(newTodoDueDate);
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL1, newTodoName);
+        contentValues.put(COL2, newTodoPriority);
+        contentValues.put(COL3, newTodoDueDate);
+        contentValues.put(COL4, dateKey);
+        updateRow(contentValues, id);
+    }
+
+    /**
+     * Updates only the given fields of the Todo with a single statement.
+     * Fields which are null are left unchanged.
+     * @param newTodoName a string which is the new Todo name to update to, or null.
+     * @param newTodoPriority an Integer which is the new priority to update to, or null.
+     * @param newTodoDueDate a string which is the new due date to update to, or null.
+     * @param id an int which is the id of the Todo to update.
+     * @throws DataExistenceException is thrown if the Todo is not in the database.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format
+     *                                    and is not within the legal ranges of months, days and years.
+     *                                    dueDate must be in the format of month/day/year.
+     *                                    Month ranges from 1 - 12 (inclusive).
+     *                                    Day ranges from 1 - 31 (inclusive).
+     *                                    year ranges from 2000 - 2999 (inclusive).
+     */
+    public void updateTodoFields(String newTodoName, Integer newTodoPriority, String newTodoDueDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException {
+        ContentValues contentValues = new ContentValues();
+        if (newTodoName != null) {
+            contentValues.put(COL1, newTodoName);
+        }
+        if (newTodoPriority != null) {
+            if (!isValidPriority(newTodoPriority)) {
+                throw new IllegalPriorityException("Invalid priority.");
+            }
+            contentValues.put(COL2, newTodoPriority);
+        }
+        if (newTodoDueDate != null) {
+            int dateKey = Date.parse(newTodoDueDate);
+            contentValues.put(COL3, newTodoDueDate);
+            contentValues.put(COL4, dateKey);
+        }
+        updateRow(contentValues, id);
     }
 
     /**
@@ -169,15 +427,9 @@ public class TodoDatabase extends Database {
      */
     public void updateTodoName(String newTodoName, int id)
             throws DataExistenceException {
-        try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL1, newTodoName);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
-        }
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL1, newTodoName);
+        updateRow(contentValues, id);
     }
 
     /**
@@ -192,15 +444,9 @@ public class TodoDatabase extends Database {
         if (!isValidPriority(newTodoPriority)) {
             throw new IllegalPriorityException("Invalid priority.");
         }
-        try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL2, newTodoPriority);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
-        }
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL2, newTodoPriority);
+        updateRow(contentValues, id);
     }
 
     /**
@@ -217,113 +463,143 @@ public class TodoDatabase extends Database {
      */
     public void updateTodoDueDate(String newTodoDueDate, int id)
             throws DataExistenceException, IllegalDateFormatException {
-        Date date = new Date(newTodoDueDate);
+        int dateKey = Date.parse(newTodoDueDate);
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COL3, newTodoDueDate);
+        contentValues.put(COL4, dateKey);
+        updateRow(contentValues, id);
+    }
+
+    /**
+     * Gets the Todos due within a range of dates, ordered by date.
+     * The range is read from the index on the due date key, so the cost grows with
+     * the number of Todos returned rather than the size of the table.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of the Todos within the range, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    public ArrayList<Todo> getTodosDueBetween(Date from, Date to)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        long start = getMetrics().start();
+        Cursor cursor = this.getReadableDatabase().rawQuery(SELECT_BETWEEN_QUERY,
+                new String[] {Integer.toString(from.getKey()), Integer.toString(to.getKey())});
         try {
-            updateIndexes();
-            int index = indexArrayList.get(id);
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COL3, newTodoDueDate);
-            this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
-        } catch (IndexOutOfBoundsException e) {
-            throw new DataExistenceException("Data is not in database.");
+            ArrayList<Todo> todos = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                todos.add(new Todo(cursor.getString(0), cursor.getInt(1), cursor.getString(2)));
+            }
+            getMetrics().record(DatabaseMetrics.RANGE_QUERY, start, todos.size(), todos.size());
+            return todos;
+        } finally {
+            cursor.close();
         }
     }
 
     /**
-     * The helper method gets the name of the Todo given the id of the Todo.
-     * @param id an int which is the id of the Todo to get the name of.
-     * @return a string which is the name of the Todo retrieved.
+     * Gets the most urgent Todos: highest priority (1) first, then earliest date.
+     * Overdue Todos are included, since a Todo stays to be done after it is due.
+     * The rows are read in order from the index on priority and date key and the
+     * read stops after k rows, so the cost does not grow with the size of the table.
+     * @param k an int which is the largest number of Todos to return.
+     * @return ArrayList of at most k Todos, most urgent first.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
      */
-    private String getTodoName(int id) {
-        String query = "SELECT " + COL1 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        String data = "";
-
-        if (cursor.moveToFirst()) {
-            do {
-                data += cursor.getString(0);
-            } while (cursor.moveToNext());
+    public ArrayList<Todo> getTopTodos(int k)
+            throws IllegalDateFormatException, IllegalPriorityException {
+        ArrayList<Todo> todos = new ArrayList<>();
+        if (k <= 0) {
+            return todos;
+        }
+        long start = getMetrics().start();
+        Cursor cursor = this.getReadableDatabase().rawQuery(SELECT_TOP_QUERY, new String[] {Integer.toString(k)});
+        try {
+            while (cursor.moveToNext()) {
+                todos.add(new Todo(cursor.getString(0), cursor.getInt(1), cursor.getString(2)));
+            }
+            getMetrics().record(DatabaseMetrics.TOP, start, todos.size(), todos.size());
+            return todos;
+        } finally {
+            cursor.close();
         }
-        return data;
     }
 
     /**
-     * The helper method gets the priority of the Todo given the id of the Todo.
-     * @param id an int which is the id of the Todo to get the priority of.
-     * @return an int which is the priority of the Todo retrieved.
+     * Gets one page of the Todos, ordered by ID.
+     * @param afterId a long which is the ID of the last Todo of the previous page, or 0 for the first page.
+     * @param pageSize an int which is the largest number of Todos in the page.
+     * @return Cursor which contains the rows of the page.
      */
-    private int getTodoPriority(int id) {
-        String query = "SELECT " + COL2 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        int data = 0;
-
-        if (cursor.moveToFirst()) {
-            do {
-                data = cursor.getInt(0);
-            } while (cursor.moveToNext());
-        }
-        return data;
+    public Cursor getTodoPage(long afterId, int pageSize) {
+        return getDataPage(TABLE_NAME, afterId, pageSize);
     }
 
     /**
-     * The helper method gets the due date of the Todo given the id of the Todo.
-     * @param id an int which is the id of the Todo to get the due date of.
-     * @return a string which is the due date of the Todo retrieved.
+     * Gets one page of the Todos, ordered by due date.
+     * @param afterKey a long which is the page key of the last Todo of the previous page, made with
+     *                 {@link Database#packPageKey(int, int)}, or 0 for the first page.
+     * @param pageSize an int which is the largest number of Todos in the page.
+     * @return Cursor which contains the rows of the page.
      */
-    private String getTodoDueDate(int id) {
-        String query = "SELECT " + COL3 + " FROM " + TABLE_NAME + " WHERE " + COL0 + " = " + id;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        String data = "";
+    public Cursor getTodoPageByDueDate(long afterKey, int pageSize) {
+        return getDataPageByDate(TABLE_NAME, COL4, afterKey, pageSize);
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                data += cursor.getString(0);
-            } while (cursor.moveToNext());
+    /**
+     * The helper method updates the columns of a Todo row with a single statement.
+     * @param contentValues the new values of the columns to update.
+     * @param id an int which is the id of the Todo to update.
+     * @throws DataExistenceException is thrown if the Todo is not in the database.
+     */
+    private void updateRow(ContentValues contentValues, int id)
+            throws DataExistenceException {
+        try {
+            long start = getMetrics().start();
+            int index = getRowIndex(TABLE_NAME).get(id);
+            if (contentValues.size() > 0) {
+                countImplicitTransaction();
+                this.getWritableDatabase().update(TABLE_NAME, contentValues, COL0 + " = ?", new String[]{Integer.toString(index)});
+                rowCache.remove(index);
+                notifyChange(DataChange.UPDATED, index, id);
+            }
+            getMetrics().record(DatabaseMetrics.UPDATE, start);
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataExistenceException("Data is not in database.");
         }
-        return data;
     }
 
     /**
-     * The helper method determines if the Todo is already in the database.
-     * @param todo a Todo object to determine if is is within the database.
-     * @return a boolean which is true if the Todo is in the database and false otherwise.
-     * @throws IllegalDateFormatException is thrown if the date is not of the proper format
-     *                                    and is not within the legal ranges of months, days and years.
-     *                                    dueDate must be in the format of month/day/year.
-     *                                    Month ranges from 1 - 12 (inclusive).
-     *                                    Day ranges from 1 - 31 (inclusive).
-     *                                    year ranges from 2000 - 2999 (inclusive).
-     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     * The helper method reads a whole Todo row with a single query.
+     * @param rowId an int which is the row ID of the Todo to read.
+     * @return Todo which is the Todo stored in the row.
+     * @throws DataExistenceException is thrown if there is no row with the row ID.
+     * @throws IllegalDateFormatException is thrown if the stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
      */
-    private boolean isDataInDatabase(Todo todo) throws IllegalDateFormatException, IllegalPriorityException {
-        Cursor cursor = this.getAllData(TABLE_NAME);
-        boolean isInDatabase = false;
-
-        if (cursor.moveToFirst()) {
-            do {
-                Todo t = new Todo(cursor.getString(1), cursor.getInt(2), cursor.getString(3));
-                if (todo.equals(t)) {
-                    isInDatabase = true;
-                    break;
-                }
-            } while (cursor.moveToNext());
+    private Todo readTodo(int rowId)
+            throws DataExistenceException, IllegalDateFormatException, IllegalPriorityException {
+        Cursor cursor = this.getReadableDatabase().rawQuery(SELECT_ROW_QUERY, new String[] {Integer.toString(rowId)});
+        try {
+            if (!cursor.moveToFirst()) {
+                throw new DataExistenceException("Data is not in database.");
+            }
+            return new Todo(cursor.getString(0), cursor.getInt(1), cursor.getString(2));
+        } finally {
+            cursor.close();
         }
-        return isInDatabase;
     }
 
     /**
-     * The helper method updates the indexes of the Database.
+     * The helper method determines if the Todo is already in the database.
+     * Two Todos are the same if they have the same name and due date, and the
+     * lookup is answered from the index on those columns.
+     * @param todo a Todo object to determine if is is within the database.
+     * @return a boolean which is true if the Todo is in the database and false otherwise.
      */
-    private void updateIndexes() {
-        String query = "SELECT * FROM " + TABLE_NAME;
-        Cursor cursor = this.getWritableDatabase().rawQuery(query, null);
-        indexArrayList.clear();
-
-        if (cursor.moveToFirst()) {
-            do {
-                indexArrayList.add(cursor.getInt(0));
-            } while (cursor.moveToNext());
-        }
+    private boolean isDataInDatabase(Todo todo) {
+        return simpleQueryForLong(EXISTS_QUERY, todo.getName(), todo.getDueDate()) != 0;
     }
 
     /**
@@ -1,77 +1,65 @@
 package com.bcit.swch.swch;
 
 import android.app.Fragment;
-import android.content.Intent;
 import android.database.Cursor;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.view.LayoutInflater;
-import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
-import android.widget.ListAdapter;
 import android.widget.ListView;
 
 import com.example.burt.swch_planner.R;
 
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by Burt on 2017-11-26.
  */
 
 public class TodoFragment extends Fragment {
+    private static final int PAGE_SIZE = 50;
     private ListView listView;
     private TodoDatabase db;
+    private PagedListAdapter<String> adapter;
 
     @Nullable
     @Override
     public View onCreateView(LayoutInflater inflater, @Nullable ViewGroup container, Bundle savedInstanceState) {
         View myView;
         myView = inflater.inflate(R.layout.todo_layout, container, false);
+        listView = (ListView) myView.findViewById(R.id.listView);
+        db = new TodoDatabase(getActivity());
+        populateTaskList();
         return myView;
+    }
 
-        listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+    public void populateTaskList() {
+        adapter = new PagedListAdapter<>(getActivity(), PAGE_SIZE, new PageLoader<String>() {
             @Override
-            public void onItemClick(AdapterView<?> adapterView, View view, int i, long l) {
-                String selectedDate = adapterView.getItemAtPosition(i).toString();
-                Cursor cursor = db.getTask(selectedDate);
-                String task = "";
-                while (cursor.moveToNext()) {
-                    task += cursor.getString(0);
+            public long loadPage(long afterKey, int pageSize, List<String> items) {
+                Cursor data = db.getTodoPage(afterKey, pageSize);
+                try {
+                    while (data.moveToNext()) {
+                        items.add(data.getString(1));
+                        afterKey = data.getLong(0);
+                    }
+                    return afterKey;
+                } finally {
+                    data.close();
                 }
-                Intent intent = new Intent(getApplicationContext(), ViewTaskActivity.class);
-                intent.putExtra("task", task);
-                intent.putExtra("date", selectedDate);
-                startActivity(intent);
             }
         });
-    }
-
-    public void populateTaskList() {
-        Cursor data = db.getData();
-        ArrayList<String> dates = new ArrayList<>();
-
-        while (data.moveToNext()) {
-            dates.add(data.getString(1));
-        }
-        ListAdapter adapter = new ArrayAdapter<>(getApplicationContext(), android.R.layout.simple_list_item_1, dates);
         listView.setAdapter(adapter);
+        db.addChangeListener(adapter);
     }
 
-    //The method changes the activity depending on the action bar icon that is pressed.
-    //Additional cases are needed for each action bar icon that is added.
     @Override
-    public boolean onOptionsItemSelected(MenuItem item) {
-        int iconId = item.getItemId();
-
-        switch (iconId) {
-            case R.id.calendarIcon:
-                startActivity(new Intent(getApplicationContext(), CalendarActivity.class));
-                break;
+    public void onDestroyView() {
+        if (adapter != null) {
+            db.removeChangeListener(adapter);
+            adapter = null;
         }
-        return super.onOptionsItemSelected(item);
+        super.onDestroyView();
     }
 }
@@ -0,0 +1,111 @@
+package com.bcit.swch.swch;
+
+import java.util.ArrayList;
+
+/**
+ * TodoStore interface is the storage contract for Todos.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+public interface TodoStore extends DataStore {
+
+    /**
+     * Gets the Todo from the store.
+     * @param id an int which is the id of the Todo to retrieve.
+     * @return Todo the todo containing all the data of the todo.
+     * @throws DataExistenceException is thrown if the Todo is not in the store.
+     * @throws IllegalDateFormatException is thrown if the stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if the stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    Todo getTodo(int id) throws DataExistenceException, IllegalDateFormatException, IllegalPriorityException;
+
+    /**
+     * Updates the Todo to a new Todo.
+     * @param newTodoName a string which is the new Todo name to update to.
+     * @param newTodoPriority an int which is the new priority to update to.
+     * @param newTodoDueDate a string which is the new due date to update to.
+     * @param id an int which is the id of the Todo to update.
+     * @throws DataExistenceException is thrown if the Todo is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format.
+     */
+    void updateTodo(String newTodoName, int newTodoPriority, String newTodoDueDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException;
+
+    /**
+     * Updates only the given fields of the Todo. Fields which are null are left unchanged.
+     * @param newTodoName a string which is the new Todo name to update to, or null.
+     * @param newTodoPriority an Integer which is the new priority to update to, or null.
+     * @param newTodoDueDate a string which is the new due date to update to, or null.
+     * @param id an int which is the id of the Todo to update.
+     * @throws DataExistenceException is thrown if the Todo is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format.
+     */
+    void updateTodoFields(String newTodoName, Integer newTodoPriority, String newTodoDueDate, int id)
+            throws DataExistenceException, IllegalPriorityException, IllegalDateFormatException;
+
+    /**
+     * Updates the name of the Todo to a new Todo name.
+     * @param newTodoName a string which is the new Todo name to update to.
+     * @param id an int which is the id of the Todo to update.
+     * @throws DataExistenceException is thrown if the Todo is not in the store.
+     */
+    void updateTodoName(String newTodoName, int id) throws DataExistenceException;
+
+    /**
+     * Updates the priority of the Todo to a new priority.
+     * @param newTodoPriority an int which is the new priority to update to.
+     * @param id an int which is the id of the Todo to update.
+     * @throws DataExistenceException is thrown if the Todo is not in the store.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    void updateTodoPriority(int newTodoPriority, int id) throws DataExistenceException, IllegalPriorityException;
+
+    /**
+     * Updates the due date of the Todo to a new due date.
+     * @param newTodoDueDate a string which is the new due date to update to.
+     * @param id an int which is the id of the Todo to update.
+     * @throws DataExistenceException is thrown if the Todo is not in the store.
+     * @throws IllegalDateFormatException is thrown if the date is not of the proper format.
+     */
+    void updateTodoDueDate(String newTodoDueDate, int id) throws DataExistenceException, IllegalDateFormatException;
+
+    /**
+     * Gets the Todos due within a range of dates, ordered by date.
+     * @param from the first date of the range (inclusive).
+     * @param to the last date of the range (inclusive).
+     * @return ArrayList of the Todos within the range, ordered by date.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    ArrayList<Todo> getTodosDueBetween(Date from, Date to) throws IllegalDateFormatException, IllegalPriorityException;
+
+    /**
+     * Gets the most urgent Todos: highest priority (1) first, then earliest date.
+     * Unlike getTopEvents, there is no lower bound on the date: a Todo stays to be done
+     * after it is due, so overdue Todos are returned, and rank first within their priority.
+     * @param k an int which is the largest number of Todos to return.
+     * @return ArrayList of at most k Todos, most urgent first.
+     * @throws IllegalDateFormatException is thrown if a stored date is not of the proper format.
+     * @throws IllegalPriorityException is thrown if a stored priority is not within the range of 1 - 3 (inclusive).
+     */
+    ArrayList<Todo> getTopTodos(int k) throws IllegalDateFormatException, IllegalPriorityException;
+
+    /**
+     * Deletes every Todo due before a date. Todos without a date are kept.
+     * @param date the first date which is kept.
+     * @return int which is the number of Todos deleted.
+     */
+    int deleteTodosDueBefore(Date date);
+
+    /**
+     * Deletes every Todo of a priority.
+     * @param priority an int which is the priority of the Todos to delete.
+     * @return int which is the number of Todos deleted.
+     * @throws IllegalPriorityException is thrown if the priority is not within the range of 1 - 3 (inclusive).
+     */
+    int deleteTodosWithPriority(int priority) throws IllegalPriorityException;
+}
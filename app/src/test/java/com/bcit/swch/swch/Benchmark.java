@@ -0,0 +1,164 @@
+package com.bcit.swch.swch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Benchmark class is a small measurement harness for the database benchmarks.
+ *
+ * Each operation is run for a number of warmup trials, whose times are thrown away,
+ * and then for a number of measured trials. The median and 90th percentile time per
+ * operation are kept, and the results can be saved and compared with a baseline so
+ * regressions show up between commits.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+
+final class Benchmark {
+
+    /**
+     * An operation to measure.
+     */
+    interface Operation {
+
+        /**
+         * Runs the operation once.
+         * @param i an int which is the number of the run within the trial.
+         * @throws Exception is thrown if the operation fails, which fails the benchmark.
+         */
+        void run(int i) throws Exception;
+    }
+
+    /**
+     * The header line of the results file.
+     */
+    private static final String HEADER = "benchmark,rows,median_ns_per_op,p90_ns_per_op";
+
+    /**
+     * The number of trials run before measuring.
+     */
+    private final int warmupTrials;
+
+    /**
+     * The number of measured trials.
+     */
+    private final int trials;
+
+    /**
+     * The results measured so far, keyed by benchmark name and row count.
+     */
+    private final Map<String, double[]> results = new LinkedHashMap<>();
+
+    /**
+     * The constructor which constructs an object of type Benchmark.
+     * @param warmupTrials an int which is the number of trials run before measuring.
+     * @param trials an int which is the number of measured trials.
+     */
+    Benchmark(int warmupTrials, int trials) {
+        this.warmupTrials = warmupTrials;
+        this.trials = trials;
+    }
+
+    /**
+     * Measures an operation.
+     * @param name a string which is the name of the benchmark.
+     * @param rows an int which is the number of rows in the table while measuring.
+     * @param opsPerTrial an int which is the number of times the operation is run in each trial.
+     * @param operation the operation to measure.
+     * @return double which is the median time per operation in nanoseconds.
+     * @throws Exception is thrown if the operation fails.
+     */
+    double measure(String name, int rows, int opsPerTrial, Operation operation) throws Exception {
+        double[] nanosPerOp = new double[trials];
+        int run = 0;
+        for (int trial = 0; trial < warmupTrials + trials; trial++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < opsPerTrial; i++) {
+                operation.run(run++);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (trial >= warmupTrials) {
+                nanosPerOp[trial - warmupTrials] = (double) elapsed / opsPerTrial;
+            }
+        }
+        Arrays.sort(nanosPerOp);
+        double median = nanosPerOp[trials / 2];
+        double p90 = nanosPerOp[Math.min(trials - 1, (int) Math.ceil(trials * 0.9) - 1)];
+        results.put(key(name, rows), new double[] {median, p90});
+        System.out.println(String.format(Locale.US, "%-28s %7d rows %12.0f ns/op (p90 %.0f)", name, rows, median, p90));
+        return median;
+    }
+
+    /**
+     * Saves the results as comma separated values.
+     * @param file the file to write.
+     * @throws IOException is thrown if the file cannot be written.
+     */
+    void save(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            writer.println(HEADER);
+            for (Map.Entry<String, double[]> entry : results.entrySet()) {
+                writer.println(String.format(Locale.US, "%s,%.0f,%.0f",
+                        entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Compares the results with a baseline saved by an earlier run.
+     * @param baseline the file saved by the earlier run.
+     * @param tolerance a double which is the allowed slowdown, e.g. 0.25 for 25%.
+     * @return List of descriptions of the benchmarks slower than the baseline by more than the tolerance.
+     * @throws IOException is thrown if the baseline cannot be read.
+     */
+    List<String> findRegressions(File baseline, double tolerance) throws IOException {
+        List<String> regressions = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new FileReader(baseline));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (line.equals(HEADER) || fields.length != 4) {
+                    continue;
+                }
+                double[] current = results.get(fields[0] + "," + fields[1]);
+                double before = Double.parseDouble(fields[2]);
+                if (current != null && current[0] > before * (1 + tolerance)) {
+                    regressions.add(String.format(Locale.US, "%s at %s rows: %.0f ns/op, was %.0f ns/op",
+                            fields[0], fields[1], current[0], before));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return regressions;
+    }
+
+    /**
+     * Helper method used to make the key of a result.
+     * @param name a string which is the name of the benchmark.
+     * @param rows an int which is the number of rows in the table.
+     * @return string which is the key of the result.
+     */
+    private static String key(String name, int rows) {
+        return name + "," + rows;
+    }
+}
@@ -0,0 +1,415 @@
+package com.bcit.swch.swch;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Benchmarks of TodoDatabase, EventDatabase and NoteDatabase, run on the host JVM
+ * against Robolectric's SQLite so no device is needed. The in-memory stores run the
+ * same operations so the two engines can be compared directly.
+ *
+ * Skipped unless the build is run with -Pbenchmark, e.g.
+ * ./gradlew testDebugUnitTest -Pbenchmark --tests '*DatabaseBenchmark'
+ * Results are written to app/build/benchmarks/database-benchmark.csv. The first run without
+ * app/benchmarks/baseline.csv also saves its results there; commit that file so later runs
+ * fail when an operation gets slower. Background compaction is turned off while measuring,
+ * and the file is compacted after each fill instead, so a compaction started by emptying a
+ * large table does not run during the timed trials.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class DatabaseBenchmark {
+
+    /**
+     * The table sizes each database is measured at.
+     */
+    private static final int[] ROW_COUNTS = {1000, 10000, 100000};
+
+    /**
+     * The number of operations in each trial of the single-row benchmarks.
+     */
+    private static final int OPS_PER_TRIAL = 100;
+
+    /**
+     * The number of deletes in each trial, kept small so the table stays near its size.
+     */
+    private static final int DELETES_PER_TRIAL = 50;
+
+    /**
+     * A prime stride used to spread reads over the table so they miss the row cache.
+     */
+    private static final int STRIDE = 7919;
+
+    /**
+     * The database operations measured for each kind of data.
+     */
+    private interface Subject {
+
+        /**
+         * Gets the name used to prefix the benchmark names.
+         * @return string which is the name of the database.
+         */
+        String name();
+
+        /**
+         * Empties the table and fills it with rows.
+         * @param rows an int which is the number of rows to add.
+         * @throws Exception is thrown if the rows cannot be added.
+         */
+        void fill(int rows) throws Exception;
+
+        /**
+         * Adds a data object which is not yet in the table.
+         * @param i an int which makes the data object unique.
+         * @throws Exception is thrown if the data object cannot be added.
+         */
+        void add(int i) throws Exception;
+
+        /**
+         * Adds a data object which is already in the table, so the duplicate check rejects it.
+         * @param i an int which picks the existing data object.
+         * @return boolean which is true if the data object was rejected.
+         * @throws Exception is thrown if the data object is not legal.
+         */
+        boolean addDuplicate(int i) throws Exception;
+
+        /**
+         * Gets the data object at a position.
+         * @param position an int which is the position of the data object.
+         * @throws Exception is thrown if the data object cannot be read.
+         */
+        void get(int position) throws Exception;
+
+        /**
+         * Updates the priority of the data object at a position.
+         * @param position an int which is the position of the data object.
+         * @param priority an int which is the new priority.
+         * @throws Exception is thrown if the data object cannot be updated.
+         */
+        void update(int position, int priority) throws Exception;
+
+        /**
+         * Deletes the data object at a position.
+         * @param position an int which is the position of the data object.
+         * @throws Exception is thrown if the data object cannot be deleted.
+         */
+        void delete(int position) throws Exception;
+
+        /**
+         * Reads every row of the table.
+         * @return int which is the number of rows read.
+         */
+        int listAll();
+    }
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        Assume.assumeTrue("Run with -Pbenchmark to measure the databases.", Boolean.getBoolean("benchmark"));
+
+        Context context = RuntimeEnvironment.application;
+        Benchmark benchmark = new Benchmark(2, 5);
+        TodoDatabase todoDatabase = new TodoDatabase(context);
+        CompactionScheduler compaction = todoDatabase.getCompactionScheduler();
+        compaction.setEnabled(false);
+        Subject[] subjects = {
+                todos(todoDatabase, "todo"),
+                events(new EventDatabase(context), "event"),
+                notes(new NoteDatabase(context), "note"),
+                todos(new InMemoryTodoStore(), "memory.todo"),
+                events(new InMemoryEventStore(), "memory.event"),
+                notes(new InMemoryNoteStore(), "memory.note")};
+
+        for (Subject subject : subjects) {
+            for (int rows : ROW_COUNTS) {
+                measure(benchmark, subject, rows, compaction);
+            }
+        }
+
+        benchmark.save(new File(System.getProperty("benchmark.output", "build/benchmarks/database-benchmark.csv")));
+        File baseline = new File(System.getProperty("benchmark.baseline", "benchmarks/baseline.csv"));
+        if (baseline.isFile()) {
+            double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "0.25"));
+            List<String> regressions = benchmark.findRegressions(baseline, tolerance);
+            assertTrue("Slower than the baseline:\n" + regressions, regressions.isEmpty());
+        } else {
+            benchmark.save(baseline);
+            System.out.println("No baseline found; saved this run as " + baseline.getAbsolutePath()
+                    + ". Commit it to check later runs against it.");
+        }
+    }
+
+    /**
+     * Helper method used to measure every operation of a database at one table size.
+     * @param benchmark the harness which records the results.
+     * @param subject the database to measure.
+     * @param rows an int which is the number of rows in the table.
+     * @param compaction the compaction scheduler of the database file, run after the table is filled.
+     * @throws Exception is thrown if an operation fails.
+     */
+    private static void measure(Benchmark benchmark, final Subject subject, final int rows,
+                                CompactionScheduler compaction) throws Exception {
+        subject.fill(rows);
+        compaction.compactIfNeeded();
+        String name = subject.name();
+
+        benchmark.measure(name + ".listAll", rows, 1, new Benchmark.Operation() {
+            @Override
+            public void run(int i) {
+                assertTrue(subject.listAll() >= rows);
+            }
+        });
+        benchmark.measure(name + ".get", rows, OPS_PER_TRIAL, new Benchmark.Operation() {
+            @Override
+            public void run(int i) throws Exception {
+                subject.get((int) ((long) i * STRIDE % rows));
+            }
+        });
+        benchmark.measure(name + ".duplicateCheck", rows, OPS_PER_TRIAL, new Benchmark.Operation() {
+            @Override
+            public void run(int i) throws Exception {
+                assertTrue(subject.addDuplicate((int) ((long) i * STRIDE % rows)));
+            }
+        });
+        benchmark.measure(name + ".update", rows, OPS_PER_TRIAL, new Benchmark.Operation() {
+            @Override
+            public void run(int i) throws Exception {
+                subject.update((int) ((long) i * STRIDE % rows), i % 3 + 1);
+            }
+        });
+        benchmark.measure(name + ".add", rows, OPS_PER_TRIAL, new Benchmark.Operation() {
+            @Override
+            public void run(int i) throws Exception {
+                subject.add(i);
+            }
+        });
+        benchmark.measure(name + ".delete", rows, DELETES_PER_TRIAL, new Benchmark.Operation() {
+            @Override
+            public void run(int i) throws Exception {
+                subject.delete((int) ((long) i * STRIDE % (rows / 2)));
+            }
+        });
+    }
+
+    /**
+     * Helper method used to make a date which differs for each number.
+     * @param i an int which picks the date.
+     * @return string which is a legal month/day/year date.
+     */
+    private static String dateOf(int i) {
+        return (i % 12 + 1) + "/" + (i / 12 % 28 + 1) + "/" + (2000 + i / 336 % 1000);
+    }
+
+    /**
+     * Helper method used to adapt a store for Todos to the benchmarks.
+     * @param db the store to measure.
+     * @param name a string which is the name used to prefix the benchmark names.
+     * @return Subject which runs the operations on the store.
+     */
+    private static Subject todos(final TodoStore db, final String name) {
+        return new Subject() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void fill(int rows) throws Exception {
+                db.deleteAllData("todo_table");
+                List<Todo> todos = new ArrayList<>(rows);
+                for (int i = 0; i < rows; i++) {
+                    todos.add(new Todo("Todo " + i, i % 3 + 1, dateOf(i)));
+                }
+                assertEquals(rows, db.addDataEntries(todos, true).getInsertedCount());
+            }
+
+            @Override
+            public void add(int i) throws Exception {
+                db.addDataEntry(new Todo("Added todo " + i, i % 3 + 1, dateOf(i)));
+            }
+
+            @Override
+            public boolean addDuplicate(int i) throws Exception {
+                try {
+                    db.addDataEntry(new Todo("Todo " + i, i % 3 + 1, dateOf(i)));
+                    return false;
+                } catch (DataExistenceException e) {
+                    return true;
+                }
+            }
+
+            @Override
+            public void get(int position) throws Exception {
+                db.getTodo(position);
+            }
+
+            @Override
+            public void update(int position, int priority) throws Exception {
+                db.updateTodoPriority(priority, position);
+            }
+
+            @Override
+            public void delete(int position) throws Exception {
+                db.deleteDataEntry(position);
+            }
+
+            @Override
+            public int listAll() {
+                return countRows(db.getAllData("todo_table"));
+            }
+        };
+    }
+
+    /**
+     * Helper method used to adapt a store for Events to the benchmarks.
+     * @param db the store to measure.
+     * @param name a string which is the name used to prefix the benchmark names.
+     * @return Subject which runs the operations on the store.
+     */
+    private static Subject events(final EventStore db, final String name) {
+        return new Subject() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void fill(int rows) throws Exception {
+                db.deleteAllData("event_table");
+                List<Event> events = new ArrayList<>(rows);
+                for (int i = 0; i < rows; i++) {
+                    events.add(new Event("Event " + i, i % 3 + 1, dateOf(i)));
+                }
+                assertEquals(rows, db.addDataEntries(events, true).getInsertedCount());
+            }
+
+            @Override
+            public void add(int i) throws Exception {
+                db.addDataEntry(new Event("Added event " + i, i % 3 + 1, dateOf(i)));
+            }
+
+            @Override
+            public boolean addDuplicate(int i) throws Exception {
+                try {
+                    db.addDataEntry(new Event("Event " + i, i % 3 + 1, dateOf(i)));
+                    return false;
+                } catch (DataExistenceException e) {
+                    return true;
+                }
+            }
+
+            @Override
+            public void get(int position) throws Exception {
+                db.getEvent(position);
+            }
+
+            @Override
+            public void update(int position, int priority) throws Exception {
+                db.updateEventPriority(priority, position);
+            }
+
+            @Override
+            public void delete(int position) throws Exception {
+                db.deleteDataEntry(position);
+            }
+
+            @Override
+            public int listAll() {
+                return countRows(db.getAllData("event_table"));
+            }
+        };
+    }
+
+    /**
+     * Helper method used to adapt a store for Notes to the benchmarks.
+     * @param db the store to measure.
+     * @param name a string which is the name used to prefix the benchmark names.
+     * @return Subject which runs the operations on the store.
+     */
+    private static Subject notes(final NoteStore db, final String name) {
+        return new Subject() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void fill(int rows) throws Exception {
+                db.deleteAllData("note_table");
+                List<Note> notes = new ArrayList<>(rows);
+                for (int i = 0; i < rows; i++) {
+                    notes.add(new Note("Note " + i, i % 3 + 1, "Contents of note " + i));
+                }
+                assertEquals(rows, db.addDataEntries(notes, true).getInsertedCount());
+            }
+
+            @Override
+            public void add(int i) throws Exception {
+                db.addDataEntry(new Note("Added note " + i, i % 3 + 1, "Contents of added note " + i));
+            }
+
+            @Override
+            public boolean addDuplicate(int i) throws Exception {
+                try {
+                    db.addDataEntry(new Note("Note " + i, i % 3 + 1, "Contents of note " + i));
+                    return false;
+                } catch (DataExistenceException e) {
+                    return true;
+                }
+            }
+
+            @Override
+            public void get(int position) throws Exception {
+                db.getNote(position);
+            }
+
+            @Override
+            public void update(int position, int priority) throws Exception {
+                db.updateNotePriority(priority, position);
+            }
+
+            @Override
+            public void delete(int position) throws Exception {
+                db.deleteDataEntry(position);
+            }
+
+            @Override
+            public int listAll() {
+                return countRows(db.getAllData("note_table"));
+            }
+        };
+    }
+
+    /**
+     * Helper method used to read every row of a cursor.
+     * @param cursor the cursor to read, which is closed afterwards.
+     * @return int which is the number of rows read.
+     */
+    private static int countRows(Cursor cursor) {
+        try {
+            int count = 0;
+            while (cursor.moveToNext()) {
+                cursor.getString(1);
+                count++;
+            }
+            return count;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.bcit.swch.swch;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of Date's parsing of month/day/year and of its day numbers.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+public class DateTest {
+
+    /**
+     * Determines if a date is rejected by Date.parse.
+     * @param date a string which is the date.
+     * @return boolean which is true if parse throws and false otherwise.
+     */
+    private static boolean isRejected(String date) {
+        try {
+            Date.parse(date);
+            return false;
+        } catch (IllegalDateFormatException e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void parse_packsDate() throws Exception {
+        assertEquals(20180105, Date.parse("1/5/2018"));
+        assertEquals(20181231, Date.parse("12/31/2018"));
+        assertEquals("12/31/2018", Date.format(20181231));
+    }
+
+    @Test
+    public void parse_acceptsLeapDayOfLeapYears() throws Exception {
+        assertEquals(20000229, Date.parse("2/29/2000"));
+        assertEquals(20240229, Date.parse("2/29/2024"));
+        assertEquals(24000229, Date.parse("2/29/2400"));
+    }
+
+    @Test
+    public void parse_rejectsLeapDayOfOtherYears() {
+        assertTrue(isRejected("2/29/2018"));
+        assertTrue(isRejected("2/29/2100"));
+        assertTrue(isRejected("2/29/2200"));
+    }
+
+    @Test
+    public void parse_rejectsDaysPastEndOfMonth() {
+        assertTrue(isRejected("2/31/2018"));
+        assertTrue(isRejected("2/30/2000"));
+        assertTrue(isRejected("4/31/2018"));
+        assertTrue(isRejected("1/32/2018"));
+        assertTrue(isRejected("1/0/2018"));
+        assertTrue(isRejected("13/1/2018"));
+    }
+
+    @Test
+    public void parse_rejectsYearsOutOfRange() {
+        assertTrue(isRejected("2/28/1900"));
+        assertTrue(isRejected("2/29/1900"));
+        assertTrue(isRejected("1/1/1999"));
+        assertTrue(isRejected("1/1/3000"));
+    }
+
+    @Test
+    public void parse_rejectsLeadingZeros() {
+        assertTrue(isRejected("01/5/2018"));
+        assertTrue(isRejected("1/05/2018"));
+        assertTrue(isRejected("0/5/2018"));
+        assertTrue(isRejected("1/5/02018"));
+    }
+
+    @Test
+    public void parse_rejectsBadSeparatorsAndLengths() {
+        assertTrue(isRejected("1-5-2018"));
+        assertTrue(isRejected("1/5-2018"));
+        assertTrue(isRejected("1.5.2018"));
+        assertTrue(isRejected("1//2018"));
+        assertTrue(isRejected("/5/2018"));
+        assertTrue(isRejected("1/5/"));
+        assertTrue(isRejected("1/5/18"));
+        assertTrue(isRejected("1/5/20180"));
+        assertTrue(isRejected("1/5/2018 "));
+        assertTrue(isRejected(" 1/5/2018"));
+        assertTrue(isRejected("123/5/2018"));
+        assertTrue(isRejected(""));
+        assertTrue(isRejected(null));
+    }
+
+    @Test
+    public void isValidKey_checksCenturyLeapYears() {
+        assertTrue(Date.isValidKey(20000229));
+        assertFalse(Date.isValidKey(21000229));
+        assertFalse(Date.isValidKey(20180231));
+    }
+
+    @Test
+    public void toDayNumber_stepsOverCenturyLeapRules() {
+        assertEquals(19000301, Date.fromDayNumber(Date.toDayNumber(19000228) + 1));
+        assertEquals(20000229, Date.fromDayNumber(Date.toDayNumber(20000228) + 1));
+        assertEquals(20000301, Date.fromDayNumber(Date.toDayNumber(20000229) + 1));
+        assertEquals(366, Date.toDayNumber(20010101) - Date.toDayNumber(20000101));
+        assertEquals(365, Date.toDayNumber(19010101) - Date.toDayNumber(19000101));
+    }
+
+    @Test
+    public void toDayNumber_roundTripsEveryDayAndMatchesCalendar() {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(1900, Calendar.JANUARY, 1);
+        int first = Date.toDayNumber(19000101);
+        int last = Date.toDayNumber(29991231);
+        for (int dayNumber = first; dayNumber <= last; dayNumber++) {
+            int key = Date.fromDayNumber(dayNumber);
+            int expected = calendar.get(Calendar.YEAR) * 10000 + (calendar.get(Calendar.MONTH) + 1) * 100
+                    + calendar.get(Calendar.DAY_OF_MONTH);
+            assertEquals(expected, key);
+            assertEquals(dayNumber, Date.toDayNumber(key));
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+}
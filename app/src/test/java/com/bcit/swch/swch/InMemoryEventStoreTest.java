@@ -0,0 +1,75 @@
+package com.bcit.swch.swch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the top-K query of InMemoryEventStore with Events which repeat.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+public class InMemoryEventStoreTest {
+
+    @Test
+    public void getTopEvents_ranksRepeatingEventByNextOccurrence() throws Exception {
+        InMemoryEventStore store = new InMemoryEventStore();
+        store.addDataEntry(new Event("weekly", 1, "1/1/2018", new Recurrence(Recurrence.WEEKLY, 1, null)));
+        store.addDataEntry(new Event("soon", 1, "3/8/2018"));
+        store.addDataEntry(new Event("later", 1, "3/20/2018"));
+
+        ArrayList<Event> top = store.getTopEvents(3, new Date("3/7/2018"));
+
+        assertEquals(3, top.size());
+        assertEquals("soon", top.get(0).getName());
+        assertEquals("weekly", top.get(1).getName());
+        assertEquals("3/12/2018", top.get(1).getEventDate());
+        assertTrue(top.get(1).isRecurring());
+        assertEquals("later", top.get(2).getName());
+    }
+
+    @Test
+    public void getTopEvents_leavesOutEndedRepeatingEvents() throws Exception {
+        InMemoryEventStore store = new InMemoryEventStore();
+        store.addDataEntry(new Event("ended", 1, "1/1/2018", new Recurrence(Recurrence.DAILY, 1, "1/31/2018")));
+        store.addDataEntry(new Event("once", 2, "2/5/2018"));
+
+        ArrayList<Event> top = store.getTopEvents(5, new Date("2/1/2018"));
+
+        assertEquals(1, top.size());
+        assertEquals("once", top.get(0).getName());
+    }
+
+    @Test
+    public void getTopEvents_leavesOutPastEventsWhichOccurOnce() throws Exception {
+        InMemoryEventStore store = new InMemoryEventStore();
+        store.addDataEntry(new Event("past", 1, "1/5/2015"));
+        store.addDataEntry(new Event("class", 1, "1/1/2018", new Recurrence(Recurrence.WEEKLY, 1, null)));
+        store.addDataEntry(new Event("today", 2, "3/7/2018"));
+
+        ArrayList<Event> top = store.getTopEvents(3, new Date("3/7/2018"));
+
+        assertEquals(2, top.size());
+        assertEquals("class", top.get(0).getName());
+        assertEquals("3/12/2018", top.get(0).getEventDate());
+        assertEquals("today", top.get(1).getName());
+    }
+
+    @Test
+    public void getTopEvents_putsOnceBeforeOccurrenceOnSameDate() throws Exception {
+        InMemoryEventStore store = new InMemoryEventStore();
+        store.addDataEntry(new Event("monthly", 2, "1/15/2018", new Recurrence(Recurrence.MONTHLY, 1, null)));
+        store.addDataEntry(new Event("once", 2, "2/15/2018"));
+        store.addDataEntry(new Event("low", 3, "2/1/2018"));
+
+        ArrayList<Event> top = store.getTopEvents(2, new Date("2/2/2018"));
+
+        assertEquals(2, top.size());
+        assertEquals("once", top.get(0).getName());
+        assertEquals("monthly", top.get(1).getName());
+        assertEquals("2/15/2018", top.get(1).getEventDate());
+    }
+}
@@ -0,0 +1,108 @@
+package com.bcit.swch.swch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of IntervalIndex, which finds the values whose ranges overlap a query range.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+public class IntervalIndexTest {
+
+    /**
+     * Makes an index of the ranges given as pairs of start and end, valued by their order.
+     * @param ranges the start and end of each range.
+     * @return IntervalIndex of the ranges.
+     */
+    private static IntervalIndex<Integer> indexOf(int... ranges) {
+        List<Integer> values = new ArrayList<>();
+        int[] starts = new int[ranges.length / 2];
+        int[] ends = new int[ranges.length / 2];
+        for (int i = 0; i < starts.length; i++) {
+            values.add(i);
+            starts[i] = ranges[2 * i];
+            ends[i] = ranges[2 * i + 1];
+        }
+        return new IntervalIndex<>(values, starts, ends);
+    }
+
+    /**
+     * Queries an index.
+     * @param index the index to query.
+     * @param from the first key of the query range.
+     * @param to the last key of the query range.
+     * @return List of the matching values.
+     */
+    private static List<Integer> query(IntervalIndex<Integer> index, int from, int to) {
+        List<Integer> matches = new ArrayList<>();
+        index.query(from, to, matches);
+        return matches;
+    }
+
+    @Test
+    public void query_matchesOverlapsInclusiveOfEnds() {
+        IntervalIndex<Integer> index = indexOf(10, 20, 30, 40, 15, 35);
+        assertEquals(Arrays.asList(0, 2), query(index, 20, 20));
+        assertEquals(Arrays.asList(2, 1), query(index, 30, 30));
+        assertEquals(Arrays.asList(1), query(index, 40, 50));
+        assertEquals(Arrays.asList(0), query(index, 0, 10));
+        assertEquals(Collections.<Integer>emptyList(), query(index, 41, 50));
+        assertEquals(Collections.<Integer>emptyList(), query(index, 0, 9));
+    }
+
+    @Test
+    public void query_returnsMatchesInOrderOfStart() {
+        IntervalIndex<Integer> index = indexOf(50, 60, 10, 100, 30, 70);
+        assertEquals(Arrays.asList(1, 2, 0), query(index, 55, 55));
+    }
+
+    @Test
+    public void query_findsRangesContainingQuery() {
+        IntervalIndex<Integer> index = indexOf(20000101, Recurrence.NO_END, 20180101, 20180131);
+        assertEquals(Arrays.asList(0, 1), query(index, 20180115, 20180116));
+        assertEquals(Arrays.asList(0), query(index, 20180201, Recurrence.NO_END));
+    }
+
+    @Test
+    public void query_emptyIndexMatchesNothing() {
+        IntervalIndex<Integer> index = indexOf();
+        assertEquals(0, index.size());
+        assertEquals(Collections.<Integer>emptyList(), query(index, 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void query_matchesBruteForce() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 50; trial++) {
+            int size = random.nextInt(200);
+            int[] ranges = new int[size * 2];
+            for (int i = 0; i < size; i++) {
+                ranges[2 * i] = random.nextInt(1000);
+                ranges[2 * i + 1] = ranges[2 * i] + random.nextInt(100);
+            }
+            IntervalIndex<Integer> index = indexOf(ranges);
+            for (int q = 0; q < 50; q++) {
+                int from = random.nextInt(1100);
+                int to = from + random.nextInt(50);
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    if (ranges[2 * i] <= to && ranges[2 * i + 1] >= from) {
+                        expected.add(i);
+                    }
+                }
+                List<Integer> actual = query(index, from, to);
+                Collections.sort(actual);
+                assertEquals(expected, actual);
+            }
+        }
+    }
+}
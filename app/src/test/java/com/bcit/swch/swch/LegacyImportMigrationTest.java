@@ -0,0 +1,103 @@
+package com.bcit.swch.swch;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of LegacyImportMigration, which copies the tables of the old database files
+ * and repairs the dates the old files did not check.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LegacyImportMigrationTest {
+
+    @Before
+    public void setUp() {
+        PlannerDatabaseHelper.resetInstance();
+    }
+
+    @After
+    public void tearDown() {
+        PlannerDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void repairDate_keepsValidDates() {
+        assertEquals(20180105, LegacyImportMigration.repairDate("1/5/2018"));
+        assertEquals(20000229, LegacyImportMigration.repairDate("2/29/2000"));
+    }
+
+    @Test
+    public void repairDate_clampsDayToEndOfMonth() {
+        assertEquals(20180228, LegacyImportMigration.repairDate("2/31/2018"));
+        assertEquals(20000229, LegacyImportMigration.repairDate("2/30/2000"));
+        assertEquals(20180430, LegacyImportMigration.repairDate("4/31/2018"));
+        assertEquals(20181231, LegacyImportMigration.repairDate("12/99/2018"));
+    }
+
+    @Test
+    public void repairDate_dropsLeadingZeros() {
+        assertEquals(20180305, LegacyImportMigration.repairDate("03/05/2018"));
+        assertEquals(20180305, LegacyImportMigration.repairDate(" 3/005/2018 "));
+    }
+
+    @Test
+    public void repairDate_rejectsUnreadableDates() {
+        assertEquals(-1, LegacyImportMigration.repairDate(null));
+        assertEquals(-1, LegacyImportMigration.repairDate(""));
+        assertEquals(-1, LegacyImportMigration.repairDate("soon"));
+        assertEquals(-1, LegacyImportMigration.repairDate("13/1/2018"));
+        assertEquals(-1, LegacyImportMigration.repairDate("0/1/2018"));
+        assertEquals(-1, LegacyImportMigration.repairDate("1/0/2018"));
+        assertEquals(-1, LegacyImportMigration.repairDate("1/5/18"));
+        assertEquals(-1, LegacyImportMigration.repairDate("1/5/1999"));
+        assertEquals(-1, LegacyImportMigration.repairDate("1-5-2018"));
+        assertEquals(-1, LegacyImportMigration.repairDate("1/5/2018/1"));
+    }
+
+    @Test
+    public void import_repairsDatesAndLeavesOutUnreadableRows() throws Exception {
+        Context context = RuntimeEnvironment.application;
+        File file = context.getDatabasePath("todo_table");
+        file.getParentFile().mkdirs();
+        SQLiteDatabase legacy = SQLiteDatabase.openOrCreateDatabase(file, null);
+        legacy.execSQL("CREATE TABLE todo_table (ID INTEGER PRIMARY KEY AUTOINCREMENT, todo_name TEXT, "
+                + "priority INT, due_date TEXT)");
+        legacy.execSQL("INSERT INTO todo_table (todo_name, priority, due_date) VALUES ('rent', 1, '2/31/2018')");
+        legacy.execSQL("INSERT INTO todo_table (todo_name, priority, due_date) VALUES ('later', 2, 'soon')");
+        legacy.execSQL("INSERT INTO todo_table (todo_name, priority, due_date) VALUES ('taxes', 3, '04/05/2018')");
+        legacy.close();
+
+        TodoDatabase todos = new TodoDatabase(context);
+        Todo rent = todos.getTodo(0);
+        assertEquals("rent", rent.getName());
+        assertEquals("2/28/2018", rent.getDueDate());
+        assertEquals(20180228, rent.getDueDateKey());
+        Todo taxes = todos.getTodo(1);
+        assertEquals("taxes", taxes.getName());
+        assertEquals("4/5/2018", taxes.getDueDate());
+        assertEquals(1, todos.getTodosDueBetween(new Date("2/1/2018"), new Date("2/28/2018")).size());
+        try {
+            todos.getTodo(2);
+            fail("The row with an unreadable date should have been left out.");
+        } catch (DataExistenceException e) {
+            // expected
+        }
+        assertFalse(file.exists());
+    }
+}
@@ -0,0 +1,122 @@
+package com.bcit.swch.swch;
+
+import android.database.Cursor;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how NoteDatabase stores, lists and compares the contents of Notes.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class NoteContentsTest {
+
+    @After
+    public void tearDown() {
+        PlannerDatabaseHelper.resetInstance();
+    }
+
+    /**
+     * Makes contents long enough to be stored compressed.
+     * @param start a string which is the start of the contents.
+     * @return a string which is the contents.
+     */
+    private static String longContents(String start) {
+        StringBuilder contents = new StringBuilder(start);
+        while (contents.length() < CompressedText.THRESHOLD * 2) {
+            contents.append(" lorem ipsum dolor sit amet");
+        }
+        return contents.toString();
+    }
+
+    @Test
+    public void hash_isSameForSameText() {
+        assertEquals(CompressedText.hash("buy apples"), CompressedText.hash("buy apples"));
+        assertNotEquals(CompressedText.hash("buy apples"), CompressedText.hash("buy apple"));
+    }
+
+    @Test
+    public void getAllData_returnsInflatedContents() throws Exception {
+        String contents = longContents("quarterly planning");
+        NoteDatabase notes = new NoteDatabase(RuntimeEnvironment.application);
+        notes.addDataEntry(new Note("short", 1, "buy apples"));
+        notes.addDataEntry(new Note("long", 2, contents));
+
+        Cursor cursor = notes.getAllData("note_table");
+        try {
+            assertArrayEquals(NoteDatabase.COLUMNS, cursor.getColumnNames());
+            assertTrue(cursor.moveToNext());
+            assertEquals("buy apples", cursor.getString(3));
+            assertTrue(cursor.moveToNext());
+            assertEquals("long", cursor.getString(1));
+            assertEquals(contents, cursor.getString(3));
+            assertFalse(cursor.moveToNext());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void getNoteList_leavesOutContents() throws Exception {
+        NoteDatabase notes = new NoteDatabase(RuntimeEnvironment.application);
+        notes.addDataEntry(new Note("short", 1, "buy apples"));
+
+        Cursor cursor = notes.getNoteList();
+        try {
+            assertArrayEquals(NoteDatabase.LIST_COLUMNS, cursor.getColumnNames());
+            assertTrue(cursor.moveToNext());
+            assertEquals("short", cursor.getString(1));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void addDataEntry_rejectsDuplicateOfCompressedNote() throws Exception {
+        NoteDatabase notes = new NoteDatabase(RuntimeEnvironment.application);
+        notes.addDataEntry(new Note("long", 1, longContents("quarterly planning")));
+        notes.addDataEntry(new Note("long", 1, longContents("yearly planning")));
+        try {
+            notes.addDataEntry(new Note("long", 2, longContents("quarterly planning")));
+            fail("A Note with the same name and contents should have been rejected.");
+        } catch (DataExistenceException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void addDataEntry_acceptsNoteWhoseHashCollides() throws Exception {
+        NoteDatabase notes = new NoteDatabase(RuntimeEnvironment.application);
+        notes.addDataEntry(new Note("long", 1, longContents("quarterly planning")));
+        notes.getWritableDatabase().execSQL("UPDATE note_table SET contents_hash = "
+                + CompressedText.hash("buy apples"));
+
+        notes.addDataEntry(new Note("long", 1, "buy apples"));
+        assertEquals("buy apples", notes.getNote(1).getContents());
+    }
+
+    @Test
+    public void updateNoteContents_updatesDuplicateCheck() throws Exception {
+        NoteDatabase notes = new NoteDatabase(RuntimeEnvironment.application);
+        notes.addDataEntry(new Note("long", 1, longContents("quarterly planning")));
+        notes.updateNoteContents("buy apples", 0);
+
+        notes.addDataEntry(new Note("long", 1, longContents("quarterly planning")));
+        try {
+            notes.addDataEntry(new Note("long", 1, "buy apples"));
+            fail("A Note with the same name and contents should have been rejected.");
+        } catch (DataExistenceException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.bcit.swch.swch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the full-text search of NoteDatabase.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class NoteSearchTest {
+
+    @After
+    public void tearDown() {
+        PlannerDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void toMatchExpression_makesLastWordPrefix() {
+        assertEquals("\"appl*\"", NoteDatabase.toMatchExpression("appl"));
+        assertEquals("\"buy\" \"appl*\"", NoteDatabase.toMatchExpression("  buy   appl "));
+    }
+
+    @Test
+    public void toMatchExpression_dropsQuotesAndEmptyQueries() {
+        assertEquals("\"a*\"", NoteDatabase.toMatchExpression("\"a\""));
+        assertEquals("", NoteDatabase.toMatchExpression("  \" "));
+        assertEquals("", NoteDatabase.toMatchExpression(""));
+    }
+
+    @Test
+    public void searchNotes_findsNoteByPartialWord() throws Exception {
+        NoteDatabase notes = new NoteDatabase(RuntimeEnvironment.application);
+        notes.addDataEntry(new Note("groceries", 1, "buy apples and bananas"));
+        notes.addDataEntry(new Note("work", 2, "finish the report"));
+
+        ArrayList<Note> found = notes.searchNotes("appl", 10);
+        assertEquals(1, found.size());
+        assertEquals("groceries", found.get(0).getName());
+
+        found = notes.searchNotes("buy ban", 10);
+        assertEquals(1, found.size());
+        assertEquals("groceries", found.get(0).getName());
+
+        assertEquals(0, notes.searchNotes("apples rep", 10).size());
+    }
+
+    @Test
+    public void searchNotes_findsCompressedNoteByPartialWord() throws Exception {
+        StringBuilder contents = new StringBuilder("quarterly planning ");
+        while (contents.length() < CompressedText.THRESHOLD * 2) {
+            contents.append("lorem ipsum dolor sit amet ");
+        }
+        NoteDatabase notes = new NoteDatabase(RuntimeEnvironment.application);
+        notes.addDataEntry(new Note("long", 1, contents.toString()));
+
+        ArrayList<Note> found = notes.searchNotes("quart", 10);
+        assertEquals(1, found.size());
+        assertEquals(contents.toString(), found.get(0).getContents());
+    }
+}
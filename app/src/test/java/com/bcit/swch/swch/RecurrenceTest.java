@@ -0,0 +1,116 @@
+package com.bcit.swch.swch;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of Recurrence, which expands the occurrences of an Event which repeats.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+public class RecurrenceTest {
+
+    @Test
+    public void nextOccurrence_findsFirstOccurrenceOnOrAfterDate() throws Exception {
+        Recurrence weekly = new Recurrence(Recurrence.WEEKLY, 1, null);
+        assertEquals(20180312, weekly.nextOccurrence(20180101, 20180307));
+        assertEquals(20180312, weekly.nextOccurrence(20180101, 20180312));
+        assertEquals(20180101, weekly.nextOccurrence(20180101, 20170101));
+    }
+
+    @Test
+    public void nextOccurrence_skipsExceptions() throws Exception {
+        Recurrence daily = new Recurrence(Recurrence.DAILY, 2, null, "1/5/2018", "1/7/2018");
+        assertEquals(20180109, daily.nextOccurrence(20180101, 20180104));
+    }
+
+    @Test
+    public void nextOccurrence_returnsNoneAfterRuleEnds() throws Exception {
+        Recurrence daily = new Recurrence(Recurrence.DAILY, 1, "1/31/2018");
+        assertEquals(20180131, daily.nextOccurrence(20180101, 20180131));
+        assertEquals(-1, daily.nextOccurrence(20180101, 20180201));
+        Recurrence weekly = new Recurrence(Recurrence.WEEKLY, 1, "1/31/2018", "1/29/2018");
+        assertEquals(-1, weekly.nextOccurrence(20180101, 20180123));
+    }
+
+    @Test
+    public void nextOccurrence_skipsMonthsWithoutTheDay() throws Exception {
+        Recurrence monthly = new Recurrence(Recurrence.MONTHLY, 1, null);
+        assertEquals(20180331, monthly.nextOccurrence(20180131, 20180201));
+        Recurrence yearly = new Recurrence(Recurrence.MONTHLY, 12, null);
+        assertEquals(20240229, yearly.nextOccurrence(20000229, 20210101));
+        assertEquals(21040229, yearly.nextOccurrence(20000229, 20970301));
+    }
+
+    @Test
+    public void nextOccurrence_keepsMonthlyInterval() throws Exception {
+        Recurrence quarterly = new Recurrence(Recurrence.MONTHLY, 3, null);
+        assertEquals(20180415, quarterly.nextOccurrence(20180115, 20180116));
+        assertEquals(20180415, quarterly.nextOccurrence(20180115, 20180301));
+        assertEquals(20180715, quarterly.nextOccurrence(20180115, 20180416));
+    }
+
+    @Test
+    public void occurrencesBetween_stepsDaysAndWeeks() throws Exception {
+        Recurrence everyThirdDay = new Recurrence(Recurrence.DAILY, 3, null);
+        assertArrayEquals(new int[] {20180107, 20180110}, everyThirdDay.occurrencesBetween(20180101, 20180105, 20180111));
+        Recurrence everyOtherWeek = new Recurrence(Recurrence.WEEKLY, 2, null);
+        assertArrayEquals(new int[] {20180101, 20180115, 20180129},
+                everyOtherWeek.occurrencesBetween(20180101, 20171201, 20180131));
+    }
+
+    @Test
+    public void occurrencesBetween_crossesMonthYearAndLeapDay() throws Exception {
+        Recurrence daily = new Recurrence(Recurrence.DAILY, 1, null);
+        assertArrayEquals(new int[] {20191231, 20200101}, daily.occurrencesBetween(20190101, 20191231, 20200101));
+        assertArrayEquals(new int[] {20200228, 20200229, 20200301}, daily.occurrencesBetween(20190101, 20200228, 20200301));
+        assertArrayEquals(new int[] {21000228, 21000301}, daily.occurrencesBetween(20990101, 21000228, 21000301));
+    }
+
+    @Test
+    public void occurrencesBetween_skipsMonthsWithoutTheDay() throws Exception {
+        Recurrence monthly = new Recurrence(Recurrence.MONTHLY, 1, null);
+        assertArrayEquals(new int[] {20180131, 20180331, 20180531},
+                monthly.occurrencesBetween(20180131, 20180101, 20180630));
+        Recurrence yearly = new Recurrence(Recurrence.MONTHLY, 12, null);
+        assertArrayEquals(new int[] {20000229, 20040229}, yearly.occurrencesBetween(20000229, 20000101, 20041231));
+    }
+
+    @Test
+    public void occurrencesBetween_honoursUntilAndExceptions() throws Exception {
+        Recurrence weekly = new Recurrence(Recurrence.WEEKLY, 1, "1/22/2018", "1/8/2018");
+        assertArrayEquals(new int[] {20180101, 20180115, 20180122},
+                weekly.occurrencesBetween(20180101, 20180101, 20181231));
+        assertArrayEquals(new int[0], weekly.occurrencesBetween(20180101, 20180123, 20181231));
+    }
+
+    @Test
+    public void occurrencesBetween_isEmptyBeforeStart() throws Exception {
+        Recurrence daily = new Recurrence(Recurrence.DAILY, 1, null);
+        assertArrayEquals(new int[0], daily.occurrencesBetween(20180201, 20180101, 20180131));
+        assertArrayEquals(new int[] {20180201}, daily.occurrencesBetween(20180201, 20180101, 20180201));
+    }
+
+    @Test
+    public void nextOccurrence_agreesWithOccurrencesBetween() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 2000; trial++) {
+            int frequency = random.nextInt(3);
+            int interval = 1 + random.nextInt(frequency == Recurrence.MONTHLY ? 14 : 10);
+            int startKey = Date.fromDayNumber(Date.toDayNumber(20180101) + random.nextInt(800));
+            int untilKey = random.nextBoolean() ? Recurrence.NO_END
+                    : Date.fromDayNumber(Date.toDayNumber(startKey) + random.nextInt(800));
+            int[] exceptions = {Date.fromDayNumber(Date.toDayNumber(startKey) + random.nextInt(100))};
+            Recurrence recurrence = new Recurrence(frequency, interval, untilKey, exceptions);
+            int fromKey = Date.fromDayNumber(Date.toDayNumber(startKey) - 50 + random.nextInt(900));
+
+            int[] expected = recurrence.occurrencesBetween(startKey, fromKey, 29991231);
+            int next = recurrence.nextOccurrence(startKey, fromKey);
+            assertEquals(expected.length == 0 ? -1 : expected[0], next);
+        }
+    }
+}
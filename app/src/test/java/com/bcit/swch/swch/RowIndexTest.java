@@ -0,0 +1,122 @@
+package com.bcit.swch.swch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of RowIndex, which maps list positions to row IDs and shifts the positions
+ * after a delete.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+public class RowIndexTest {
+
+    /**
+     * Makes an index loaded with row IDs.
+     * @param ids the row IDs in ascending order.
+     * @return RowIndex which holds the row IDs.
+     */
+    private static RowIndex indexOf(int... ids) {
+        RowIndex index = new RowIndex();
+        index.load(ids.clone(), ids.length);
+        return index;
+    }
+
+    /**
+     * Reads every row ID of an index in position order.
+     * @param index the index to read.
+     * @return int array of the row IDs.
+     */
+    private static int[] contentsOf(RowIndex index) {
+        int[] ids = new int[index.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = index.get(i);
+        }
+        return ids;
+    }
+
+    @Test
+    public void removeAll_shiftsLaterPositionsDown() {
+        RowIndex index = indexOf(1, 2, 4, 7, 9, 12);
+        index.removeAll(new int[] {2, 9}, 2);
+        assertArrayEquals(new int[] {1, 4, 7, 12}, contentsOf(index));
+        assertEquals(1, index.positionOf(4));
+        assertEquals(3, index.positionOf(12));
+        assertEquals(-1, index.positionOf(9));
+    }
+
+    @Test
+    public void removeAll_removesFirstAndLast() {
+        RowIndex index = indexOf(3, 5, 8);
+        index.removeAll(new int[] {3, 8}, 2);
+        assertArrayEquals(new int[] {5}, contentsOf(index));
+        assertEquals(0, index.positionOf(5));
+    }
+
+    @Test
+    public void removeAll_ignoresIdsNotInIndex() {
+        RowIndex index = indexOf(2, 4, 6);
+        index.removeAll(new int[] {1, 4, 5, 10}, 4);
+        assertArrayEquals(new int[] {2, 6}, contentsOf(index));
+    }
+
+    @Test
+    public void removeAll_usesOnlyCountIds() {
+        RowIndex index = indexOf(2, 4, 6);
+        index.removeAll(new int[] {2, 6}, 1);
+        assertArrayEquals(new int[] {4, 6}, contentsOf(index));
+    }
+
+    @Test
+    public void removeAll_removesEverything() {
+        RowIndex index = indexOf(1, 2, 3);
+        index.removeAll(new int[] {1, 2, 3}, 3);
+        assertEquals(0, index.size());
+        assertTrue(index.isValid());
+    }
+
+    @Test
+    public void removeAt_shiftsLaterPositionsDown() {
+        RowIndex index = indexOf(10, 20, 30, 40);
+        assertEquals(20, index.removeAt(1));
+        assertArrayEquals(new int[] {10, 30, 40}, contentsOf(index));
+        assertEquals(1, index.positionOf(30));
+    }
+
+    @Test
+    public void add_keepsRowIdsInOrder() {
+        RowIndex index = indexOf(2, 6);
+        index.add(4);
+        index.add(8);
+        index.add(6);
+        assertArrayEquals(new int[] {2, 4, 6, 8}, contentsOf(index));
+    }
+
+    @Test
+    public void add_growsPastInitialCapacity() {
+        RowIndex index = new RowIndex();
+        index.clear();
+        for (int i = 1; i <= 100; i++) {
+            index.add(i);
+        }
+        assertEquals(100, index.size());
+        assertEquals(100, index.get(99));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_throwsPastEnd() {
+        RowIndex index = indexOf(1, 2);
+        index.removeAll(new int[] {2}, 1);
+        index.get(1);
+    }
+
+    @Test
+    public void invalidate_emptiesIndex() {
+        RowIndex index = indexOf(1, 2);
+        index.invalidate();
+        assertFalse(index.isValid());
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.bcit.swch.swch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that two databases of the same table see each other's writes in their
+ * positions, row cache and change listeners.
+ *
+ * @author SWCH
+ * @version 2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SharedTableStateTest {
+
+    @After
+    public void tearDown() {
+        PlannerDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void deleteByPosition_seesInsertsOfOtherDatabase() throws Exception {
+        TodoDatabase first = new TodoDatabase(RuntimeEnvironment.application);
+        TodoDatabase second = new TodoDatabase(RuntimeEnvironment.application);
+        first.addDataEntry(new Todo("a", 1, "1/1/2018"));
+        assertEquals("a", first.getTodo(0).getName());
+
+        second.addDataEntry(new Todo("b", 1, "1/2/2018"));
+        second.addDataEntry(new Todo("c", 1, "1/3/2018"));
+        first.deleteDataEntry(1);
+
+        assertEquals("c", first.getTodo(1).getName());
+        assertEquals("c", second.getTodo(1).getName());
+    }
+
+    @Test
+    public void getTodo_seesUpdatesOfOtherDatabase() throws Exception {
+        TodoDatabase first = new TodoDatabase(RuntimeEnvironment.application);
+        TodoDatabase second = new TodoDatabase(RuntimeEnvironment.application);
+        first.addDataEntry(new Todo("a", 1, "1/1/2018"));
+        assertEquals("a", first.getTodo(0).getName());
+
+        second.updateTodoName("renamed", 0);
+
+        assertEquals("renamed", first.getTodo(0).getName());
+    }
+
+    @Test
+    public void listener_receivesChangesOfOtherDatabase() throws Exception {
+        TodoDatabase first = new TodoDatabase(RuntimeEnvironment.application);
+        TodoDatabase second = new TodoDatabase(RuntimeEnvironment.application);
+        final List<DataChange> received = new ArrayList<>();
+        first.addChangeListener(new DataChangeListener() {
+            @Override
+            public void onDataChanged(Database database, List<DataChange> changes) {
+                received.addAll(changes);
+            }
+        });
+
+        second.addDataEntry(new Todo("a", 1, "1/1/2018"));
+
+        assertEquals(1, received.size());
+        assertEquals(DataChange.INSERTED, received.get(0).getType());
+    }
+
+    @Test
+    public void metrics_countOperationsOfEveryDatabase() throws Exception {
+        TodoDatabase first = new TodoDatabase(RuntimeEnvironment.application);
+        first.getMetrics().setEnabled(true);
+        first.addDataEntry(new Todo("a", 1, "1/1/2018"));
+
+        TodoDatabase second = new TodoDatabase(RuntimeEnvironment.application);
+        second.addDataEntry(new Todo("b", 1, "1/2/2018"));
+
+        assertSame(first.getMetrics(), second.getMetrics());
+        MetricsSnapshot snapshot = second.getMetrics().snapshot();
+        assertEquals("todo_table", snapshot.getDatabaseName());
+        for (OperationStats stats : snapshot.getOperations()) {
+            if (stats.getName().equals("add")) {
+                assertEquals(2, stats.getCount());
+                return;
+            }
+        }
+        fail("The adds should have been measured.");
+    }
+
+    @Test
+    public void occurrences_seeRecurringEventsOfOtherDatabase() throws Exception {
+        EventDatabase first = new EventDatabase(RuntimeEnvironment.application);
+        EventDatabase second = new EventDatabase(RuntimeEnvironment.application);
+        Date from = new Date("1/1/2018");
+        Date to = new Date("1/31/2018");
+        assertEquals(0, first.getOccurrencesBetween(from, to).size());
+
+        second.addDataEntry(new Event("standup", 1, "1/1/2018", new Recurrence(Recurrence.WEEKLY, 1, null)));
+
+        assertEquals(5, first.getOccurrencesBetween(from, to).size());
+    }
+}